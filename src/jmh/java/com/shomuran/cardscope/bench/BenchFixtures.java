@@ -0,0 +1,51 @@
+package com.shomuran.cardscope.bench;
+
+import com.shomuran.cardscope.model.UserCard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Shared inputs for the hot-path benchmarks, loaded from {@code src/jmh/resources/bench}.
+ */
+final class BenchFixtures {
+
+    /** A realistic ~10KB {@code CreditCard.rewardDetails} value. */
+    static final String REWARD_DETAILS = load("bench/reward-details.json");
+
+    /** A ~30KB Responses API body with web search calls, reasoning and annotated output_text. */
+    static final String RESPONSES_PAYLOAD = load("bench/responses-payload.json");
+
+    /** A well-stocked wallet: 12 cards. */
+    static final List<UserCard> TWELVE_CARDS = List.of(
+            new UserCard("Chase", "Freedom Flex"),
+            new UserCard("Chase", "Freedom Unlimited"),
+            new UserCard("Chase", "Sapphire Preferred"),
+            new UserCard("American Express", "Blue Cash Preferred"),
+            new UserCard("American Express", "Gold"),
+            new UserCard("Citi", "Double Cash"),
+            new UserCard("Citi", "Custom Cash"),
+            new UserCard("Citi", "Costco Anywhere Visa"),
+            new UserCard("Capital One", "SavorOne"),
+            new UserCard("Capital One", "Venture X"),
+            new UserCard("Discover", "it Cash Back"),
+            new UserCard("Bank of America", "Customized Cash Rewards")
+    );
+
+    private BenchFixtures() {
+    }
+
+    private static String load(String resource) {
+        try (InputStream in = BenchFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark fixture " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.shomuran.cardscope.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt throughput at the work factors we might configure via {@code app.security.bcrypt.strength}.
+ * <p>
+ * The {@code *SingleThread} results are hashes per second per core; compare them with the
+ * {@code *AllCores} results to size {@code app.security.hash.threads} and the queue capacity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @Param({"10", "11", "12"})
+    int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        storedHash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String encodeSingleThread() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean matchesSingleThread() {
+        return encoder.matches(PASSWORD, storedHash);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean matchesAllCores() {
+        return encoder.matches(PASSWORD, storedHash);
+    }
+}
@@ -0,0 +1,47 @@
+package com.shomuran.cardscope.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.CreditCardDto;
+import com.shomuran.cardscope.service.PromptAssembler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User prompt assembly for both suggestion endpoints with a 12-card wallet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PromptAssemblyBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private List<String> cardNames;
+    private List<CreditCardDto> cardDtos;
+
+    @Setup
+    public void setUp() throws Exception {
+        cardNames = BenchFixtures.TWELVE_CARDS.stream()
+                .map(uc -> uc.getIssuer() + " " + uc.getCardProduct())
+                .toList();
+        cardDtos = new ArrayList<>();
+        for (var card : BenchFixtures.TWELVE_CARDS) {
+            cardDtos.add(new CreditCardDto(card.getIssuer(), card.getCardProduct(),
+                    mapper.readValue(BenchFixtures.REWARD_DETAILS, Object.class)));
+        }
+    }
+
+    @Benchmark
+    public String suggestionPrompt() {
+        return PromptAssembler.suggestionUserPrompt(cardNames, "Costco Wholesale", "wholesale_club", "Q4");
+    }
+
+    @Benchmark
+    public String suggestionJsonPrompt() throws Exception {
+        return PromptAssembler.suggestionJsonUserPrompt(mapper, cardDtos, "Costco Wholesale");
+    }
+}
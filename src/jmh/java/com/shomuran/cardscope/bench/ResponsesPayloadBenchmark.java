@@ -0,0 +1,59 @@
+package com.shomuran.cardscope.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.CardSuggestionAnswer;
+import com.shomuran.cardscope.service.OpenAiResponseReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a Responses API body into the suggestion answer. {@code streamTypedAnswer} is what
+ * {@code OpenAiClient} does; {@code mapTreeBaseline} is the former String + {@code Map} walk, kept for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResponsesPayloadBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final OpenAiResponseReader reader = new OpenAiResponseReader();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        body = BenchFixtures.RESPONSES_PAYLOAD.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public OpenAiResponseReader.Reply<CardSuggestionAnswer> streamTypedAnswer() throws Exception {
+        return reader.read(new ByteArrayInputStream(body), CardSuggestionAnswer.class);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> mapTreeBaseline() throws Exception {
+        String text = new String(body, StandardCharsets.UTF_8);
+        Map<String, Object> bodyMap = mapper.readValue(text, new TypeReference<Map<String, Object>>() {
+        });
+        for (Map<String, Object> outputItem : (List<Map<String, Object>>) bodyMap.get("output")) {
+            List<Map<String, Object>> contentList = (List<Map<String, Object>>) outputItem.get("content");
+            if (contentList == null) continue;
+            for (Map<String, Object> contentItem : contentList) {
+                if ("output_text".equals(contentItem.get("type"))) {
+                    String outputText = ((String) contentItem.get("text")).trim().replaceAll("```(json)?", "").trim();
+                    return mapper.readValue(outputText, new TypeReference<Map<String, Object>>() {
+                    });
+                }
+            }
+        }
+        return null;
+    }
+}
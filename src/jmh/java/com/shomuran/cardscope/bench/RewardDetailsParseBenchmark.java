@@ -0,0 +1,46 @@
+package com.shomuran.cardscope.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.service.RewardRuleCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a stored {@code rewardDetails} blob, done once per card on every JSON suggestion request,
+ * and compiling it into ranking rules for the local fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RewardDetailsParseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RewardRuleCompiler compiler = new RewardRuleCompiler();
+    private Object parsed;
+
+    @Setup
+    public void setUp() throws Exception {
+        parsed = objectMapper.readValue(BenchFixtures.REWARD_DETAILS, Object.class);
+    }
+
+    @Benchmark
+    public Object parseToObject() throws Exception {
+        return objectMapper.readValue(BenchFixtures.REWARD_DETAILS, Object.class);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseToMap() throws Exception {
+        return objectMapper.readValue(BenchFixtures.REWARD_DETAILS, new TypeReference<Map<String, Object>>() {
+        });
+    }
+
+    @Benchmark
+    public RewardRuleCompiler.CompiledCard compileRules() {
+        return compiler.compile("Chase", "Freedom Flex", parsed);
+    }
+}
@@ -0,0 +1,87 @@
+package com.shomuran.cardscope.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.shomuran.cardscope.dto.CreditCardDto;
+import com.shomuran.cardscope.dto.UserProfileDto;
+import com.shomuran.cardscope.model.UserCard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the 12-card {@link UserProfileDto} the way {@code JsonCardSuggestionController} does
+ * (one {@code rewardDetails} parse per card), and serializing it back out as JSON, Smile and CBOR.
+ * The {@code read*} benchmarks approximate the client-side decode cost of each encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UserProfileDtoBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private UserProfileDto built;
+    private byte[] json;
+    private byte[] smile;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws Exception {
+        built = buildTwelveCardProfile();
+        json = objectMapper.writeValueAsBytes(built);
+        smile = smileMapper.writeValueAsBytes(built);
+        cbor = cborMapper.writeValueAsBytes(built);
+        System.out.printf("%nUserProfileDto payload bytes: json=%d smile=%d cbor=%d%n", json.length, smile.length, cbor.length);
+    }
+
+    @Benchmark
+    public UserProfileDto buildTwelveCardProfile() throws Exception {
+        List<CreditCardDto> cardDtos = new ArrayList<>(BenchFixtures.TWELVE_CARDS.size());
+        for (UserCard card : BenchFixtures.TWELVE_CARDS) {
+            Object rewardJson = objectMapper.readValue(BenchFixtures.REWARD_DETAILS, Object.class);
+            cardDtos.add(new CreditCardDto(card.getIssuer(), card.getCardProduct(), rewardJson));
+        }
+        return new UserProfileDto(42L, "bench@cardscope.app", "Bench User", null, cardDtos);
+    }
+
+    @Benchmark
+    public byte[] serializeTwelveCardProfile() throws Exception {
+        return objectMapper.writeValueAsBytes(built);
+    }
+
+    @Benchmark
+    public byte[] serializeTwelveCardProfileSmile() throws Exception {
+        return smileMapper.writeValueAsBytes(built);
+    }
+
+    @Benchmark
+    public byte[] serializeTwelveCardProfileCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(built);
+    }
+
+    @Benchmark
+    public JsonNode readTwelveCardProfile() throws Exception {
+        return objectMapper.readTree(json);
+    }
+
+    @Benchmark
+    public JsonNode readTwelveCardProfileSmile() throws Exception {
+        return smileMapper.readTree(smile);
+    }
+
+    @Benchmark
+    public JsonNode readTwelveCardProfileCbor() throws Exception {
+        return cborMapper.readTree(cbor);
+    }
+}
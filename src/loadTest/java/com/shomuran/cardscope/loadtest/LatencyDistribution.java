@@ -0,0 +1,65 @@
+package com.shomuran.cardscope.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated upstream latency, parsed from a spec string:
+ * <ul>
+ *     <li>{@code fixed:50ms}</li>
+ *     <li>{@code uniform:20ms:80ms}</li>
+ *     <li>{@code lognormal:800ms:3s} — median and p99; a long right tail like real LLM calls</li>
+ * </ul>
+ */
+final class LatencyDistribution {
+
+    // z-score of the 99th percentile of a standard normal
+    private static final double Z_99 = 2.3263;
+
+    private final String spec;
+    private final String kind;
+    private final long a;
+    private final long b;
+    private final double sigma;
+
+    private LatencyDistribution(String spec, String kind, long a, long b) {
+        this.spec = spec;
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.sigma = "lognormal".equals(kind) && a > 0 ? Math.log((double) b / a) / Z_99 : 0;
+    }
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        return switch (parts[0]) {
+            case "fixed" -> new LatencyDistribution(spec, "fixed", millis(parts[1]), 0);
+            case "uniform", "lognormal" -> {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Expected " + parts[0] + ":<a>:<b> but got " + spec);
+                }
+                yield new LatencyDistribution(spec, parts[0], millis(parts[1]), millis(parts[2]));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution " + spec);
+        };
+    }
+
+    long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (kind) {
+            case "uniform" -> a + (b > a ? random.nextLong(b - a + 1) : 0);
+            case "lognormal" -> Math.round(a * Math.exp(sigma * random.nextGaussian()));
+            default -> a;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static long millis(String value) {
+        return DurationStyle.detectAndParse(value).toMillis();
+    }
+}
@@ -0,0 +1,74 @@
+package com.shomuran.cardscope.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects per-endpoint latencies (microseconds) and status codes for one measurement window.
+ * Latency is measured from the request's scheduled start, so a stalled server cannot hide
+ * its queueing time (no coordinated omission).
+ */
+final class LatencyRecorder {
+
+    private final String endpoint;
+    private long[] samples = new long[4096];
+    private int count;
+    private final Map<String, Long> statuses = new TreeMap<>();
+    private long errors;
+    private long dropped;
+
+    LatencyRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @param status HTTP status, or a label such as "timeout" / "dropped" when there was none
+     */
+    synchronized void record(long latencyMicros, String status, boolean error) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = latencyMicros;
+        statuses.merge(status, 1L, Long::sum);
+        if (error) {
+            errors++;
+        }
+    }
+
+    /**
+     * A request that was never sent because the in-flight limit was reached.
+     */
+    synchronized void drop() {
+        dropped++;
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", endpoint);
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("dropped", dropped);
+        summary.put("throughputRps", round(count / seconds));
+        summary.put("p50Ms", percentileMillis(sorted, 0.50));
+        summary.put("p95Ms", percentileMillis(sorted, 0.95));
+        summary.put("p99Ms", percentileMillis(sorted, 0.99));
+        summary.put("maxMs", sorted.length == 0 ? 0.0 : round(sorted[sorted.length - 1] / 1000.0));
+        summary.put("statuses", new TreeMap<>(statuses));
+        return summary;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0.0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return round(sorted[Math.max(0, index)] / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,105 @@
+package com.shomuran.cardscope.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop request driver: requests are started on a fixed schedule at the target rate whether or
+ * not earlier ones have finished, and the endpoint for each slot is picked by weight.
+ */
+final class LoadGenerator {
+
+    record Endpoint(String name, int weight, Supplier<HttpRequest> request) {
+    }
+
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    LoadGenerator(List<Endpoint> endpoints, int maxInFlight, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Drives the endpoints at {@code rps} for {@code duration} and waits for stragglers.
+     *
+     * @return recorder per endpoint name, in declaration order
+     */
+    Map<String, LatencyRecorder> run(double rps, Duration duration) throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> recorders.put(endpoint.name(), new LatencyRecorder(endpoint.name())));
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+        long durationNanos = duration.toNanos();
+        long start = System.nanoTime();
+
+        for (long i = 0; i * intervalNanos < durationNanos; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Endpoint endpoint = pick();
+            LatencyRecorder recorder = recorders.get(endpoint.name());
+            if (inFlight.get() >= maxInFlight) {
+                recorder.drop();
+                continue;
+            }
+
+            inFlight.incrementAndGet();
+            HttpRequest request = HttpRequest.newBuilder(endpoint.request().get(), (name, value) -> true)
+                    .timeout(requestTimeout)
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long micros = (System.nanoTime() - intended) / 1000;
+                        if (error != null) {
+                            boolean timeout = error instanceof HttpTimeoutException || error.getCause() instanceof HttpTimeoutException;
+                            recorder.record(micros, timeout ? "timeout" : "io_error", true);
+                        } else {
+                            recorder.record(micros, String.valueOf(response.statusCode()), response.statusCode() >= 400);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        long drainDeadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(20);
+        }
+        return recorders;
+    }
+
+    private Endpoint pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            roll -= endpoint.weight();
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+}
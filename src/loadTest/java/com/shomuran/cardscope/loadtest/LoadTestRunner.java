@@ -0,0 +1,292 @@
+package com.shomuran.cardscope.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shomuran.cardscope.CardScopeApplication;
+import com.shomuran.cardscope.model.CreditCard;
+import com.shomuran.cardscope.repository.CreditCardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots CardScope on an in-memory H2 database with OpenAI and Google Places replaced by local
+ * {@link StubServer}s, seeds users and cards, then drives the main endpoints at a fixed rate and
+ * reports throughput and p50/p95/p99 per endpoint.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; every knob is a {@code -Ploadtest.*} property (see {@code build.gradle}).
+ * Properties prefixed {@code loadtest.app.} are passed through to the application, e.g.
+ * {@code -Ploadtest.app.app.security.hash.threads=4}.
+ */
+public final class LoadTestRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String APP_PREFIX = "loadtest.app.";
+
+    /** Catalog seeded into credit_card; users get a random subset. */
+    private static final List<String[]> CATALOG = List.of(
+            new String[]{"Chase", "Freedom Flex"},
+            new String[]{"Chase", "Freedom Unlimited"},
+            new String[]{"Chase", "Sapphire Preferred"},
+            new String[]{"American Express", "Blue Cash Preferred"},
+            new String[]{"American Express", "Gold"},
+            new String[]{"Citi", "Double Cash"},
+            new String[]{"Citi", "Custom Cash"},
+            new String[]{"Citi", "Costco Anywhere Visa"},
+            new String[]{"Capital One", "SavorOne"},
+            new String[]{"Capital One", "Venture X"},
+            new String[]{"Discover", "it Cash Back"},
+            new String[]{"Bank of America", "Customized Cash Rewards"}
+    );
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rps = Double.parseDouble(setting("loadtest.rps", "20"));
+        Duration duration = DurationStyle.detectAndParse(setting("loadtest.duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(setting("loadtest.warmup", "10s"));
+        int users = Integer.parseInt(setting("loadtest.users", "50"));
+        int cardsPerUser = Integer.parseInt(setting("loadtest.cards-per-user", "5"));
+        int maxInFlight = Integer.parseInt(setting("loadtest.max-in-flight", "1000"));
+        Duration requestTimeout = DurationStyle.detectAndParse(setting("loadtest.request-timeout", "30s"));
+        Map<String, Integer> mix = parseMix(setting("loadtest.mix", "suggestions:1,profile:4,stores:2"));
+        String payloadDir = setting("loadtest.payloads", "");
+
+        LatencyDistribution openAiLatency = LatencyDistribution.parse(setting("loadtest.openai.latency", "lognormal:900ms:4s"));
+        double openAiErrorRate = Double.parseDouble(setting("loadtest.openai.error-rate", "0.01"));
+        LatencyDistribution placesLatency = LatencyDistribution.parse(setting("loadtest.places.latency", "lognormal:80ms:400ms"));
+        double placesErrorRate = Double.parseDouble(setting("loadtest.places.error-rate", "0.005"));
+
+        try (StubServer openAi = new StubServer("openai", openAiLatency, openAiErrorRate, payloadDir, List.of(
+                new StubServer.Route("/v1/responses", "openai-suggestion.json", 500, "openai-error.json")));
+             StubServer places = new StubServer("places", placesLatency, placesErrorRate, payloadDir, List.of(
+                     new StubServer.Route("/maps/api/place/nearbysearch/json", "places-nearbysearch.json", 200, "places-over-query-limit.json"),
+                     new StubServer.Route("/maps/api/place/textsearch/json", "places-textsearch.json", 200, "places-over-query-limit.json"),
+                     new StubServer.Route("/v1/places:searchNearby", "places-searchnearby.json", 429, "places-resource-exhausted.json")))) {
+
+            String openAiUrl = openAi.start();
+            String placesUrl = places.start();
+            log.info("🧪 OpenAI stub at {} ({}), Places stub at {} ({})", openAiUrl, openAiLatency, placesUrl, placesLatency);
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(CardScopeApplication.class)
+                    .run(appArguments(openAiUrl, placesUrl, args))) {
+
+                int port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+                String baseUrl = "http://127.0.0.1:" + port;
+                List<String> emails = seed(app, baseUrl, users, cardsPerUser);
+                log.info("🌱 Seeded {} cards and {} users; app at {}", CATALOG.size(), emails.size(), baseUrl);
+
+                LoadGenerator generator = new LoadGenerator(endpoints(baseUrl, emails, mix), maxInFlight, requestTimeout);
+                if (!warmup.isZero()) {
+                    log.info("🔥 Warming up for {}s at {} rps", warmup.toSeconds(), rps);
+                    generator.run(rps, warmup);
+                }
+                log.info("🚀 Measuring for {}s at {} rps", duration.toSeconds(), rps);
+                Map<String, LatencyRecorder> recorders = generator.run(rps, duration);
+
+                Map<String, Object> settings = new LinkedHashMap<>();
+                settings.put("targetRps", rps);
+                settings.put("duration", setting("loadtest.duration", "60s"));
+                settings.put("warmup", setting("loadtest.warmup", "10s"));
+                settings.put("users", users);
+                settings.put("cardsPerUser", cardsPerUser);
+                settings.put("mix", mix);
+                report(settings, recorders, duration, List.of(openAi, places));
+            }
+        }
+    }
+
+    /**
+     * Passed as command-line arguments so they win over application.properties (including its active profile).
+     */
+    private static String[] appArguments(String openAiUrl, String placesUrl, String[] args) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "loadtest");
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:cardscope-loadtest;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("openai.api.key", "loadtest");
+        properties.put("openai.base-url", openAiUrl);
+        properties.put("google.api.key", "loadtest");
+        properties.put("google.places.base-url", placesUrl);
+        properties.put("google.places.new-api-base-url", placesUrl);
+        properties.put("spring.mail.host", "localhost");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.shomuran.cardscope.loadtest", "INFO");
+        // Measure the full OpenAI path, not the budget governor's local fallback
+        properties.put("app.llm.budget.cheaper-model-at", "1000000");
+        properties.put("app.llm.budget.no-web-search-at", "1000000");
+        properties.put("app.llm.budget.local-only-at", "1000000");
+        // Every virtual user shares one IP and the Places stub has no quota; the load shedder stays on
+        properties.put("app.inbound.per-ip.requests-per-minute", "1000000");
+        properties.put("app.inbound.per-ip.burst", "100000");
+        for (String api : List.of("nearbysearch", "textsearch", "searchNearby")) {
+            properties.put("app.places.quota.apis." + api + ".requests-per-minute", "1000000");
+            properties.put("app.places.quota.apis." + api + ".burst", "100000");
+        }
+
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PREFIX))
+                .forEach(name -> properties.put(name.substring(APP_PREFIX.length()), System.getProperty(name)));
+
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((name, value) -> arguments.add("--" + name + "=" + value));
+        arguments.addAll(Arrays.asList(args));
+        return arguments.toArray(String[]::new);
+    }
+
+    private static List<String> seed(ConfigurableApplicationContext app, String baseUrl, int users, int cardsPerUser)
+            throws IOException, InterruptedException {
+        String rewardTemplate = classpathText("seed/reward-details.json");
+        CreditCardRepository creditCardRepository = app.getBean(CreditCardRepository.class);
+        for (String[] card : CATALOG) {
+            CreditCard creditCard = new CreditCard();
+            creditCard.setIssuer(card[0]);
+            creditCard.setCardProduct(card[1]);
+            creditCard.setRewardDetails(rewardTemplate.replace("{{card_name}}", card[0] + " " + card[1]));
+            creditCardRepository.save(creditCard);
+        }
+
+        // Users go through the real endpoints so their cards are stored exactly as in production
+        ObjectMapper mapper = new ObjectMapper();
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String email = "loadtest-" + i + "@cardscope.test";
+            List<String[]> shuffled = new ArrayList<>(CATALOG);
+            Collections.shuffle(shuffled, new Random(i));
+            List<Map<String, String>> cards = shuffled.subList(0, Math.min(cardsPerUser, shuffled.size())).stream()
+                    .map(card -> Map.of("issuer", card[0], "cardProduct", card[1]))
+                    .toList();
+
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/user"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(Map.of("email", email, "name", "Load Test " + i))))
+                    .build());
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/user/" + encode(email)))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(Map.of("userCards", cards))))
+                    .build());
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    private static List<LoadGenerator.Endpoint> endpoints(String baseUrl, List<String> emails, Map<String, Integer> mix) {
+        ObjectMapper mapper = new ObjectMapper();
+        List<LoadGenerator.Endpoint> endpoints = new ArrayList<>();
+
+        endpoints.add(new LoadGenerator.Endpoint("POST /api/get-card-suggestions", mix.getOrDefault("suggestions", 0), () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Map<String, Object> body = Map.of(
+                    "email", emails.get(random.nextInt(emails.size())),
+                    "latitude", 37.30 + random.nextDouble(0.1),
+                    "longitude", -121.95 + random.nextDouble(0.1));
+            try {
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/get-card-suggestions"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                        .build();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        endpoints.add(new LoadGenerator.Endpoint("GET /api/user/{email}", mix.getOrDefault("profile", 0), () -> {
+            String email = emails.get(ThreadLocalRandom.current().nextInt(emails.size()));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/user/" + encode(email))).GET().build();
+        }));
+        endpoints.add(new LoadGenerator.Endpoint("GET /api/google/detect-stores", mix.getOrDefault("stores", 0), () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String query = String.format(Locale.ROOT, "?latitude=%.5f&longitude=%.5f",
+                    37.30 + random.nextDouble(0.1), -121.95 + random.nextDouble(0.1));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/google/detect-stores" + query)).GET().build();
+        }));
+
+        return endpoints.stream().filter(endpoint -> endpoint.weight() > 0).toList();
+    }
+
+    private static void report(Map<String, Object> settings, Map<String, LatencyRecorder> recorders, Duration duration,
+                               List<StubServer> stubs) throws IOException {
+        double seconds = duration.toMillis() / 1000.0;
+        List<Map<String, Object>> summaries = recorders.values().stream().map(recorder -> recorder.summary(seconds)).toList();
+
+        StringBuilder table = new StringBuilder(String.format("%n%-34s %9s %7s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "dropped", "rps", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (Map<String, Object> summary : summaries) {
+            table.append(String.format("%-34s %9s %7s %8s %10s %9s %9s %9s %9s%n",
+                    summary.get("endpoint"), summary.get("requests"), summary.get("errors"), summary.get("dropped"),
+                    summary.get("throughputRps"), summary.get("p50Ms"), summary.get("p95Ms"), summary.get("p99Ms"), summary.get("maxMs")));
+        }
+        log.info("📊 Load test results{}", table);
+
+        Map<String, Object> stubStats = new LinkedHashMap<>();
+        stubs.forEach(stub -> stubStats.put(stub.name(), stub.stats()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("endpoints", summaries);
+        report.put("stubs", stubStats);
+
+        Path dir = Path.of(setting("loadtest.report-dir", "build/reports/loadtest"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        log.info("📝 Report written to {}", file.toAbsolutePath());
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed: " + request.method() + " " + request.uri()
+                    + " -> " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String classpathText(String resource) throws IOException {
+        try (InputStream in = LoadTestRunner.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.shomuran.cardscope.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold-starts the packaged application several times per launch mode and reports how long it takes
+ * until {@code /api/health} answers 200, which it only does once the startup cache warm-up has finished,
+ * i.e. what the first user after an idle sleep actually waits.
+ * <p>
+ * Modes: {@code jvm} (plain {@code java -jar}), {@code aot} (Spring AOT bean definitions, needs a jar
+ * built with {@code -PfastStartup}), {@code cds} (extracted jar + AppCDS archive recorded from a
+ * training start, plus AOT when available) and {@code native} (GraalVM binary, needs {@code -Pnative}).
+ * Run with {@code ./gradlew measureStartup}; knobs are {@code -Pstartup.*} properties (see {@code build.gradle}).
+ */
+public final class StartupTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimer.class);
+
+    private static final String AOT_INITIALIZER =
+            "BOOT-INF/classes/com/shomuran/cardscope/CardScopeApplication__ApplicationContextInitializer.class";
+
+    private static final Pattern STARTED =
+            Pattern.compile("Started CardScopeApplication in ([\\d.]+) seconds \\(process running for ([\\d.]+)\\)");
+
+    private StartupTimer() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(setting("startup.jar", "build/libs/cardscope-0.0.1-SNAPSHOT.jar")).toAbsolutePath();
+        String nativeBinary = setting("startup.native-binary", "");
+        List<String> modes = List.of(setting("startup.modes", nativeBinary.isBlank() ? "jvm,aot,cds" : "jvm,aot,cds,native").split(","));
+        int runs = Integer.parseInt(setting("startup.runs", "5"));
+        Duration timeout = DurationStyle.detectAndParse(setting("startup.timeout", "90s"));
+        Path workDir = Files.createDirectories(Path.of(setting("startup.work-dir", "build/startup")).toAbsolutePath());
+
+        boolean aotJar = hasAotInitializer(jar);
+        if (!aotJar) {
+            log.warn("⚠️ {} was not AOT-processed (build it with -PfastStartup); skipping the aot mode", jar.getFileName());
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            List<String> command = switch (mode.trim()) {
+                case "jvm" -> javaCommand(List.of(), jar);
+                case "aot" -> aotJar ? javaCommand(List.of("-Dspring.aot.enabled=true"), jar) : null;
+                case "cds" -> cdsCommand(jar, aotJar, workDir.resolve("cds"), timeout);
+                case "native" -> nativeBinary.isBlank() || !Files.isExecutable(Path.of(nativeBinary))
+                        ? null : new ArrayList<>(List.of(Path.of(nativeBinary).toAbsolutePath().toString()));
+                default -> throw new IllegalArgumentException("Unknown startup mode: " + mode);
+            };
+            if (command == null) {
+                continue;
+            }
+
+            List<Map<String, Object>> samples = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                Map<String, Object> sample = coldStart(command, workDir.resolve(mode.trim() + "-" + run + ".log"), timeout);
+                log.info("⏱️ {} run {}/{}: first response {} ms (Spring reported {} s)",
+                        mode.trim(), run, runs, sample.get("firstResponseMs"), sample.getOrDefault("springStartedSeconds", "?"));
+                samples.add(sample);
+            }
+            results.put(mode.trim(), summarize(command, samples));
+        }
+
+        report(jar, runs, results);
+    }
+
+    /**
+     * Unpacks the jar with the Boot tools jarmode and records a dynamic AppCDS archive from one training
+     * start that exits right after the context refresh — the same steps the Dockerfile runs.
+     */
+    private static List<String> cdsCommand(Path jar, boolean aot, Path dir, Duration timeout) throws Exception {
+        Path extracted = dir.resolve("application");
+        if (Files.exists(extracted)) {
+            try (var paths = Files.walk(extracted)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        Files.createDirectories(dir);
+        run(List.of(java(), "-Djarmode=tools", "-jar", jar.toString(), "extract", "--destination", extracted.toString()),
+                dir.resolve("extract.log"), timeout);
+
+        Path archive = extracted.resolve("app.jsa");
+        List<String> training = new ArrayList<>(List.of(java(), "-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh"));
+        if (aot) {
+            training.add("-Dspring.aot.enabled=true");
+        }
+        training.addAll(List.of("-jar", extracted.resolve("app.jar").toString()));
+        training.addAll(appArguments(freePort()));
+        run(training, dir.resolve("training.log"), timeout);
+        log.info("📦 AppCDS archive recorded: {} ({} KB)", archive, Files.size(archive) / 1024);
+
+        List<String> flags = new ArrayList<>(List.of("-XX:SharedArchiveFile=" + archive));
+        if (aot) {
+            flags.add("-Dspring.aot.enabled=true");
+        }
+        return javaCommand(flags, extracted.resolve("app.jar"));
+    }
+
+    private static Map<String, Object> coldStart(List<String> command, Path logFile, Duration timeout) throws Exception {
+        int port = freePort();
+        List<String> full = new ArrayList<>(command);
+        full.addAll(appArguments(port));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(250)).build();
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(full).redirectErrorStream(true).redirectOutput(logFile.toFile()).start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + " before serving; see " + logFile);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No response from /api/health within " + timeout + "; see " + logFile);
+                }
+                try {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException notListeningYet) {
+                    // keep polling
+                }
+                Thread.sleep(10);
+            }
+            long firstResponseMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("firstResponseMs", firstResponseMs);
+            Matcher started = awaitStartedLine(logFile);
+            if (started != null) {
+                sample.put("springStartedSeconds", Double.parseDouble(started.group(1)));
+                sample.put("processRunningSeconds", Double.parseDouble(started.group(2)));
+            }
+            return sample;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /** Tomcat can answer a moment before the "Started ..." line is flushed. */
+    private static Matcher awaitStartedLine(Path logFile) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            Matcher matcher = STARTED.matcher(Files.readString(logFile));
+            if (matcher.find()) {
+                return matcher;
+            }
+            Thread.sleep(20);
+        }
+        return null;
+    }
+
+    private static void run(List<String> command, Path logFile, Duration timeout) throws Exception {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(logFile.toFile()).start();
+        if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Timed out: " + String.join(" ", command) + "; see " + logFile);
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("Exit " + process.exitValue() + ": " + String.join(" ", command) + "; see " + logFile);
+        }
+    }
+
+    /**
+     * Same self-contained setup as the load test (in-memory H2, dummy API keys), so only startup is measured.
+     */
+    private static List<String> appArguments(int port) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", String.valueOf(port));
+        properties.put("spring.datasource.url", "jdbc:h2:mem:cardscope-startup;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("openai.api.key", "startup");
+        properties.put("google.api.key", "startup");
+        properties.put("spring.mail.host", "localhost");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.shomuran.cardscope.CardScopeApplication", "INFO");
+
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("startup.app."))
+                .forEach(name -> properties.put(name.substring("startup.app.".length()), System.getProperty(name)));
+
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((name, value) -> arguments.add("--" + name + "=" + value));
+        return arguments;
+    }
+
+    private static Map<String, Object> summarize(List<String> command, List<Map<String, Object>> samples) {
+        long[] firstResponse = samples.stream().mapToLong(sample -> (Long) sample.get("firstResponseMs")).sorted().toArray();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("command", String.join(" ", command));
+        summary.put("minMs", firstResponse[0]);
+        summary.put("medianMs", firstResponse[firstResponse.length / 2]);
+        summary.put("maxMs", firstResponse[firstResponse.length - 1]);
+        summary.put("runs", samples);
+        return summary;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void report(Path jar, int runs, Map<String, Object> results) throws IOException {
+        StringBuilder table = new StringBuilder(String.format("%n%-8s %8s %8s %8s%n", "mode", "min", "median", "max"));
+        results.forEach((mode, value) -> {
+            Map<String, Object> summary = (Map<String, Object>) value;
+            table.append(String.format("%-8s %6dms %6dms %6dms%n", mode, summary.get("minMs"), summary.get("medianMs"), summary.get("maxMs")));
+        });
+        log.info("📊 Time to first /api/health response over {} cold starts:{}", runs, table);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jar", jar.toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("modes", results);
+
+        Path dir = Path.of(setting("startup.report-dir", "build/reports/startup"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("startup-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        log.info("📝 Report written to {}", file.toAbsolutePath());
+    }
+
+    private static boolean hasAotInitializer(Path jar) throws IOException {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            return jarFile.getEntry(AOT_INITIALIZER) != null;
+        }
+    }
+
+    private static List<String> javaCommand(List<String> flags, Path jar) {
+        List<String> command = new ArrayList<>();
+        command.add(java());
+        command.addAll(flags);
+        command.addAll(List.of("-jar", jar.toString()));
+        return command;
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String setting(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
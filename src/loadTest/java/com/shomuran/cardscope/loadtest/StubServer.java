@@ -0,0 +1,120 @@
+package com.shomuran.cardscope.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for an upstream HTTP API. Every route replays a recorded payload after a
+ * sampled delay, and fails with the route's recorded error payload at the configured rate.
+ */
+final class StubServer implements AutoCloseable {
+
+    /**
+     * One stubbed path. Payloads are file names under the payload directory (or {@code stubs/} on the classpath).
+     */
+    record Route(String path, String payload, int errorStatus, String errorPayload) {
+    }
+
+    private final String name;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, AtomicLong> calls = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+
+    StubServer(String name, LatencyDistribution latency, double errorRate, String payloadDir, List<Route> routes) throws IOException {
+        this.name = name;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        // Sleeping handlers hold a thread each, like a slow upstream holding a socket
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+
+        for (Route route : routes) {
+            byte[] ok = load(payloadDir, route.payload());
+            byte[] error = load(payloadDir, route.errorPayload());
+            AtomicLong routeCalls = new AtomicLong();
+            AtomicLong routeErrors = new AtomicLong();
+            calls.put(route.path(), routeCalls);
+            errors.put(route.path(), routeErrors);
+            server.createContext(route.path(), exchange -> {
+                routeCalls.incrementAndGet();
+                boolean fail = ThreadLocalRandom.current().nextDouble() < errorRate;
+                if (fail) {
+                    routeErrors.incrementAndGet();
+                }
+                respond(exchange, fail ? route.errorStatus() : 200, fail ? error : ok);
+            });
+        }
+    }
+
+    String start() {
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("latency", latency.toString());
+        stats.put("errorRate", errorRate);
+        calls.forEach((path, count) -> stats.put(path, Map.of("calls", count.get(), "injectedErrors", errors.get(path).get())));
+        return stats;
+    }
+
+    String name() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange; InputStream request = exchange.getRequestBody()) {
+            request.readAllBytes();
+            Thread.sleep(Math.max(0, latency.sampleMillis()));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] load(String payloadDir, String file) {
+        try {
+            if (payloadDir != null && !payloadDir.isBlank()) {
+                return Files.readAllBytes(Path.of(payloadDir, file));
+            }
+            try (InputStream in = StubServer.class.getClassLoader().getResourceAsStream("stubs/" + file)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing recorded payload stubs/" + file);
+                }
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
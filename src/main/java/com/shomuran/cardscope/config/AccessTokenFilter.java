@@ -0,0 +1,71 @@
+package com.shomuran.cardscope.config;
+
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import com.shomuran.cardscope.service.AccessTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Verifies {@code Authorization: Bearer <jwt>} locally and exposes the caller as the
+ * {@link AuthenticatedUser#REQUEST_ATTRIBUTE} request attribute.
+ * <p>
+ * Requests without a bearer JWT pass through unchanged, so email-based clients keep working.
+ * A JWT that fails verification is answered with 401 so the client knows to refresh.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+
+    public AccessTokenFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Login and refresh must work with an expired access token still attached
+        return request.getRequestURI().startsWith("/api/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        if (!AccessTokenService.looksLikeJwt(token)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<AuthenticatedUser> user = accessTokenService.verify(token, AccessTokenService.TYPE_ACCESS);
+        if (user.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Invalid or expired token\"}");
+            return;
+        }
+
+        request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, user.get());
+        chain.doFilter(request, response);
+    }
+}
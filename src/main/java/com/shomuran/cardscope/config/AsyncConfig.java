@@ -1,18 +1,23 @@
 package com.shomuran.cardscope.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
     @Bean(name = "cardScopeExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(MeterRegistry meterRegistry) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         executor.setCorePoolSize(5);          // minimum number of threads
@@ -22,8 +27,92 @@ public class AsyncConfig {
         executor.setKeepAliveSeconds(30);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
+        executor.setRejectedExecutionHandler(countingAbortPolicy(meterRegistry, "cardScopeExecutor"));
 
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Bounded pool for BCrypt work so login/signup spikes cannot take over Tomcat threads.
+     * When the queue is full, submissions are rejected (TaskRejectedException) and callers fail fast.
+     */
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.hash.threads:0}") int threads,
+            @Value("${app.security.hash.queue-capacity:32}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("CardScope-Hash-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.setRejectedExecutionHandler(countingAbortPolicy(meterRegistry, "passwordHashExecutor"));
+
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the database writes that follow a password hash (signup, re-hash on login, reset), so the
+     * CPU-sized hashing pool never waits on a JDBC connection. Sized for the connection pool, not for cores.
+     */
+    @Bean(name = "accountWriteExecutor")
+    public ThreadPoolTaskExecutor accountWriteExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.hash.write-threads:4}") int threads,
+            @Value("${app.security.hash.write-queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("CardScope-AccountWrite-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.setRejectedExecutionHandler(countingAbortPolicy(meterRegistry, "accountWriteExecutor"));
+
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Small low-priority pool for speculative suggestion prefetches. A full queue rejects the prefetch,
+     * which is simply skipped; nothing waits on it.
+     */
+    @Bean(name = "suggestionPrefetchExecutor")
+    public ThreadPoolTaskExecutor suggestionPrefetchExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.prefetch.max-concurrent:2}") int maxConcurrent,
+            @Value("${app.prefetch.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("CardScope-Prefetch-");
+        executor.setRejectedExecutionHandler(countingAbortPolicy(meterRegistry, "suggestionPrefetchExecutor"));
+
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Queue depth, active threads and pool size are bound by Actuator's executor metrics
+     * (tagged with the bean name); rejections are not, so count them here before aborting.
+     */
+    private RejectedExecutionHandler countingAbortPolicy(MeterRegistry meterRegistry, String executorName) {
+        Counter rejections = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the pool and queue were full")
+                .tag("name", executorName)
+                .register(meterRegistry);
+        RejectedExecutionHandler abort = new ThreadPoolExecutor.AbortPolicy();
+        return (task, pool) -> {
+            rejections.increment();
+            abort.rejectedExecution(task, pool);
+        };
+    }
 }
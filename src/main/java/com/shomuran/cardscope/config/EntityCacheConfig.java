@@ -0,0 +1,68 @@
+package com.shomuran.cardscope.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache on Caffeine (through JCache) for the catalog and user profiles.
+ * <p>
+ * Every region is created here with the size and TTL from {@link EntityCacheProperties} and published to
+ * Micrometer as {@code cache.*} metrics tagged with the region name; the region names match the
+ * {@code @Cache} / {@code @NaturalIdCache} annotations on {@code CreditCard} and {@code UserProfile}.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    /** Region name to the {@link EntityCacheProperties} group that sizes it. */
+    private static final Map<String, String> REGIONS = Map.of(
+            "credit-card", "catalog",
+            "credit-card-natural-id", "catalog",
+            "user-profile", "profiles",
+            "user-profile-cards", "profiles",
+            "user-profile-natural-id", "profiles");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties, MeterRegistry meterRegistry) {
+        // A private manager per application context, so test contexts in one JVM do not share regions
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("cardscope-entities-" + UUID.randomUUID()), getClass().getClassLoader());
+        REGIONS.forEach((region, group) -> {
+            EntityCacheProperties.Region settings = "catalog".equals(group)
+                    ? properties.getCatalog()
+                    : properties.getProfiles();
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            configuration.setMaximumSize(OptionalLong.of(settings.getMaxSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(settings.getTtl().toNanos()));
+            JCacheMetrics.monitor(meterRegistry, cacheManager.createCache(region, configuration));
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheSettings(EntityCacheProperties properties,
+                                                             CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+            if (properties.isEnabled()) {
+                hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            }
+        };
+    }
+}
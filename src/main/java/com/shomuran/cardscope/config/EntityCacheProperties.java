@@ -0,0 +1,76 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Hibernate second-level cache regions ({@code app.cache.entities.*}), built by {@link EntityCacheConfig}.
+ * {@code catalog} sizes the {@code CreditCard} entity and natural-id regions, {@code profiles} the
+ * {@code UserProfile} entity, card collection and email natural-id regions.
+ */
+@ConfigurationProperties(prefix = "app.cache.entities")
+public class EntityCacheProperties {
+
+    private boolean enabled = true;
+
+    private Region catalog = new Region(20_000, Duration.ofHours(1));
+
+    private Region profiles = new Region(50_000, Duration.ofMinutes(10));
+
+    public static class Region {
+        /** Entries per region. */
+        private long maxSize;
+
+        /** Time after a put or update after which an entry is reloaded from the database. */
+        private Duration ttl;
+
+        public Region() {
+        }
+
+        Region(long maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Region getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(Region catalog) {
+        this.catalog = catalog;
+    }
+
+    public Region getProfiles() {
+        return profiles;
+    }
+
+    public void setProfiles(Region profiles) {
+        this.profiles = profiles;
+    }
+}
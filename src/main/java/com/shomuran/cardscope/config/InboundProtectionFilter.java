@@ -0,0 +1,96 @@
+package com.shomuran.cardscope.config;
+
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import com.shomuran.cardscope.service.InboundRateLimiter;
+import com.shomuran.cardscope.service.LoadShedder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Protects the expensive endpoints (OpenAI and Google Places backed) from overload.
+ * <p>
+ * Each request first takes a token from its client IP's bucket and, when signed in, its user's bucket;
+ * an empty bucket is answered with 429. It then passes the {@link LoadShedder}, which answers 503 when the
+ * service is queueing too long. Both carry {@code Retry-After}. Other endpoints skip this filter entirely.
+ * <p>
+ * Runs after {@link AccessTokenFilter} so the caller identity is known.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class InboundProtectionFilter extends OncePerRequestFilter {
+
+    private final InboundProtectionProperties properties;
+    private final InboundRateLimiter rateLimiter;
+    private final LoadShedder loadShedder;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public InboundProtectionFilter(InboundProtectionProperties properties, InboundRateLimiter rateLimiter,
+                                   LoadShedder loadShedder, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getExpensivePaths().stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        InboundRateLimiter.Decision ip = rateLimiter.tryAcquire("ip", request.getRemoteAddr(), properties.getPerIp());
+        if (!ip.allowed()) {
+            reject(response, 429, "ip_rate", ip.retryAfterSeconds(), "Too many requests");
+            return;
+        }
+
+        Object caller = request.getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE);
+        if (caller instanceof AuthenticatedUser user) {
+            InboundRateLimiter.Decision decision = rateLimiter.tryAcquire("user", String.valueOf(user.id()),
+                    properties.getPerUser());
+            if (!decision.allowed()) {
+                reject(response, 429, "user_rate", decision.retryAfterSeconds(), "Too many requests");
+                return;
+            }
+        }
+
+        if (!loadShedder.tryEnter()) {
+            reject(response, 503, "shed", loadShedder.retryAfterSeconds(), "Service busy, retry shortly");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            loadShedder.exit();
+        }
+    }
+
+    private void reject(HttpServletResponse response, int status, String reason, long retryAfterSeconds,
+                        String message) throws IOException {
+        meterRegistry.counter("http.inbound.rejected", "reason", reason).increment();
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
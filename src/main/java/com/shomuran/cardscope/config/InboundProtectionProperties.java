@@ -0,0 +1,173 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits for {@link InboundProtectionFilter}. Only requests matching {@code expensive-paths}
+ * (Ant patterns) are rate limited and go through the load shedder; everything else is untouched.
+ */
+@ConfigurationProperties(prefix = "app.inbound")
+public class InboundProtectionProperties {
+
+    private boolean enabled = true;
+
+    private List<String> expensivePaths = new ArrayList<>(List.of(
+            "/api/get-card-suggestions",
+            "/api/json/get-card-suggestions",
+            "/api/cardReward",
+            "/api/google/**"));
+
+    /** Per signed-in user (access token subject). */
+    private Rate perUser = new Rate(30, 10);
+
+    /** Per client IP, applied to every expensive request. */
+    private Rate perIp = new Rate(60, 20);
+
+    private Shedding shedding = new Shedding();
+
+    /** Idle buckets are dropped after this long; at most {@code max-tracked-keys} are kept. */
+    private Duration keyIdleTimeout = Duration.ofMinutes(10);
+    private long maxTrackedKeys = 100_000;
+
+    public static class Rate {
+        private double requestsPerMinute;
+        private int burst;
+
+        public Rate() {
+        }
+
+        public Rate(double requestsPerMinute, int burst) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+        }
+
+        public double getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        public void setRequestsPerMinute(double requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public static class Shedding {
+        /** Expensive requests served at once; the rest wait in a short queue. */
+        private int maxConcurrent = 16;
+        private int maxQueued = 48;
+
+        /** Queueing delay we tolerate; a standing queue above it for a whole interval means overload. */
+        private Duration targetDelay = Duration.ofMillis(100);
+        private Duration interval = Duration.ofSeconds(1);
+
+        /** Longest any request waits for a slot when not overloaded. */
+        private Duration maxWait = Duration.ofSeconds(2);
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public Duration getTargetDelay() {
+            return targetDelay;
+        }
+
+        public void setTargetDelay(Duration targetDelay) {
+            this.targetDelay = targetDelay;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getExpensivePaths() {
+        return expensivePaths;
+    }
+
+    public void setExpensivePaths(List<String> expensivePaths) {
+        this.expensivePaths = expensivePaths;
+    }
+
+    public Rate getPerUser() {
+        return perUser;
+    }
+
+    public void setPerUser(Rate perUser) {
+        this.perUser = perUser;
+    }
+
+    public Rate getPerIp() {
+        return perIp;
+    }
+
+    public void setPerIp(Rate perIp) {
+        this.perIp = perIp;
+    }
+
+    public Shedding getShedding() {
+        return shedding;
+    }
+
+    public void setShedding(Shedding shedding) {
+        this.shedding = shedding;
+    }
+
+    public Duration getKeyIdleTimeout() {
+        return keyIdleTimeout;
+    }
+
+    public void setKeyIdleTimeout(Duration keyIdleTimeout) {
+        this.keyIdleTimeout = keyIdleTimeout;
+    }
+
+    public long getMaxTrackedKeys() {
+        return maxTrackedKeys;
+    }
+
+    public void setMaxTrackedKeys(long maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+}
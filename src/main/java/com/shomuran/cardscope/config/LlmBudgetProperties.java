@@ -0,0 +1,124 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Budgets and prices for {@link com.shomuran.cardscope.service.LlmBudgetGovernor}.
+ * <p>
+ * Use-case keys match {@code OpenAiClient.UseCase} tags ("suggestion", "suggestion-json", "reward");
+ * pricing keys are model names, in USD per one million tokens.
+ */
+@ConfigurationProperties(prefix = "app.llm.budget")
+public class LlmBudgetProperties {
+
+    private Map<String, UseCaseBudget> useCases = new HashMap<>();
+    private Map<String, ModelPrice> pricing = new HashMap<>();
+
+    /** Budget utilization (0..1+) at which each degradation step kicks in. */
+    private double cheaperModelAt = 0.70;
+    private double noWebSearchAt = 0.85;
+    private double localOnlyAt = 1.00;
+
+    public static class UseCaseBudget {
+        private long tokensPerMinute = 200_000;
+        private double dailySpendUsd = 25.0;
+        private String fallbackModel;
+
+        public long getTokensPerMinute() {
+            return tokensPerMinute;
+        }
+
+        public void setTokensPerMinute(long tokensPerMinute) {
+            this.tokensPerMinute = tokensPerMinute;
+        }
+
+        public double getDailySpendUsd() {
+            return dailySpendUsd;
+        }
+
+        public void setDailySpendUsd(double dailySpendUsd) {
+            this.dailySpendUsd = dailySpendUsd;
+        }
+
+        public String getFallbackModel() {
+            return fallbackModel;
+        }
+
+        public void setFallbackModel(String fallbackModel) {
+            this.fallbackModel = fallbackModel;
+        }
+    }
+
+    public static class ModelPrice {
+        private double inputPerMillion;
+        private double cachedInputPerMillion;
+        private double outputPerMillion;
+
+        public double getInputPerMillion() {
+            return inputPerMillion;
+        }
+
+        public void setInputPerMillion(double inputPerMillion) {
+            this.inputPerMillion = inputPerMillion;
+        }
+
+        public double getCachedInputPerMillion() {
+            return cachedInputPerMillion;
+        }
+
+        public void setCachedInputPerMillion(double cachedInputPerMillion) {
+            this.cachedInputPerMillion = cachedInputPerMillion;
+        }
+
+        public double getOutputPerMillion() {
+            return outputPerMillion;
+        }
+
+        public void setOutputPerMillion(double outputPerMillion) {
+            this.outputPerMillion = outputPerMillion;
+        }
+    }
+
+    public Map<String, UseCaseBudget> getUseCases() {
+        return useCases;
+    }
+
+    public void setUseCases(Map<String, UseCaseBudget> useCases) {
+        this.useCases = useCases;
+    }
+
+    public Map<String, ModelPrice> getPricing() {
+        return pricing;
+    }
+
+    public void setPricing(Map<String, ModelPrice> pricing) {
+        this.pricing = pricing;
+    }
+
+    public double getCheaperModelAt() {
+        return cheaperModelAt;
+    }
+
+    public void setCheaperModelAt(double cheaperModelAt) {
+        this.cheaperModelAt = cheaperModelAt;
+    }
+
+    public double getNoWebSearchAt() {
+        return noWebSearchAt;
+    }
+
+    public void setNoWebSearchAt(double noWebSearchAt) {
+        this.noWebSearchAt = noWebSearchAt;
+    }
+
+    public double getLocalOnlyAt() {
+        return localOnlyAt;
+    }
+
+    public void setLocalOnlyAt(double localOnlyAt) {
+        this.localOnlyAt = localOnlyAt;
+    }
+}
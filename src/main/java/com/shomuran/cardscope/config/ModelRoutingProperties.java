@@ -0,0 +1,126 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model routes for {@link com.shomuran.cardscope.service.ModelRouter}, keyed by {@code OpenAiClient.UseCase} tag.
+ * <p>
+ * Each route lists tiers from fastest to strongest. A request starts on the first tier that accepts its
+ * prompt size and currently meets the route's latency SLO, and moves one tier up when the answer fails
+ * validation.
+ */
+@ConfigurationProperties(prefix = "app.llm.routing")
+public class ModelRoutingProperties {
+
+    private Map<String, Route> routes = new HashMap<>();
+
+    /** Recent calls per route and model kept for the rolling stats. */
+    private int statsWindow = 200;
+
+    /** Calls a tier needs before its latency is compared with the SLO. */
+    private int minSamples = 20;
+
+    /** How long a call counts toward the rolling stats, so a tier skipped as too slow is re-tried later. */
+    private Duration statsMaxAge = Duration.ofMinutes(10);
+
+    public static class Route {
+        /** Target p90 latency; also the time after which a failed answer is no longer escalated. */
+        private Duration latencySlo = Duration.ofSeconds(10);
+        private List<Tier> tiers = new ArrayList<>();
+
+        public Duration getLatencySlo() {
+            return latencySlo;
+        }
+
+        public void setLatencySlo(Duration latencySlo) {
+            this.latencySlo = latencySlo;
+        }
+
+        public List<Tier> getTiers() {
+            return tiers;
+        }
+
+        public void setTiers(List<Tier> tiers) {
+            this.tiers = tiers;
+        }
+    }
+
+    public static class Tier {
+        private String model;
+        private boolean webSearch;
+
+        /** Largest prompt (system + user, in characters) this tier takes; 0 for no limit. */
+        private int maxPromptChars;
+
+        public Tier() {
+        }
+
+        public Tier(String model, boolean webSearch, int maxPromptChars) {
+            this.model = model;
+            this.webSearch = webSearch;
+            this.maxPromptChars = maxPromptChars;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public boolean isWebSearch() {
+            return webSearch;
+        }
+
+        public void setWebSearch(boolean webSearch) {
+            this.webSearch = webSearch;
+        }
+
+        public int getMaxPromptChars() {
+            return maxPromptChars;
+        }
+
+        public void setMaxPromptChars(int maxPromptChars) {
+            this.maxPromptChars = maxPromptChars;
+        }
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+
+    public int getStatsWindow() {
+        return statsWindow;
+    }
+
+    public void setStatsWindow(int statsWindow) {
+        this.statsWindow = statsWindow;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public Duration getStatsMaxAge() {
+        return statsMaxAge;
+    }
+
+    public void setStatsMaxAge(Duration statsMaxAge) {
+        this.statsMaxAge = statsMaxAge;
+    }
+}
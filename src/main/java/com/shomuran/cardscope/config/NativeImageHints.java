@@ -0,0 +1,29 @@
+package com.shomuran.cardscope.config;
+
+import com.shomuran.cardscope.dto.CardRewardAnswer;
+import com.shomuran.cardscope.dto.CardSuggestionAnswer;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * What Spring AOT cannot infer on its own for the native image ({@code -Pnative}): the prompt templates and
+ * answer schemas {@link PromptLoader} reads from the classpath, and the answer records {@code OpenAiResponseReader}
+ * binds by {@code Class} rather than through a controller signature. No effect on the JVM build.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageHints.PromptResources.class)
+@RegisterReflectionForBinding({CardSuggestionAnswer.class, CardRewardAnswer.class})
+public class NativeImageHints {
+
+    static class PromptResources implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("prompts/*.txt");
+            hints.resources().registerPattern("schemas/*.json");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for {@link com.shomuran.cardscope.service.OpenAiHedgePolicy}. Use-case names match
+ * {@code OpenAiClient.UseCase} tags; only interactive use cases should be listed.
+ */
+@ConfigurationProperties(prefix = "app.openai.hedging")
+public class OpenAiHedgingProperties {
+
+    private boolean enabled = false;
+
+    private List<String> useCases = new ArrayList<>(List.of("suggestion", "suggestion-json"));
+
+    /** Latency percentile (0..1) after which the second request is sent. */
+    private double percentile = 0.95;
+
+    /** Extra requests allowed, as a share of all requests. */
+    private double maxExtraRatio = 0.05;
+
+    /** Most unused hedges that can be saved up for a burst of slow calls. */
+    private int maxSavedHedges = 10;
+
+    /** Recent latencies kept per use case, and how many are needed before hedging starts. */
+    private int window = 500;
+    private int minSamples = 50;
+
+    /** Never hedge earlier than this, however fast recent calls were. */
+    private Duration minDelay = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getUseCases() {
+        return useCases;
+    }
+
+    public void setUseCases(List<String> useCases) {
+        this.useCases = useCases;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public double getMaxExtraRatio() {
+        return maxExtraRatio;
+    }
+
+    public void setMaxExtraRatio(double maxExtraRatio) {
+        this.maxExtraRatio = maxExtraRatio;
+    }
+
+    public int getMaxSavedHedges() {
+        return maxSavedHedges;
+    }
+
+    public void setMaxSavedHedges(int maxSavedHedges) {
+        this.maxSavedHedges = maxSavedHedges;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void setWindow(int window) {
+        this.window = window;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+}
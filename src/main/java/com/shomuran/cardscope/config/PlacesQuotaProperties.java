@@ -0,0 +1,94 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request quotas for {@link com.shomuran.cardscope.service.PlacesRateLimiter}.
+ * <p>
+ * API keys match the {@code api} tag of the {@code google.places.requests} metric ("nearbysearch",
+ * "textsearch", "searchNearby"); an API without an entry gets the {@link ApiQuota} defaults.
+ */
+@ConfigurationProperties(prefix = "app.places.quota")
+public class PlacesQuotaProperties {
+
+    private Map<String, ApiQuota> apis = new HashMap<>();
+
+    /** How long an interactive lookup may wait for the next token before falling back. */
+    private Duration interactiveMaxWait = Duration.ofMillis(250);
+
+    /** Share of each bucket (0..1) that background lookups may not touch, kept for interactive ones. */
+    private double backgroundReserve = 0.5;
+
+    /** Recent responses kept to answer lookups while a bucket is empty. */
+    private long cacheMaxSize = 20_000;
+    private Duration cacheTtl = Duration.ofMinutes(30);
+
+    public static class ApiQuota {
+        private double requestsPerMinute = 600;
+        private int burst = 20;
+
+        public double getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        public void setRequestsPerMinute(double requestsPerMinute) {
+            this.requestsPerMinute = requestsPerMinute;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public ApiQuota quota(String api) {
+        return apis.getOrDefault(api, new ApiQuota());
+    }
+
+    public Map<String, ApiQuota> getApis() {
+        return apis;
+    }
+
+    public void setApis(Map<String, ApiQuota> apis) {
+        this.apis = apis;
+    }
+
+    public Duration getInteractiveMaxWait() {
+        return interactiveMaxWait;
+    }
+
+    public void setInteractiveMaxWait(Duration interactiveMaxWait) {
+        this.interactiveMaxWait = interactiveMaxWait;
+    }
+
+    public double getBackgroundReserve() {
+        return backgroundReserve;
+    }
+
+    public void setBackgroundReserve(double backgroundReserve) {
+        this.backgroundReserve = backgroundReserve;
+    }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+}
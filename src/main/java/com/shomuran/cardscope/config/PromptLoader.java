@@ -1,18 +1,37 @@
 package com.shomuran.cardscope.config;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
 
+/**
+ * System prompts ({@code prompts/*.txt}) and the JSON schemas ({@code schemas/*.json}) their answers are held
+ * to through structured outputs.
+ * <p>
+ * Both are loaded once and sent unchanged, so they form a byte-identical prefix the provider can cache. Each
+ * prompt has a version (a hash of its text and schema) that goes into the prompt cache key, so editing a
+ * prompt starts a fresh cache instead of mixing old and new prefixes.
+ */
 @Component
 public class PromptLoader {
     private final String cardSuggestionPrompt;
     private final String cardRewardPrompt;
     private final String cardSuggestionJsonPrompt;
-
+    private final Map<String, Object> cardSuggestionSchema;
+    private final Map<String, Object> cardRewardSchema;
+    private final String cardSuggestionVersion;
+    private final String cardSuggestionJsonVersion;
+    private final String cardRewardVersion;
 
     public PromptLoader(ResourceLoader resourceLoader) throws IOException {
         Resource resource1 = resourceLoader.getResource("classpath:prompts/card-suggestion.txt");
@@ -21,6 +40,29 @@ public class PromptLoader {
         this.cardRewardPrompt = new String(resource2.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         Resource resource3 = resourceLoader.getResource("classpath:prompts/card-suggestion-with-json.txt");
         this.cardSuggestionJsonPrompt = new String(resource3.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        ObjectMapper mapper = new ObjectMapper();
+        TypeReference<Map<String, Object>> schemaType = new TypeReference<>() {
+        };
+        this.cardSuggestionSchema = Collections.unmodifiableMap(mapper.readValue(
+                resourceLoader.getResource("classpath:schemas/card-suggestion.json").getInputStream(), schemaType));
+        this.cardRewardSchema = Collections.unmodifiableMap(mapper.readValue(
+                resourceLoader.getResource("classpath:schemas/card-reward.json").getInputStream(), schemaType));
+
+        this.cardSuggestionVersion = version(mapper, cardSuggestionPrompt, cardSuggestionSchema);
+        this.cardSuggestionJsonVersion = version(mapper, cardSuggestionJsonPrompt, cardSuggestionSchema);
+        this.cardRewardVersion = version(mapper, cardRewardPrompt, cardRewardSchema);
+    }
+
+    private static String version(ObjectMapper mapper, String prompt, Map<String, Object> schema) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            digest.update(mapper.writeValueAsBytes(schema));
+            return HexFormat.of().formatHex(digest.digest(), 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     public String getCardSuggestionPrompt() {
@@ -34,4 +76,30 @@ public class PromptLoader {
     public String getCardSuggestionJsonPrompt() {
         return cardSuggestionJsonPrompt;
     }
+
+    /**
+     * Answer schema for both suggestion prompts ({@code CardSuggestionAnswer}).
+     */
+    public Map<String, Object> getCardSuggestionSchema() {
+        return cardSuggestionSchema;
+    }
+
+    /**
+     * Answer schema for the reward prompt ({@code CardRewardAnswer}); {@code cardReward} is null when unknown.
+     */
+    public Map<String, Object> getCardRewardSchema() {
+        return cardRewardSchema;
+    }
+
+    public String getCardSuggestionVersion() {
+        return cardSuggestionVersion;
+    }
+
+    public String getCardSuggestionJsonVersion() {
+        return cardSuggestionJsonVersion;
+    }
+
+    public String getCardRewardVersion() {
+        return cardRewardVersion;
+    }
 }
@@ -0,0 +1,95 @@
+package com.shomuran.cardscope.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured {@link DataSource} with one that reads from replicas when
+ * {@code app.datasource.read-replicas.enabled=true}.
+ * <p>
+ * The primary pool is still built from {@code spring.datasource.*}. JPA and JDBC get a
+ * {@link LazyConnectionDataSourceProxy} over {@link ReplicaRoutingDataSource}: the proxy only fetches a real
+ * connection at the first statement, after the transaction manager has marked the transaction read-only.
+ * <p>
+ * The beans exist whether or not replicas are enabled and check the flag when they are created, because AOT
+ * builds (the Docker image) fix bean conditions at build time. Disabled, the router has no replicas and hands
+ * out primary connections only.
+ */
+@Configuration
+public class ReadReplicaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReadReplicaProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        if (!properties.isEnabled()) {
+            return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties, meterRegistry);
+        }
+        for (ReadReplicaProperties.Instance instance : properties.getInstances()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(instance.getUrl());
+            replica.setUsername(instance.getUsername());
+            replica.setPassword(instance.getPassword());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(properties.getMaxPoolSize());
+            replica.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            // Start even when a replica is down; the lag monitor keeps it out of rotation
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        if (replicas.isEmpty()) {
+            log.warn("⚠️ Read replicas enabled but app.datasource.read-replicas.instances is empty — all reads use the primary");
+        } else {
+            log.info("🔀 Routing read-only transactions to {} replica(s), max lag {}",
+                    replicas.size(), properties.getMaxLag());
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties, meterRegistry);
+    }
+
+    /**
+     * Hibernate would otherwise keep the first connection of a request (open-in-view) for every later
+     * transaction in it, so a write could land on the replica picked for an earlier read.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling(ReadReplicaProperties replicaProperties) {
+        return properties -> {
+            if (replicaProperties.isEnabled()) {
+                properties.put(AvailableSettings.CONNECTION_HANDLING,
+                        PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
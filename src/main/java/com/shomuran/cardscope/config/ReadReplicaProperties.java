@@ -0,0 +1,151 @@
+package com.shomuran.cardscope.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas for {@link ReplicaRoutingDataSource} ({@code app.datasource.read-replicas.*}). Off by default;
+ * the primary is still configured through {@code spring.datasource.*}.
+ */
+@ConfigurationProperties(prefix = "app.datasource.read-replicas")
+public class ReadReplicaProperties {
+
+    private boolean enabled = false;
+
+    private List<Instance> instances = new ArrayList<>();
+
+    /**
+     * Replicas further behind than this are skipped. Together with {@code check-interval} it must stay below
+     * {@code app.catalog.sync.settle-window} (checked at startup) so a catalog sync served by a replica never
+     * misses rows the cursor has already passed.
+     */
+    private Duration maxLag = Duration.ofSeconds(2);
+
+    /** How often each replica's lag is measured. */
+    private Duration checkInterval = Duration.ofSeconds(2);
+
+    /**
+     * Query returning the replica's lag in seconds. Blank picks one for the database (PostgreSQL replay lag;
+     * other databases only get a liveness check and count as lag 0).
+     */
+    private String lagQuery = "";
+
+    /** How long a user's requests keep reading from the primary after they changed their profile. */
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    /**
+     * POST endpoints that only read, so they may use replicas like a GET. Every other non-GET request runs on
+     * the primary.
+     */
+    private List<String> readOnlyPosts = new ArrayList<>(List.of(
+            "/api/get-card-suggestions", "/api/json/get-card-suggestions"));
+
+    private int maxPoolSize = 10;
+
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    public static class Instance {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Instance> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(List<Instance> instances) {
+        this.instances = instances;
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    public void setMaxLag(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setCheckInterval(Duration checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+
+    public String getLagQuery() {
+        return lagQuery;
+    }
+
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public List<String> getReadOnlyPosts() {
+        return readOnlyPosts;
+    }
+
+    public void setReadOnlyPosts(List<String> readOnlyPosts) {
+        this.readOnlyPosts = readOnlyPosts;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Duration connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+}
@@ -0,0 +1,100 @@
+package com.shomuran.cardscope.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Read-your-writes for replica routing: a user who just changed their profile keeps reading from the primary
+ * for {@code app.datasource.read-replicas.read-your-writes-window}.
+ * <p>
+ * Requests that may write (anything but GET, HEAD, OPTIONS and the {@code read-only-posts}) run pinned to
+ * the primary, so their own read-modify-write steps never see replica data. When one succeeds, the user it
+ * touched (the token's email and the {@code /api/user/{email}} path) is remembered, and that user's reads are
+ * pinned too until the window passes. The memory is per instance; clients that hop instances right after a
+ * write rely on {@code max-lag} being shorter than the time it takes them to read back.
+ * <p>
+ * Registered even with replicas disabled (AOT builds fix bean conditions at build time) and then skips every
+ * request.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 50)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final String USER_PATH = "/api/user/";
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWriters;
+    private final Set<String> readOnlyPosts;
+
+    public ReadYourWritesFilter(ReadReplicaProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.readOnlyPosts = Set.copyOf(properties.getReadOnlyPosts());
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(properties.getReadYourWritesWindow())
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Set<String> users = users(request);
+        boolean read = switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> true;
+            case "POST" -> readOnlyPosts.contains(request.getRequestURI());
+            default -> false;
+        };
+
+        if (read && users.stream().noneMatch(user -> recentWriters.getIfPresent(user) != null)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            chain.doFilter(request, response);
+        }
+        if (!read && response.getStatus() < 400) {
+            users.forEach(user -> recentWriters.put(user, Boolean.TRUE));
+        }
+    }
+
+    private static Set<String> users(HttpServletRequest request) {
+        Set<String> users = new HashSet<>(2);
+        if (request.getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE) instanceof AuthenticatedUser user
+                && user.email() != null) {
+            users.add(user.email().toLowerCase(Locale.ROOT));
+        }
+        String uri = request.getRequestURI();
+        if (uri.startsWith(USER_PATH)) {
+            // /api/user/{email} and /api/user/{email}/rule-bundle
+            String email = uri.substring(USER_PATH.length());
+            int slash = email.indexOf('/');
+            email = UriUtils.decode(slash >= 0 ? email.substring(0, slash) : email, StandardCharsets.UTF_8);
+            if (email.contains("@")) {
+                users.add(email.toLowerCase(Locale.ROOT));
+            }
+        }
+        return users;
+    }
+}
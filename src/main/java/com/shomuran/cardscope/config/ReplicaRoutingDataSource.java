@@ -0,0 +1,217 @@
+package com.shomuran.cardscope.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to a read replica and everything else to the primary.
+ * <p>
+ * A replica is used only while its last lag check ({@link #refreshLag()}, run by
+ * {@link com.shomuran.cardscope.jobs.ReplicaLagMonitor}) found it reachable and at most {@code max-lag}
+ * behind; replicas that have not been checked yet are not used. Healthy replicas take turns. When none is
+ * healthy, or a replica refuses a connection, the read goes to the primary.
+ * <p>
+ * Code that must see its own writes can pin the current thread with {@link #pinPrimary()}. The routing decision
+ * needs the transaction's read-only flag, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} (see {@link ReadReplicaConfig}).
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END""";
+    private static final String LIVENESS_QUERY = "SELECT 0";
+
+    private static final ThreadLocal<int[]> PINNED = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Undoes a {@link #pinPrimary()} when closed.
+     */
+    public interface Pin extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final String lagQuery;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+        this.lagQuery = properties.getLagQuery();
+        this.meterRegistry = meterRegistry;
+
+        for (Replica replica : this.replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replica lag in seconds at the last check (NaN when unreachable)")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Sends every connection this thread opens to the primary until the returned pin is closed. Pins nest.
+     */
+    public static Pin pinPrimary() {
+        int[] depth = PINNED.get();
+        depth[0]++;
+        return () -> {
+            if (--depth[0] == 0) {
+                PINNED.remove();
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            replica.markDown(e);
+            count("primary", "replica_error");
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Explicit credentials belong to the primary's users
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Measures every replica's lag and takes replicas in or out of rotation accordingly.
+     */
+    public void refreshLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                try (ResultSet result = statement.executeQuery(lagQuery(connection))) {
+                    double lag = result.next() ? result.getDouble(1) : 0;
+                    if (result.wasNull()) {
+                        // Recovering but nothing replayed yet: no way to tell how far behind it is
+                        lag = Double.POSITIVE_INFINITY;
+                    }
+                    replica.update(Math.max(0, lag), maxLagSeconds);
+                }
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private Replica route() {
+        if (replicas.isEmpty()) {
+            return null; // replicas disabled: nothing to route
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            count("primary", "read_write");
+            return null;
+        }
+        if (PINNED.get()[0] > 0) {
+            count("primary", "pinned");
+            return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                count(replica.name, "read_only");
+                return replica;
+            }
+        }
+        count("primary", "replicas_unavailable");
+        return null;
+    }
+
+    private String lagQuery(Connection connection) throws SQLException {
+        if (lagQuery != null && !lagQuery.isBlank()) {
+            return lagQuery;
+        }
+        return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                ? POSTGRES_LAG_QUERY
+                : LIVENESS_QUERY;
+    }
+
+    private void count(String target, String reason) {
+        routed.computeIfAbsent(target + "|" + reason, key -> Counter.builder("db.routing")
+                .description("Connections handed out by target and routing reason")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry)).increment();
+    }
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        volatile boolean healthy;
+        volatile boolean unreachable;
+        volatile double lagSeconds = Double.NaN;
+
+        Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+
+        void update(double lag, double maxLag) {
+            lagSeconds = lag;
+            boolean ok = lag <= maxLag;
+            if (ok && !healthy) {
+                log.info("✅ {} is {}s behind — serving read-only transactions", name, String.format("%.1f", lag));
+            } else if (!ok && healthy) {
+                log.warn("🐢 {} is {}s behind — reads go to the primary until it catches up",
+                        name, String.format("%.1f", lag));
+            }
+            healthy = ok;
+            unreachable = false;
+        }
+
+        void markDown(SQLException e) {
+            lagSeconds = Double.NaN;
+            if (!unreachable) {
+                log.warn("⚠️ {} is unreachable — reads go to the primary: {}", name, e.getMessage());
+            }
+            healthy = false;
+            unreachable = true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.shomuran.cardscope.controller;
+
+import com.shomuran.cardscope.service.CatalogImportService;
+import com.shomuran.cardscope.service.CatalogSyncService;
+import com.shomuran.cardscope.service.EntityCacheService;
+import com.shomuran.cardscope.service.LlmBudgetGovernor;
+import com.shomuran.cardscope.service.ModelRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Operator endpoints. Every call must carry {@code X-Admin-Key} matching {@code app.admin.api-key};
+ * when no key is configured the endpoints are disabled.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+public class AdminController {
+
+    @Autowired
+    private LlmBudgetGovernor llmBudgetGovernor;
+
+    @Autowired
+    private ModelRouter modelRouter;
+
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${app.admin.api-key:}")
+    private String adminApiKey;
+
+    /**
+     * 💸 Current LLM budget level, token rate and spend per use case.
+     */
+    @GetMapping("/llm-budget")
+    public ResponseEntity<?> llmBudget(@RequestHeader(value = "X-Admin-Key", required = false) String key) {
+        if (!isAdmin(key)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        return ResponseEntity.ok(llmBudgetGovernor.snapshot());
+    }
+
+    /**
+     * 🧭 Model tiers per route with rolling latency percentiles and success rate.
+     */
+    @GetMapping("/llm-routes")
+    public ResponseEntity<?> llmRoutes(@RequestHeader(value = "X-Admin-Key", required = false) String key) {
+        if (!isAdmin(key)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        return ResponseEntity.ok(modelRouter.snapshot());
+    }
+
+    /**
+     * 📊 Hit ratios for the entity (second-level) caches and the card catalog cache.
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<?> caches(@RequestHeader(value = "X-Admin-Key", required = false) String key) {
+        if (!isAdmin(key)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        return ResponseEntity.ok(entityCacheService.snapshot());
+    }
+
+    /**
+     * 🗑️ Removes a card from the catalog; synced clients receive it as a delete.
+     */
+    @DeleteMapping("/cards")
+    public ResponseEntity<?> retireCard(@RequestHeader(value = "X-Admin-Key", required = false) String key,
+                                        @RequestParam String issuer,
+                                        @RequestParam String cardProduct) {
+        if (!isAdmin(key)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        if (!catalogSyncService.retire(issuer, cardProduct)) {
+            return ResponseEntity.status(404).body(Map.of("error", "Card not found"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Card retired", "issuer", issuer, "cardProduct", cardProduct));
+    }
+
+    /**
+     * 📦 Bulk-imports a catalog feed streamed as the request body: CSV with a header row
+     * ({@code issuer,card_product,reward_details}) or JSON lines. Answers with row counts, rows/s and rejects.
+     */
+    @PostMapping("/cards/import")
+    public ResponseEntity<?> importCards(@RequestHeader(value = "X-Admin-Key", required = false) String key,
+                                         @RequestHeader(value = "Content-Type", required = false) String contentType,
+                                         @RequestParam(required = false) String format,
+                                         InputStream body) {
+        if (!isAdmin(key)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Forbidden"));
+        }
+        try {
+            return ResponseEntity.ok(catalogImportService.importCatalog(body,
+                    CatalogImportService.Format.resolve(format, contentType)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Catalog import failed: " + e.getMessage()));
+        }
+    }
+
+    private boolean isAdmin(String key) {
+        if (adminApiKey == null || adminApiKey.isBlank() || key == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(adminApiKey.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,20 +1,28 @@
 package com.shomuran.cardscope.controller;
 
-import com.shomuran.cardscope.dto.UserProfileDto;
 import com.shomuran.cardscope.model.PasswordResetToken;
 import com.shomuran.cardscope.model.UserProfile;
 import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.repository.UserAccountView;
 import com.shomuran.cardscope.repository.UserProfileRepository;
+import com.shomuran.cardscope.service.AccessTokenService;
+import com.shomuran.cardscope.service.CacheInvalidationBus;
+import com.shomuran.cardscope.service.PasswordHashingService;
 import com.shomuran.cardscope.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.web.bind.annotation.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,50 +34,108 @@ public class AuthController {
     private PasswordResetTokenRepository passwordResetTokenRepository;
     @Autowired
     private UserService userService;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    @Autowired
+    private AccessTokenService accessTokenService;
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    @Autowired
+    @Qualifier("accountWriteExecutor")
+    private Executor accountWriteExecutor;
 
     @PostMapping("/signup")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody Map<String, String> payload) {
         String email = payload.get("email");
         String password = payload.get("password");
         String name = payload.get("name");
 
         if (userProfileRepository.existsByEmail(email)) {
-            return ResponseEntity.badRequest().body(Map.of("error", "User already exists"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(Map.of("error", "User already exists")));
         }
 
-        UserProfile  user = new UserProfile();
-        user.setEmail(email);
-        user.setName(name);
-        user.setPasswordHash(passwordEncoder.encode(password));
-        user.setUserCards(new ArrayList<>());
-
-        userProfileRepository.save(user);
-
-        return ResponseEntity.ok(Map.of("message", "User registered successfully"));
+        try {
+            return passwordHashingService.encode(password)
+                    .<ResponseEntity<?>>thenApplyAsync(passwordHash -> {
+                        UserProfile user = new UserProfile();
+                        user.setEmail(email);
+                        user.setName(name);
+                        user.setPasswordHash(passwordHash);
+                        user.setUserCards(new ArrayList<>());
+
+                        userProfileRepository.save(user);
+
+                        return ResponseEntity.ok(Map.of("message", "User registered successfully"));
+                    }, accountWriteExecutor)
+                    .exceptionally(this::busyOnRejection);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(hashingBusy());
+        }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> payload) {
         String email = payload.get("email");
         String password = payload.get("password");
 
-        return userProfileRepository.findByEmail(email)
-                .map(user -> {
-                    if (passwordEncoder.matches(password, user.getPasswordHash())) {
-                        // For now return a dummy token; later replace with JWT
-                        String token = UUID.randomUUID().toString();
+        Optional<UserAccountView> account = userProfileRepository.findAccountByEmail(email);
+        if (account.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(404).body(Map.of("error", "User not found")));
+        }
+
+        UserAccountView user = account.get();
+        if (user.getPasswordHash() == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(401).body(Map.of("error", "Invalid password")));
+        }
+
+        try {
+            return passwordHashingService.verify(password, user.getPasswordHash())
+                    .thenApply(result -> {
+                        if (!result.matched()) {
+                            return ResponseEntity.status(401).body(Map.of("error", "Invalid password"));
+                        }
+                        // Transparent re-hash when the stored hash is legacy or below the current work factor
+                        if (result.upgradedHash() != null) {
+                            upgradeHash(user, result.upgradedHash());
+                        }
+                        AccessTokenService.TokenPair tokens = accessTokenService.issue(user.getId(), user.getEmail(), user.tokenVersion());
                         return ResponseEntity.ok(Map.of(
-                                "token", token,
+                                "token", tokens.accessToken(),
+                                "refreshToken", tokens.refreshToken(),
+                                "expiresIn", tokens.expiresIn(),
                                 "email", user.getEmail(),
                                 "name", user.getName()
                         ));
-                    } else {
-                        return ResponseEntity.status(401).body(Map.of("error", "Invalid password"));
-                    }
+                    });
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(hashingBusy());
+        }
+    }
+
+    /**
+     * Exchanges a refresh token for a new token pair. The account must still exist and its token version
+     * must match the token's, so a password reset retires every refresh token issued before it.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> payload) {
+        return accessTokenService.verifyRefresh(payload.get("refreshToken"))
+                .flatMap(refresh -> userProfileRepository.findAccountById(refresh.user().id())
+                        .filter(account -> account.tokenVersion() == refresh.tokenVersion()))
+                .<ResponseEntity<?>>map(account -> {
+                    AccessTokenService.TokenPair tokens =
+                            accessTokenService.issue(account.getId(), account.getEmail(), account.tokenVersion());
+                    return ResponseEntity.ok(Map.of(
+                            "token", tokens.accessToken(),
+                            "refreshToken", tokens.refreshToken(),
+                            "expiresIn", tokens.expiresIn()
+                    ));
                 })
-                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "User not found")));
+                .orElseGet(() -> ResponseEntity.status(401).body(Map.of("error", "Invalid or expired refresh token")));
     }
+
     @PostMapping("/reset")
     public ResponseEntity<?> resetPassword(@RequestBody Map<String, String> body) {
         String email = body.get("email");
@@ -89,11 +155,16 @@ public class AuthController {
     }
 
     @PostMapping("/reset/confirm")
-    public ResponseEntity<?> confirmReset(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> confirmReset(@RequestBody Map<String, String> payload) {
         String token = payload.get("token");
         String newPassword = payload.get("newPassword");
-        userService.confirmResetPassword(token, newPassword);
-        return ResponseEntity.ok(Map.of("message", "Password reset successful"));
+        try {
+            return userService.confirmResetPassword(token, newPassword)
+                    .<ResponseEntity<?>>thenApply(done -> ResponseEntity.ok(Map.of("message", "Password reset successful")))
+                    .exceptionally(this::busyOnRejection);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(hashingBusy());
+        }
     }
 
     @PostMapping("/apple")
@@ -120,33 +191,17 @@ public class AuthController {
             // Find or create user
             final String finalEmail = email;
             final String finalName = name;
-            UserProfile user = userProfileRepository.findByEmail(email)
-                    .orElseGet(() -> {
-                        UserProfile newUser = new UserProfile();
-                        newUser.setEmail(finalEmail);
-                        newUser.setName(finalName);
-                        newUser.setProvider("apple");
-                        newUser.setProviderId(appleUserId);
-                        newUser.setUserCards(new ArrayList<>());
-                        return userProfileRepository.save(newUser);
-                    });
-
-            // Update provider info if user exists but was registered differently
-            if (user.getProvider() == null || !user.getProvider().equals("apple")) {
-                user.setProvider("apple");
-                user.setProviderId(appleUserId);
-                userProfileRepository.save(user);
-            }
+            ProviderAccount account = findOrCreateProviderUser(finalEmail, finalName, "apple", appleUserId);
+            Map<String, Object> user = account.summary();
 
-            String token = UUID.randomUUID().toString();
+            AccessTokenService.TokenPair tokens =
+                    accessTokenService.issue((Long) user.get("id"), finalEmail, account.tokenVersion());
 
             return ResponseEntity.ok(Map.of(
-                    "token", token,
-                    "user", Map.of(
-                            "id", user.getId(),
-                            "email", user.getEmail(),
-                            "name", user.getName() != null ? user.getName() : ""
-                    )
+                    "token", tokens.accessToken(),
+                    "refreshToken", tokens.refreshToken(),
+                    "expiresIn", tokens.expiresIn(),
+                    "user", user
             ));
         } catch (Exception e) {
             e.printStackTrace();
@@ -181,33 +236,17 @@ public class AuthController {
             final String finalName = name;
             final String finalGoogleId = googleId;
 
-            UserProfile user = userProfileRepository.findByEmail(email)
-                    .orElseGet(() -> {
-                        UserProfile newUser = new UserProfile();
-                        newUser.setEmail(finalEmail);
-                        newUser.setName(finalName);
-                        newUser.setProvider("google");
-                        newUser.setProviderId(finalGoogleId);
-                        newUser.setUserCards(new ArrayList<>());
-                        return userProfileRepository.save(newUser);
-                    });
-
-            // Update provider info if needed
-            if (user.getProvider() == null || !user.getProvider().equals("google")) {
-                user.setProvider("google");
-                user.setProviderId(googleId);
-                userProfileRepository.save(user);
-            }
+            ProviderAccount account = findOrCreateProviderUser(finalEmail, finalName, "google", finalGoogleId);
+            Map<String, Object> user = account.summary();
 
-            String token = UUID.randomUUID().toString();
+            AccessTokenService.TokenPair tokens =
+                    accessTokenService.issue((Long) user.get("id"), finalEmail, account.tokenVersion());
 
             return ResponseEntity.ok(Map.of(
-                    "token", token,
-                    "user", Map.of(
-                            "id", user.getId(),
-                            "email", user.getEmail(),
-                            "name", user.getName() != null ? user.getName() : ""
-                    )
+                    "token", tokens.accessToken(),
+                    "refreshToken", tokens.refreshToken(),
+                    "expiresIn", tokens.expiresIn(),
+                    "user", user
             ));
         } catch (Exception e) {
             e.printStackTrace();
@@ -215,6 +254,77 @@ public class AuthController {
         }
     }
 
+    /**
+     * Find-or-create for OAuth logins. Reads the single account row through the
+     * projection and updates provider columns in place, so the card collection is never loaded.
+     */
+    private record ProviderAccount(Map<String, Object> summary, long tokenVersion) {
+    }
+
+    private ProviderAccount findOrCreateProviderUser(String email, String name, String provider, String providerId) {
+        Optional<UserAccountView> existing = userProfileRepository.findAccountByEmail(email);
+        if (existing.isEmpty()) {
+            UserProfile newUser = new UserProfile();
+            newUser.setEmail(email);
+            newUser.setName(name);
+            newUser.setProvider(provider);
+            newUser.setProviderId(providerId);
+            newUser.setUserCards(new ArrayList<>());
+            UserProfile saved = userProfileRepository.save(newUser);
+            return new ProviderAccount(accountSummary(saved.getId(), saved.getEmail(), saved.getName()), 0L);
+        }
+
+        UserAccountView user = existing.get();
+        // Update provider info if user exists but was registered differently
+        if (!provider.equals(user.getProvider())) {
+            userProfileRepository.updateProvider(user.getId(), provider, providerId);
+            cacheInvalidationBus.userChanged(user.getId(), user.getEmail(), System.currentTimeMillis());
+        }
+        return new ProviderAccount(accountSummary(user.getId(), user.getEmail(), user.getName()), user.tokenVersion());
+    }
+
+    private Map<String, Object> accountSummary(Long id, String email, String name) {
+        return Map.of(
+                "id", id,
+                "email", email,
+                "name", name != null ? name : ""
+        );
+    }
+
+    /**
+     * Best effort on the account-write pool; when it is saturated the upgrade is skipped and the next
+     * login tries again.
+     */
+    private void upgradeHash(UserAccountView user, String upgradedHash) {
+        try {
+            accountWriteExecutor.execute(() -> {
+                userProfileRepository.updatePasswordHash(user.getId(), upgradedHash);
+                cacheInvalidationBus.userChanged(user.getId(), user.getEmail(), System.currentTimeMillis());
+            });
+        } catch (TaskRejectedException e) {
+            // keep the old hash for now
+        }
+    }
+
+    /**
+     * 503 when the account-write pool rejected the step after hashing; any other failure propagates.
+     */
+    private ResponseEntity<?> busyOnRejection(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof RejectedExecutionException) {
+            return hashingBusy();
+        }
+        throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+
+    private ResponseEntity<?> hashingBusy() {
+        return ResponseEntity.status(503)
+                .header("Retry-After", "1")
+                .body(Map.of("error", "Server busy, please retry"));
+    }
+
     private String extractEmailFromJwt(String jwt) {
         try {
             String[] parts = jwt.split("\\.");
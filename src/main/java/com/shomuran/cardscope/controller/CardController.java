@@ -1,10 +1,13 @@
 package com.shomuran.cardscope.controller;
 
 import com.shomuran.cardscope.repository.CreditCardRepository;
+import com.shomuran.cardscope.service.CatalogSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 
 @RestController
@@ -14,6 +17,9 @@ public class CardController {
     @Autowired
     private CreditCardRepository creditCardRepository;
 
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
     // Example Spring Boot controller
     @GetMapping("/issuers")
     public List<String> getIssuers(@RequestParam String search) {
@@ -27,4 +33,20 @@ public class CardController {
     ) {
         return creditCardRepository.findProductsByIssuer(issuer, search);
     }
+
+    /**
+     * 🔄 Catalog changes since the cursor from the previous call (omit it for a full copy).
+     * Keep calling with the returned cursor while {@code hasMore} is true.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<?> sync(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(catalogSyncService.changesSince(since, limit));
+        } catch (CatalogSyncService.InvalidCursorException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
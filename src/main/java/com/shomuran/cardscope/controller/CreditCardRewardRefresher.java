@@ -3,6 +3,7 @@ package com.shomuran.cardscope.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shomuran.cardscope.model.CreditCard;
 import com.shomuran.cardscope.repository.CreditCardRepository;
+import com.shomuran.cardscope.service.CardCatalogCache;
 import com.shomuran.cardscope.service.RewardDetailService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class CreditCardRewardRefresher {
     @Autowired
     private RewardDetailService rewardDetailService;
 
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -64,6 +68,7 @@ public class CreditCardRewardRefresher {
                                     card.getCardProduct(),
                                     rewardJson
                             );
+                            cardCatalogCache.evict(card.getIssuer(), card.getCardProduct());
 
                             log.info("✅ Upserted reward details for {}", cardName);
 
@@ -1,8 +1,10 @@
 package com.shomuran.cardscope.controller;
 
+import com.shomuran.cardscope.dto.AuthenticatedUser;
 import com.shomuran.cardscope.dto.NearbySearchResponse;
 import com.shomuran.cardscope.dto.StoreInfo;
 import com.shomuran.cardscope.service.GooglePlacesService;
+import com.shomuran.cardscope.service.SuggestionPrefetcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +20,9 @@ public class GooglePlacesController {
     @Autowired
     private GooglePlacesService googlePlacesService;
 
+    @Autowired
+    private SuggestionPrefetcher suggestionPrefetcher;
+
     @PostMapping("/detect-store")
     public ResponseEntity<?> detectStore(@RequestBody Map<String, Object> payload) {
         Double latitude = (Double) payload.get("latitude");
@@ -37,15 +42,33 @@ public class GooglePlacesController {
     }
     @GetMapping("/detect-stores")
     public ResponseEntity<?> detectStores(@RequestParam double latitude,
-                                          @RequestParam double longitude) {
+                                          @RequestParam double longitude,
+                                          @RequestParam(required = false) String email,
+                                          @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser caller) {
         List<StoreInfo> stores = googlePlacesService.detectNearbyStores(latitude, longitude);
+        prefetch(caller, email, stores);
         return ResponseEntity.ok(Map.of("stores", stores));
     }
 
     @GetMapping("/detect-stores-v1")
     public ResponseEntity<?> detectNearestStorev2(@RequestParam double latitude,
-                                                  @RequestParam double longitude) {
+                                                  @RequestParam double longitude,
+                                                  @RequestParam(required = false) String email,
+                                                  @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser caller) {
         NearbySearchResponse stores = googlePlacesService.detectNearestStorev2(latitude, longitude);
+        if (suggestionPrefetcher.isEnabled() && stores != null && stores.getPlaces() != null) {
+            prefetch(caller, email, stores.getPlaces().stream()
+                    .filter(place -> place.getDisplayName() != null)
+                    .map(place -> new StoreInfo(place.getDisplayName().getText(), place.getPrimaryType()))
+                    .toList());
+        }
         return ResponseEntity.ok(Map.of("stores", stores));
     }
+
+    /**
+     * ⚡ Opt-in: start computing suggestions for the detected stores so the follow-up request is instant.
+     */
+    private void prefetch(AuthenticatedUser caller, String email, List<StoreInfo> stores) {
+        suggestionPrefetcher.prefetch(caller != null ? caller.id() : null, email, stores);
+    }
 }
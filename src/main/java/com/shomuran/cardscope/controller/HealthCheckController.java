@@ -1,5 +1,8 @@
 package com.shomuran.cardscope.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,10 +14,17 @@ import java.util.Map;
 @CrossOrigin
 public class HealthCheckController {
 
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    /**
+     * 503 until the startup cache warm-up has finished, so the platform only routes traffic to a warm instance.
+     */
     @GetMapping
     public ResponseEntity<Map<String, Object>> health() {
-        return ResponseEntity.ok(Map.of(
-                "status", "UP",
+        boolean ready = applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+        return ResponseEntity.status(ready ? 200 : 503).body(Map.of(
+                "status", ready ? "UP" : "WARMING_UP",
                 "timestamp", OffsetDateTime.now().toString(),
                 "service", "cardscope-app"
         ));
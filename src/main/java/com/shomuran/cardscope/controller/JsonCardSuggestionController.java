@@ -1,19 +1,26 @@
 package com.shomuran.cardscope.controller;
 
 import com.shomuran.cardscope.config.PromptLoader;
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import com.shomuran.cardscope.dto.CardSuggestionAnswer;
 import com.shomuran.cardscope.dto.CreditCardDto;
 import com.shomuran.cardscope.dto.UserProfileDto;
-import com.shomuran.cardscope.model.CreditCard;
-import com.shomuran.cardscope.repository.CreditCardRepository;
+import com.shomuran.cardscope.model.UserCard;
+import com.shomuran.cardscope.model.UserProfile;
 import com.shomuran.cardscope.repository.UserProfileRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.shomuran.cardscope.service.CardCatalogCache;
+import com.shomuran.cardscope.service.CardSuggestionService;
+import com.shomuran.cardscope.service.LocalSuggestionService;
+import com.shomuran.cardscope.service.ModelRouter;
+import com.shomuran.cardscope.service.OpenAiClient;
+import com.shomuran.cardscope.service.PromptAssembler;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import okhttp3.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
@@ -23,6 +30,8 @@ import java.util.*;
 @CrossOrigin
 public class JsonCardSuggestionController {
 
+    private static final Logger log = LoggerFactory.getLogger(JsonCardSuggestionController.class);
+
     @Autowired
     private PromptLoader promptLoader;
 
@@ -30,19 +39,13 @@ public class JsonCardSuggestionController {
     private UserProfileRepository userProfileRepository;
 
     @Autowired
-    private CreditCardRepository creditCardRepository;
+    private CardCatalogCache cardCatalogCache;
 
     @Autowired
-    ObjectMapper objectMapper;
-
-    @Value("${openai.api.key}")
-    private String openAiKey;
+    private ModelRouter modelRouter;
 
-    private final OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-            .writeTimeout(60, java.util.concurrent.TimeUnit.SECONDS)
-            .readTimeout(60, java.util.concurrent.TimeUnit.SECONDS)
-            .build();
+    @Autowired
+    private LocalSuggestionService localSuggestionService;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -51,26 +54,22 @@ public class JsonCardSuggestionController {
      * instead of reading them from the database.
      */
     @PostMapping("/get-card-suggestions")
-    public ResponseEntity<?> getCardSuggestions(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<?> getCardSuggestions(@RequestBody Map<String, Object> payload,
+                                                @RequestAttribute(name = AuthenticatedUser.REQUEST_ATTRIBUTE, required = false) AuthenticatedUser caller) {
         try {
             // Get inputs
             String store = (String) payload.get("store");
-            ResponseEntity<UserProfileDto> userCardsJson = userProfileRepository.findByEmail((String) payload.get("email"))
+            Optional<UserProfile> profile = caller != null
+                    ? userProfileRepository.findProfileById(caller.id())
+                    : userProfileRepository.findProfileByEmail((String) payload.get("email"));
+            ResponseEntity<UserProfileDto> userCardsJson = profile
                     .map(user -> {
                         // Build card DTOs
                         List<CreditCardDto> cardDtos = user.getUserCards().stream()
                                 .map(card -> {
-                                    String rewardDetails = creditCardRepository
-                                            .findByIssuerIgnoreCaseAndCardProductIgnoreCase(card.getIssuer(), card.getCardProduct())
-                                            .map(CreditCard::getRewardDetails)
-                                            .orElse("{}");
-                                    Object rewardJson;
-                                    try {
-                                        rewardJson = objectMapper.readValue(rewardDetails, Object.class);
-                                    } catch (Exception e) {
-                                        System.out.println("Invalid Json");
-                                        rewardJson = rewardDetails; // fallback if invalid JSON
-                                    }
+                                    Object rewardJson = cardCatalogCache.find(card.getIssuer(), card.getCardProduct())
+                                            .map(entry -> entry.rewards() != null ? entry.rewards() : entry.rewardDetails())
+                                            .orElseGet(HashMap::new);
                                     return new CreditCardDto(card.getIssuer(), card.getCardProduct(), rewardJson);
                                 }).toList();
 
@@ -84,76 +83,48 @@ public class JsonCardSuggestionController {
                         return ResponseEntity.ok(dto);
                     })
                     .orElse(ResponseEntity.notFound().build());
+            // 💸 Over budget: serve a remembered or locally ranked answer instead of calling OpenAI
+            List<UserCard> userCards = profile.map(UserProfile::getUserCards).orElse(List.of());
+            String answerKey = LocalSuggestionService.answerKey(OpenAiClient.UseCase.SUGGESTION_JSON, userCards, store,
+                    null, null);
+            if (modelRouter.localOnly(OpenAiClient.UseCase.SUGGESTION_JSON) && !userCards.isEmpty()) {
+                return ResponseEntity.ok(localSuggestionService.answer(answerKey, userCards, store, null));
+            }
+
             // Load system prompt
             String basePrompt = promptLoader.getCardSuggestionJsonPrompt();
             //System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(userCardsJson));
             // Build user prompt with provided JSON
             userCardsJson.getBody().getUserCards();
-            String userPrompt = "The user provided the following card definitions JSON:\n" +
-                    mapper.writerWithDefaultPrettyPrinter().writeValueAsString(userCardsJson.getBody().getUserCards()) + "\n\n" +
-                    "Store: " + store + ".\n" +
-                    "Use the JSON definitions above to generate the top 3 card suggestions following the schema.";
-
-            // Build request for OpenAI Responses API
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-5"); // use the latest model
-            requestBody.put("input", List.of(
-                    Map.of("role", "system", "content", basePrompt),
-                    Map.of("role", "user", "content", userPrompt)
-            ));
-            System.out.println(basePrompt);
-            System.out.println(userPrompt);
-            // ✅ Explicitly use okhttp3.RequestBody
-            okhttp3.RequestBody body = okhttp3.RequestBody.create(
-                    okhttp3.MediaType.parse("application/json"),
-                    mapper.writeValueAsString(requestBody)
-            );
-
-            Request request = new Request.Builder()
-                    .url("https://api.openai.com/v1/responses")
-                    .header("Authorization", "Bearer " + openAiKey)
-                    .header("Content-Type", "application/json")
-                    .header("Accept-Encoding", "gzip")  // enables GZIP compression
-                    .post(body)
-                    .build();
-
-
-            String responseText;
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    return ResponseEntity.status(response.code())
-                            .body(Map.of("error", "OpenAI API call failed: " + response.message()));
-                }
-                String responseBody = response.body().string();
-                Map<String, Object> bodyMap = mapper.readValue(responseBody, new TypeReference<Map<String, Object>>() {});
-                List<Map<String, Object>> outputs = (List<Map<String, Object>>) bodyMap.get("output");
-                if (outputs == null || outputs.isEmpty()) {
-                    return ResponseEntity.status(500).body(Map.of("error", "No output from model"));
-                }
-
-                responseText = null;
-                for (Map<String, Object> outputItem : outputs) {
-                    List<Map<String, Object>> contentList = (List<Map<String, Object>>) outputItem.get("content");
-                    if (contentList != null) {
-                        for (Map<String, Object> contentItem : contentList) {
-                            if ("output_text".equals(contentItem.get("type"))) {
-                                responseText = (String) contentItem.get("text");
-                                break;
-                            }
-                        }
-                    }
-                    if (responseText != null) break;
-                }
+            String userPrompt = PromptAssembler.suggestionJsonUserPrompt(mapper, userCardsJson.getBody().getUserCards(), store);
+
+            log.debug("userPrompt: {}", userPrompt);
+
+            // Build request for OpenAI Responses API; the router picks the model per attempt
+            String cacheKey = PromptAssembler.promptCacheKey(OpenAiClient.UseCase.SUGGESTION_JSON, promptLoader.getCardSuggestionJsonVersion());
+            OpenAiClient.Result<CardSuggestionAnswer> result = modelRouter.call(OpenAiClient.UseCase.SUGGESTION_JSON,
+                    basePrompt.length() + userPrompt.length(),
+                    plan -> PromptAssembler.responsesRequest(plan, cacheKey, basePrompt,
+                            promptLoader.getCardSuggestionSchema(), "card_suggestion", userPrompt),
+                    CardSuggestionAnswer.class, CardSuggestionService::hasSuggestions);
+            if (!result.isSuccessful()) {
+                return ResponseEntity.status(result.httpStatus())
+                        .body(Map.of("error", "OpenAI API call failed: " + result.message()));
             }
 
-            if (responseText == null) {
-                return ResponseEntity.status(500).body(Map.of("error", "No output_text from model"));
+            CardSuggestionAnswer answer = result.answer();
+            if (answer == null) {
+                return ResponseEntity.status(500).body(Map.of("error", result.unparsedText() == null
+                        ? "No output_text from model"
+                        : "Model output did not match the suggestion schema"));
             }
 
-            // Clean JSON
-            responseText = responseText.trim().replaceAll("```(json)?", "").trim();
-            Map<String, Object> parsedResponse = mapper.readValue(responseText, new TypeReference<Map<String, Object>>() {});
-            return ResponseEntity.ok(parsedResponse);
+            Map<String, Object> responseMap = new LinkedHashMap<>();
+            responseMap.put("category", answer.category());
+            responseMap.put("currentQuarter", answer.currentQuarter());
+            responseMap.put("suggestions", answer.suggestions());
+            localSuggestionService.remember(answerKey, responseMap);
+            return ResponseEntity.ok(responseMap);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -1,6 +1,7 @@
 package com.shomuran.cardscope.controller;
 
 import com.shomuran.cardscope.dto.CreditCardDto;
+import com.shomuran.cardscope.dto.RuleBundle;
 import com.shomuran.cardscope.dto.UserProfileDto;
 import com.shomuran.cardscope.dto.UserUpdateRequestDto;
 import com.shomuran.cardscope.model.CreditCard;
@@ -9,18 +10,25 @@ import com.shomuran.cardscope.model.UserProfile;
 import com.shomuran.cardscope.repository.CreditCardRepository;
 import com.shomuran.cardscope.repository.UserProfileRepository;
 import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.service.CardCatalogCache;
 import com.shomuran.cardscope.service.RewardDetailService;
+import com.shomuran.cardscope.service.RuleBundleService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.ArrayList;
 
 @RestController
@@ -39,30 +47,41 @@ public class UserProfileController {
     @Autowired
     private CreditCardRepository creditCardRepository;
 
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private RuleBundleService ruleBundleService;
+
     @Autowired
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * Returns the account summary only; the card list is served by {@code GET /api/user/{email}}.
+     */
     @PostMapping("/login")
-    public ResponseEntity<UserProfile> login(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<Map<String, Object>> login(@RequestBody Map<String, String> payload) {
         String email = payload.get("email");
 
         if (email == null || email.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
 
-        UserProfile profile = userProfileRepository.findByEmail(email)
+        Map<String, Object> account = userProfileRepository.findAccountByEmail(email)
+                .map(user -> accountSummary(user.getId(), user.getEmail(), user.getName(), user.getProvider()))
                 .orElseGet(() -> {
                     UserProfile newProfile = new UserProfile();
                     newProfile.setEmail(email);
                     newProfile.setName(""); // optional: user can update later
                     newProfile.setUserCards(new ArrayList<>());
-                    return userProfileRepository.save(newProfile);
+                    UserProfile saved = userProfileRepository.save(newProfile);
+                    return accountSummary(saved.getId(), saved.getEmail(), saved.getName(), saved.getProvider());
                 });
 
-        return ResponseEntity.ok(profile);
+        return ResponseEntity.ok(account);
     }
 
     // Create a profile
@@ -79,7 +98,7 @@ public class UserProfileController {
         }
 
         // If user already exists, just return it (Google sign-in should be idempotent)
-        UserProfile existing = userProfileRepository.findByEmail(email).orElse(null);
+        UserProfile existing = userProfileRepository.findProfileByEmail(email).orElse(null);
         if (existing != null) {
             return ResponseEntity.ok(existing);
         }
@@ -112,7 +131,7 @@ public class UserProfileController {
             @PathVariable String email,
             @RequestBody UserUpdateRequestDto request) {
 
-        return userProfileRepository.findByEmail(email)
+        return userProfileRepository.findProfileByEmail(email)
                 .map(user -> {
                     // update user name if provided
                     if (request.getName() != null) {
@@ -130,13 +149,11 @@ public class UserProfileController {
                         if (cardName.isBlank()) continue;
 
                         try {
-                            boolean exists = creditCardRepository
-                                    .existsByIssuerIgnoreCaseAndCardProductIgnoreCase(
-                                            cardMap.getIssuer(), cardMap.getCardProduct());
+                            Optional<CreditCard> catalogCard = creditCardRepository
+                                    .findCard(cardMap.getIssuer(), cardMap.getCardProduct());
+                            boolean exists = catalogCard.isPresent();
                             if (exists) {
-                                String rewardStr = creditCardRepository
-                                        .findByIssuerIgnoreCaseAndCardProductIgnoreCase(
-                                                cardMap.getIssuer(), cardMap.getCardProduct())
+                                String rewardStr = catalogCard
                                         .map(CreditCard::getRewardDetails)
                                         .orElse("{}");
                                 if (rewardStr.trim().equals("{}")) {
@@ -163,6 +180,7 @@ public class UserProfileController {
                                                         cardMap.getCardProduct(),
                                                         rewardJson
                                                 );
+                                                cardCatalogCache.evict(cardMap.getIssuer(), cardMap.getCardProduct());
 
                                                 log.info("✅ Upserted reward details for card: {}", cardName);
                                             } catch (Exception e) {
@@ -189,19 +207,9 @@ public class UserProfileController {
                     // build response (same as GET)
                     List<CreditCardDto> cardDtos = user.getUserCards().stream()
                             .map(card -> {
-                                String rewardStr = creditCardRepository
-                                        .findByIssuerIgnoreCaseAndCardProductIgnoreCase(
-                                                card.getIssuer(), card.getCardProduct())
-                                        .map(CreditCard::getRewardDetails)
-                                        .orElse("{}");
-
-                                Object rewardJson;
-                                try {
-                                    rewardJson = objectMapper.readValue(rewardStr, Object.class);
-                                } catch (Exception e) {
-                                    rewardJson = new HashMap<>();
-                                }
-
+                                Object rewardJson = cardCatalogCache.find(card.getIssuer(), card.getCardProduct())
+                                        .map(entry -> entry.rewards() != null ? entry.rewards() : new HashMap<>())
+                                        .orElseGet(HashMap::new);
                                 return new CreditCardDto(card.getIssuer(), card.getCardProduct(), rewardJson);
                             }).toList();
 
@@ -221,23 +229,15 @@ public class UserProfileController {
     // ✅ Get profile by email (UNCHANGED)
     @GetMapping("/{email}")
     public ResponseEntity<UserProfileDto> getUserByEmail(@PathVariable String email) {
-        return userProfileRepository.findByEmail(email)
+        return userProfileRepository.findProfileByEmail(email)
                 .map(user -> {
                     // Build card DTOs
                     List<CreditCardDto> cardDtos = user.getUserCards().stream()
                             .map(card -> {
-                                String rewardDetails = creditCardRepository
-                                        .findByIssuerIgnoreCaseAndCardProductIgnoreCase(
-                                                card.getIssuer(), card.getCardProduct())
-                                        .map(CreditCard::getRewardDetails)
-                                        .orElse("{}");
-                                Object rewardJson;
-                                try {
-                                    rewardJson = objectMapper.readValue(rewardDetails, Object.class);
-                                } catch (Exception e) {
-                                    log.warn("Invalid JSON for card {} {}: {}", card.getIssuer(), card.getCardProduct(), e.getMessage());
-                                    rewardJson = rewardDetails; // fallback if invalid JSON
-                                }
+                                // Parsed once per catalog load; invalid JSON falls back to the raw text
+                                Object rewardJson = cardCatalogCache.find(card.getIssuer(), card.getCardProduct())
+                                        .map(entry -> entry.rewards() != null ? entry.rewards() : entry.rewardDetails())
+                                        .orElseGet(HashMap::new);
                                 return new CreditCardDto(card.getIssuer(), card.getCardProduct(), rewardJson);
                             }).toList();
 
@@ -254,10 +254,41 @@ public class UserProfileController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Compact, versioned ranking rules for the user's cards so the app can rank on-device.
+     * The bundle version is the ETag; a matching {@code If-None-Match} gets an empty 304.
+     */
+    @GetMapping("/{email}/rule-bundle")
+    public ResponseEntity<RuleBundle> getRuleBundle(@PathVariable String email,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return userProfileRepository.findProfileByEmail(email)
+                .map(user -> {
+                    RuleBundle bundle = ruleBundleService.build(user.getUserCards(), LocalDate.now());
+                    String etag = "\"" + bundle.version() + "\"";
+                    if (ifNoneMatch != null && ifNoneMatch.replace("W/", "").contains(etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<RuleBundle>build();
+                    }
+                    return ResponseEntity.ok()
+                            .eTag(etag)
+                            .cacheControl(CacheControl.noCache().cachePrivate())
+                            .body(bundle);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private Map<String, Object> accountSummary(Long id, String email, String name, String provider) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("id", id);
+        summary.put("email", email);
+        summary.put("name", name != null ? name : "");
+        summary.put("provider", provider);
+        return summary;
+    }
+
     // ✅ Delete profile and all related data
     @DeleteMapping("/{email}")
     public ResponseEntity<?> deleteByEmail(@PathVariable String email) {
-        return userProfileRepository.findByEmail(email)
+        return userProfileRepository.findProfileByEmail(email)
                 .map(profile -> {
                     // First, delete password reset tokens
                     passwordResetTokenRepository.deleteByUser(profile);
@@ -0,0 +1,10 @@
+package com.shomuran.cardscope.dto;
+
+/**
+ * Caller identity taken from a verified access token. Set as a request attribute by
+ * {@link com.shomuran.cardscope.config.AccessTokenFilter}; no database lookup is involved.
+ */
+public record AuthenticatedUser(Long id, String email) {
+
+    public static final String REQUEST_ATTRIBUTE = "cardscope.authenticatedUser";
+}
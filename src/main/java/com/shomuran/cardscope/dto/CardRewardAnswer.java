@@ -0,0 +1,51 @@
+package com.shomuran.cardscope.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The model's answer for {@code prompts/card-rewards.txt}. Serializes back to the same
+ * {@code {"cardReward": {...}}} shape that is stored in {@code CreditCard.rewardDetails}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CardRewardAnswer(CardReward cardReward) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CardReward(@JsonProperty("card_name") String cardName,
+                             @JsonProperty("base_rate") String baseRate,
+                             @JsonProperty("bonus_categories") List<BonusCategory> bonusCategories,
+                             @JsonProperty("user_choice_categories") List<UserChoiceCategory> userChoiceCategories,
+                             @JsonProperty("rotating_categories") Map<String, List<RotatingCategory>> rotatingCategories,
+                             @JsonProperty("redeem_as") String redeemAs,
+                             @JsonProperty("annual_fee") AnnualFee annualFee,
+                             String notes,
+                             String reasoning) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record BonusCategory(String category,
+                                String rate,
+                                String cap,
+                                @JsonProperty("after_cap_rate") String afterCapRate,
+                                List<String> exclusions) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record UserChoiceCategory(List<String> options,
+                                     String rate,
+                                     String cap,
+                                     @JsonProperty("after_cap_rate") String afterCapRate,
+                                     String notes) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RotatingCategory(String category, String rate, List<String> exclusions) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record AnnualFee(@JsonProperty("first_year") String firstYear, String thereafter) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.shomuran.cardscope.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The model's answer for both suggestion prompts ({@code prompts/card-suggestion*.txt}, "Output" schema).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CardSuggestionAnswer(String category, String currentQuarter, List<Suggestion> suggestions) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Suggestion(@JsonProperty("card_name") String cardName,
+                             @JsonProperty("expected_reward") String expectedReward,
+                             String reasoning) {
+    }
+}
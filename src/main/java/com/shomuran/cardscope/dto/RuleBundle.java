@@ -0,0 +1,37 @@
+package com.shomuran.cardscope.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline ranking rules for one user's wallet ({@code GET /api/user/{email}/rule-bundle}).
+ * <p>
+ * {@code categories} maps each canonical category to the keywords (issuer wording and Google Places types)
+ * that select it; the first match wins. Rates are numeric (5% and 5x both become 5.0), caps are dollar
+ * amounts, and rotating categories are limited to {@code quarter}, so the bundle must be re-fetched after
+ * {@code validUntil}. {@code version} changes whenever any of the content does and doubles as the ETag.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RuleBundle(int schema,
+                         String version,
+                         String quarter,
+                         String validUntil,
+                         Map<String, List<String>> categories,
+                         List<Card> cards) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Card(String name, String issuer, String product, double base, String baseText, List<Rule> rules) {
+    }
+
+    /**
+     * @param kind  {@code bonus}, {@code user_choice} (the cardholder picks one of these) or {@code rotating}
+     * @param cap   spend cap in dollars when the cap text has one; {@code capText} keeps the period wording
+     * @param after rate once the cap is reached
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Rule(String category, String label, double rate, String rateText,
+                       Double cap, String capText, Double after, String kind) {
+    }
+}
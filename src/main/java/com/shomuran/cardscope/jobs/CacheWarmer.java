@@ -0,0 +1,249 @@
+package com.shomuran.cardscope.jobs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.CardSuggestionAnswer;
+import com.shomuran.cardscope.dto.CreditCardDto;
+import com.shomuran.cardscope.dto.UserProfileDto;
+import com.shomuran.cardscope.model.UserCard;
+import com.shomuran.cardscope.service.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Warms the instance in-process, at startup and then on a schedule.
+ * <p>
+ * Each run reloads the card catalog (with parsed reward data) into {@link CardCatalogCache} and opens
+ * connections to OpenAI and Google Places. It then pushes a synthetic workload through the suggestion
+ * ranking, prompt assembly, profile serialization and response parsing code, plus a few loop-back catalog
+ * requests through the MVC stack. Nothing is written and no paid API is called.
+ * <p>
+ * The startup run is an {@link ApplicationRunner}, so Spring Boot reports readiness
+ * ({@code /actuator/health/readiness}, {@code /api/health}) only after it completes.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private static final int MAX_CARDS = 12;
+    private static final int LOOPBACK_EVERY = 10;
+
+    /** Store / category pairs cycled through the suggestion paths. */
+    private static final List<String[]> STORES = List.of(
+            new String[]{"Whole Foods Market", "groceries"},
+            new String[]{"Shell", "gas"},
+            new String[]{"Starbucks", "dining"},
+            new String[]{"Amazon", "online shopping"},
+            new String[]{"Costco Wholesale", "wholesale clubs"},
+            new String[]{"Target", null}
+    );
+
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private LocalSuggestionService localSuggestionService;
+
+    @Autowired
+    private OpenAiClient openAiClient;
+
+    @Autowired
+    private OpenAiResponseReader responseReader;
+
+    @Autowired
+    private GooglePlacesService googlePlacesService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("cardScopeExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.preconnect:true}")
+    private boolean preconnect;
+
+    @Value("${app.warmup.startup-iterations:300}")
+    private int startupIterations;
+
+    @Value("${app.warmup.periodic-iterations:20}")
+    private int periodicIterations;
+
+    @Value("${app.warmup.max-duration:15s}")
+    private Duration maxDuration;
+
+    private final RestTemplate loopback = new RestTemplate(loopbackRequestFactory());
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            log.info("⏭️ Cache warm-up disabled (app.warmup.enabled=false)");
+            return;
+        }
+        warmUp("startup", startupIterations);
+    }
+
+    @Scheduled(fixedDelayString = "${app.warmup.interval:4m}", initialDelayString = "${app.warmup.interval:4m}")
+    public void periodicWarmUp() {
+        if (enabled) {
+            warmUp("periodic", periodicIterations);
+        }
+    }
+
+    void warmUp(String phase, int iterations) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long start = System.nanoTime();
+
+        // Connections are opened in the background while the catalog loads and the workload runs
+        CompletableFuture<Boolean> openAi = preconnect
+                ? connectAsync(openAiClient::preconnect) : CompletableFuture.completedFuture(false);
+        CompletableFuture<Boolean> places = preconnect
+                ? connectAsync(googlePlacesService::preconnect) : CompletableFuture.completedFuture(false);
+
+        int cards = 0;
+        int completed = 0;
+        try {
+            cards = cardCatalogCache.preload();
+            completed = workload(iterations, start + maxDuration.toNanos());
+        } catch (Exception e) {
+            // Warm-up is best effort; a failure here must never keep the instance from serving
+            log.warn("⚠️ Cache warm-up ({}) stopped early: {}", phase, e.getMessage(), e);
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("🔥 Cache warm-up ({}) done in {} ms: {} catalog cards, {} workload iterations, OpenAI {}, Places {}",
+                phase, elapsedMs, cards, completed,
+                preconnect ? connected(openAi) : "skipped", preconnect ? connected(places) : "skipped");
+        sample.stop(Timer.builder("app.warmup")
+                .description("In-process cache and JIT warm-up runs")
+                .tag("phase", phase)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Blocking network I/O, so on the application executor rather than the common fork-join pool.
+     */
+    private CompletableFuture<Boolean> connectAsync(Supplier<Boolean> preconnect) {
+        try {
+            return CompletableFuture.supplyAsync(preconnect, taskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private int workload(int iterations, long deadline) throws IOException {
+        List<CardCatalogCache.Entry> entries = cardCatalogCache.sample(MAX_CARDS);
+        List<UserCard> userCards = entries.stream()
+                .map(entry -> new UserCard(entry.issuer(), entry.cardProduct()))
+                .toList();
+        List<String> cardNames = entries.stream()
+                .map(entry -> entry.issuer() + " " + entry.cardProduct())
+                .toList();
+        List<CreditCardDto> cardDtos = entries.stream()
+                .map(entry -> new CreditCardDto(entry.issuer(), entry.cardProduct(),
+                        entry.rewards() != null ? entry.rewards() : entry.rewardDetails()))
+                .toList();
+        UserProfileDto profile = new UserProfileDto(0L, "warmup@cardscope.local", "Warm-up", null, cardDtos);
+        String quarter = RewardRuleCompiler.quarterOf(LocalDate.now());
+        byte[] reply = cannedReply(localSuggestionService.rank(userCards, STORES.get(0)[0], STORES.get(0)[1]));
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            String[] store = STORES.get(completed % STORES.size());
+
+            Map<String, Object> ranked = localSuggestionService.rank(userCards, store[0], store[1]);
+            objectMapper.writeValueAsBytes(ranked);
+            PromptAssembler.suggestionUserPrompt(cardNames, store[0], store[1], quarter);
+            PromptAssembler.suggestionJsonUserPrompt(objectMapper, cardDtos, store[0]);
+            objectMapper.writeValueAsBytes(profile);
+            responseReader.read(new ByteArrayInputStream(reply), CardSuggestionAnswer.class);
+
+            if (port != null && completed % LOOPBACK_EVERY == 0) {
+                loopback(port, store[0]);
+            }
+            completed++;
+        }
+        return completed;
+    }
+
+    /**
+     * A Responses API body shaped like a real suggestion reply, so the streaming reader sees realistic input.
+     */
+    private byte[] cannedReply(Map<String, Object> answer) throws IOException {
+        Map<String, Object> body = Map.of(
+                "id", "resp_warmup",
+                "object", "response",
+                "output", List.of(Map.of(
+                        "type", "message",
+                        "role", "assistant",
+                        "content", List.of(Map.of(
+                                "type", "output_text",
+                                "text", objectMapper.writeValueAsString(answer))))),
+                "usage", Map.of(
+                        "input_tokens", 1200,
+                        "input_tokens_details", Map.of("cached_tokens", 0),
+                        "output_tokens", 150));
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    /** Read-only catalog lookups through Tomcat, the filters, Spring MVC and the JSON converter. */
+    private void loopback(int port, String store) {
+        String search = store.substring(0, 2);
+        try {
+            loopback.getForObject("http://127.0.0.1:{port}/api/cards/issuers?search={search}", String.class, port, search);
+            loopback.getForObject("http://127.0.0.1:{port}/api/cards/products?issuer={issuer}&search={search}",
+                    String.class, port, search, search);
+        } catch (Exception e) {
+            log.debug("Loop-back warm-up request failed: {}", e.getMessage());
+        }
+    }
+
+    private static String connected(CompletableFuture<Boolean> future) {
+        try {
+            return future.get(10, TimeUnit.SECONDS) ? "connected" : "unreachable";
+        } catch (Exception e) {
+            return "timed out";
+        }
+    }
+
+    private static SimpleClientHttpRequestFactory loopbackRequestFactory() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(1000);
+        factory.setReadTimeout(5000);
+        return factory;
+    }
+}
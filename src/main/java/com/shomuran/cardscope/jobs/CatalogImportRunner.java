@@ -0,0 +1,69 @@
+package com.shomuran.cardscope.jobs;
+
+import com.shomuran.cardscope.service.CatalogImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line catalog import: started with {@code --app.catalog.import.file=<path>}, it streams the file
+ * through {@link CatalogImportService}, logs the report and (unless {@code app.catalog.import.exit=false})
+ * shuts the application down. Exit code 0 on success, 2 when rows were rejected, 1 when the import failed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "app.catalog.import.file")
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportRunner.class);
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${app.catalog.import.file}")
+    private Path file;
+
+    @Value("${app.catalog.import.format:}")
+    private String format;
+
+    @Value("${app.catalog.import.exit:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode;
+        try (InputStream input = Files.newInputStream(file)) {
+            CatalogImportService.Report report = catalogImportService.importCatalog(input,
+                    CatalogImportService.Format.resolve(format, file.getFileName().toString()));
+            report.rejects().forEach(reject -> log.warn("⚠️ {} line {}: {}", file, reject.line(), reject.reason()));
+            if (report.rejected() > report.rejects().size()) {
+                log.warn("⚠️ ... and {} more rejected rows", report.rejected() - report.rejects().size());
+            }
+            exitCode = report.rejected() > 0 ? 2 : 0;
+        } catch (Exception e) {
+            log.error("❌ Catalog import from {} failed: {}", file, e.getMessage(), e);
+            exitCode = 1;
+        }
+
+        if (exitWhenDone) {
+            int code = exitCode;
+            System.exit(SpringApplication.exit(context, () -> code));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.shomuran.cardscope.jobs;
+
+import com.shomuran.cardscope.model.EmailOutboxMessage;
+import com.shomuran.cardscope.repository.EmailOutboxRepository;
+import com.shomuran.cardscope.service.EmailOutboxService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers {@code email_outbox} rows in batches.
+ * <p>
+ * Each batch is handed to {@link JavaMailSender#send(MimeMessage...)}, which opens one SMTP
+ * connection for the whole batch. Failed messages are retried with exponential backoff
+ * until {@code app.mail.outbox.max-attempts}, then marked FAILED.
+ * <p>
+ * Rows are claimed in a short transaction that pushes their {@code next_attempt_at} out by
+ * {@code app.mail.outbox.lease}, so no database connection or row lock is held during the SMTP
+ * session. Other drains (here or on other instances) skip leased rows; if this one dies before
+ * recording the outcome, the rows become due again when the lease runs out. Keep the SMTP
+ * timeouts well below the lease so a slow server cannot outlive it and cause a double send.
+ */
+@Component
+public class EmailOutboxSender {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxSender.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    private final String fromAddress;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    public EmailOutboxSender(EmailOutboxRepository emailOutboxRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${spring.mail.from:noreply@shomuran.com}") String fromAddress,
+                             @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                             @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${app.mail.outbox.initial-backoff:30s}") Duration initialBackoff,
+                             @Value("${app.mail.outbox.max-backoff:1h}") Duration maxBackoff,
+                             @Value("${app.mail.outbox.lease:5m}") Duration lease) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fromAddress = fromAddress;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+    }
+
+    /**
+     * Fast path: drain right after the enqueuing transaction commits.
+     */
+    @Async("cardScopeExecutor")
+    @TransactionalEventListener
+    public void onMessageEnqueued(EmailOutboxService.MessageEnqueued event) {
+        drain();
+    }
+
+    /**
+     * Safety net for retries and for messages whose fast path was lost (restart, rejection).
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:15s}")
+    public void poll() {
+        drain();
+    }
+
+    /**
+     * Sends due messages until the outbox has no more due rows. Only one drain runs per instance;
+     * a caller that finds it running leaves a request behind, and the running drain goes round
+     * once more before it exits, so rows committed after its last query are not left for the poll.
+     */
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                drainRequested.set(false);
+                int claimed;
+                do {
+                    claimed = sendBatch();
+                } while (claimed == batchSize);
+            } catch (Exception e) {
+                log.error("❌ Email outbox drain failed: {}", e.getMessage(), e);
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    private int sendBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutboxMessage> due = transactionTemplate.execute(status -> {
+            List<EmailOutboxMessage> rows = emailOutboxRepository.lockDueMessages(now, PageRequest.of(0, batchSize));
+            rows.forEach(row -> row.setNextAttemptAt(now.plus(lease)));
+            return rows;
+        });
+        if (due == null || due.isEmpty()) {
+            return 0;
+        }
+
+        Map<MimeMessage, EmailOutboxMessage> byMime = new IdentityHashMap<>();
+        List<MimeMessage> batch = new ArrayList<>(due.size());
+        for (EmailOutboxMessage row : due) {
+            try {
+                MimeMessage mime = toMimeMessage(row);
+                byMime.put(mime, row);
+                batch.add(mime);
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                // Unrenderable message — retrying will not help
+                markFailed(row, e, now, true);
+            }
+        }
+
+        // Outside any transaction: the lease, not a row lock, keeps other drains off these rows
+        Map<Object, Exception> failures = Map.of();
+        if (!batch.isEmpty()) {
+            try {
+                mailSender.send(batch.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                if (failures.isEmpty()) {
+                    // Failure without per-message detail (e.g. connect/auth): treat the whole batch as failed
+                    failures = new IdentityHashMap<>();
+                    for (MimeMessage mime : batch) failures.put(mime, e);
+                }
+            } catch (MailException e) {
+                failures = new IdentityHashMap<>();
+                for (MimeMessage mime : batch) failures.put(mime, e);
+            }
+        }
+
+        int sent = 0;
+        for (Map.Entry<MimeMessage, EmailOutboxMessage> entry : byMime.entrySet()) {
+            EmailOutboxMessage row = entry.getValue();
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                row.setStatus(EmailOutboxMessage.Status.SENT);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setSentAt(now);
+                row.setLastError(null);
+                sent++;
+            } else {
+                markFailed(row, failure, now, false);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(due));
+
+        log.info("📧 Email outbox batch: {} sent, {} failed", sent, due.size() - sent);
+        return due.size();
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage row) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(row.getRecipient());
+        helper.setFrom(fromAddress, "CardScope Support");
+        helper.setSubject(row.getSubject());
+        helper.setText(row.getHtmlBody(), true); // true => HTML content
+        return message;
+    }
+
+    private void markFailed(EmailOutboxMessage row, Exception error, LocalDateTime now, boolean permanent) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        row.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+
+        if (permanent || attempts >= maxAttempts) {
+            row.setStatus(EmailOutboxMessage.Status.FAILED);
+            log.error("❌ Giving up on email {} to {} after {} attempts: {}", row.getId(), row.getRecipient(), attempts, message);
+            return;
+        }
+        row.setNextAttemptAt(now.plus(backoff(attempts)));
+        log.warn("⚠️ Email {} to {} failed (attempt {}), retrying at {}: {}",
+                row.getId(), row.getRecipient(), attempts, row.getNextAttemptAt(), message);
+    }
+
+    /**
+     * initialBackoff * 2^(attempts-1), capped at maxBackoff.
+     */
+    Duration backoff(int attempts) {
+        long multiplier = 1L << Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(multiplier);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
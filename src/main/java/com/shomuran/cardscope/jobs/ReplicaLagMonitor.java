@@ -0,0 +1,23 @@
+package com.shomuran.cardscope.jobs;
+
+import com.shomuran.cardscope.config.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Measures read-replica lag every {@code app.datasource.read-replicas.check-interval}, starting right after
+ * startup. Replicas only take reads once a check has found them within {@code max-lag}. With replicas
+ * disabled the router has none to check, so each run returns at once.
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Scheduled(fixedDelayString = "${app.datasource.read-replicas.check-interval:2s}")
+    public void checkLag() {
+        replicaRoutingDataSource.refreshLag();
+    }
+}
@@ -3,6 +3,10 @@ package com.shomuran.cardscope.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(
@@ -12,9 +16,12 @@ import lombok.Setter;
         },
         indexes = {
                 @Index(name = "idx_card_name", columnList = "card_product"),
-                @Index(name = "idx_card_issuer", columnList = "issuer")
+                @Index(name = "idx_card_issuer", columnList = "issuer"),
+                @Index(name = "idx_card_updated_at", columnList = "updated_at, id")
         }
 )
+@Cache(region = "credit-card", usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache(region = "credit-card-natural-id")
 @Getter
 @Setter
 public class CreditCard extends AuditableEntity {
@@ -27,6 +34,7 @@ public class CreditCard extends AuditableEntity {
      * 🏦 The bank or issuer name.
      * Example: "Chase", "American Express", "Capital One"
      */
+    @NaturalId
     @Column(nullable = false)
     private String issuer;
 
@@ -34,6 +42,7 @@ public class CreditCard extends AuditableEntity {
      * 💳 The specific card product.
      * Example: "Freedom Flex", "Platinum", "Venture"
      */
+    @NaturalId
     @Column(name = "card_product", nullable = false)
     private String cardProduct;
 
@@ -0,0 +1,31 @@
+package com.shomuran.cardscope.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Marks a {@link CreditCard} that was removed from the catalog, so delta-syncing clients
+ * ({@code GET /api/cards/sync}) learn to drop it. {@code updatedAt} is the deletion time.
+ */
+@Entity
+@Table(
+        name = "credit_card_tombstone",
+        indexes = {
+                @Index(name = "idx_card_tombstone_updated_at", columnList = "updated_at, id")
+        }
+)
+@Getter
+@Setter
+public class CreditCardTombstone extends AuditableEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String issuer;
+
+    @Column(name = "card_product", nullable = false)
+    private String cardProduct;
+}
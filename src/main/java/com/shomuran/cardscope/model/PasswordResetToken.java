@@ -15,7 +15,7 @@ public class PasswordResetToken {
     private String token;
 
     // 👇 Use UserProfile instead of User
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private UserProfile user;
 
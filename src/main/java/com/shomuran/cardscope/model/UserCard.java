@@ -8,12 +8,15 @@ public class UserCard extends AuditableEntity {
     private String issuer;
     private String cardProduct;
 
+    // Embeddables get no @PrePersist/@PreUpdate callbacks, so stamp updated_at on creation
     public UserCard() {
+        updateTimestamp();
     }
 
     public UserCard(String issuer, String cardProduct) {
         this.issuer = issuer;
         this.cardProduct = cardProduct;
+        updateTimestamp();
     }
 
     public String getIssuer() {
@@ -1,15 +1,25 @@
 package com.shomuran.cardscope.model;
 
+import com.shomuran.cardscope.service.UserProfileChangeListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners(UserProfileChangeListener.class)
+@Cache(region = "user-profile", usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache(region = "user-profile-natural-id")
 public class UserProfile extends AuditableEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String email;
 
@@ -21,7 +31,12 @@ public class UserProfile extends AuditableEntity {
     private String provider;    // "local", "google", etc.
     private String providerId;  // Google account ID if applicable
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Bumped by a password reset; refresh tokens carrying an older version are refused (null = 0)
+    @Column(name = "token_version")
+    private Long tokenVersion = 0L;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @Cache(region = "user-profile-cards", usage = CacheConcurrencyStrategy.READ_WRITE)
     @CollectionTable(name = "user_cards", joinColumns = @JoinColumn(name = "user_id"))
     private List<UserCard> userCards; // holds issuer + product pair
 
@@ -75,11 +90,24 @@ public class UserProfile extends AuditableEntity {
         this.providerId = providerId;
     }
 
+    public Long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public List<UserCard> getUserCards() {
         return userCards;
     }
 
+    /**
+     * Also stamps {@code updatedAt}: without a change to a column Hibernate does not count a replaced card
+     * collection as an update, so the entity listeners, and with them cache invalidation, would not run.
+     */
     public void setUserCards(List<UserCard> userCards) {
         this.userCards = userCards;
+        setUpdatedAt(LocalDateTime.now());
     }
 }
@@ -0,0 +1,16 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.model.CreditCard;
+
+import java.util.Optional;
+
+/**
+ * Catalog lookups by the (issuer, card product) natural id, served from the second-level cache when possible.
+ */
+public interface CreditCardNaturalIdRepository {
+
+    /**
+     * Exact-case lookup; see {@link CreditCardRepository#findCard} for the case-insensitive fallback.
+     */
+    Optional<CreditCard> findByNaturalId(String issuer, String cardProduct);
+}
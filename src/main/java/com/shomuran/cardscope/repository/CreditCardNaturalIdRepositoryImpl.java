@@ -0,0 +1,29 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.config.ReplicaRoutingDataSource;
+import com.shomuran.cardscope.model.CreditCard;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class CreditCardNaturalIdRepositoryImpl implements CreditCardNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CreditCard> findByNaturalId(String issuer, String cardProduct) {
+        // Cache misses read the primary: a row loaded from a lagging replica would stay cached for the whole TTL
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            return entityManager.unwrap(Session.class)
+                    .byNaturalId(CreditCard.class)
+                    .using("issuer", issuer)
+                    .using("cardProduct", cardProduct)
+                    .loadOptional();
+        }
+    }
+}
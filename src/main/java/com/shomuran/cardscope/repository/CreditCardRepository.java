@@ -1,15 +1,21 @@
 package com.shomuran.cardscope.repository;
 
 import com.shomuran.cardscope.model.CreditCard;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface CreditCardRepository extends JpaRepository<CreditCard, Long> {
+@Transactional(readOnly = true)
+public interface CreditCardRepository extends JpaRepository<CreditCard, Long>, CreditCardNaturalIdRepository {
 
     /**
      * 🔹 Find distinct issuers that match a given search term (case-insensitive).
@@ -28,10 +34,20 @@ public interface CreditCardRepository extends JpaRepository<CreditCard, Long> {
 
     /**
      * 🔹 Find a specific card by issuer and product.
+     * Exact-case matches come from the second-level cache; other spellings fall back to a case-insensitive query.
      */
+    default Optional<CreditCard> findCard(String issuer, String cardProduct) {
+        return findByNaturalId(issuer, cardProduct)
+                .or(() -> findByIssuerIgnoreCaseAndCardProductIgnoreCase(issuer, cardProduct));
+    }
+
     Optional<CreditCard> findByIssuerIgnoreCaseAndCardProductIgnoreCase(String issuer, String cardProduct);
 
-    boolean existsByIssuerIgnoreCaseAndCardProductIgnoreCase(String issuer, String cardProduct);
+    /**
+     * 🔹 Id of the card with exactly this issuer and product, read from the table rather than the cache.
+     */
+    @Query("SELECT c.id FROM CreditCard c WHERE c.issuer = :issuer AND c.cardProduct = :cardProduct")
+    Optional<Long> findIdByNaturalId(String issuer, String cardProduct);
 
     /**
      * ✅ Find all cards whose rewardDetails are empty ("{}") or NULL.
@@ -46,14 +62,34 @@ public interface CreditCardRepository extends JpaRepository<CreditCard, Long> {
 
     /**
      * ✅ Native UPSERT for PostgreSQL — insert or update existing (issuer, card_product) record.
+     * Stamps {@code updated_at} so catalog delta sync picks the change up. The query space limits the
+     * second-level cache eviction this triggers to the {@code CreditCard} regions.
      */
     @Modifying
     @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "credit_card"))
     @Query(value = """
-        INSERT INTO credit_card (issuer, card_product, reward_details)
-        VALUES (:issuer, :cardProduct, :rewardDetails)
+        INSERT INTO credit_card (issuer, card_product, reward_details, updated_at)
+        VALUES (:issuer, :cardProduct, :rewardDetails, :updatedAt)
         ON CONFLICT (issuer, card_product)
-        DO UPDATE SET reward_details = EXCLUDED.reward_details
+        DO UPDATE SET reward_details = EXCLUDED.reward_details, updated_at = EXCLUDED.updated_at
         """, nativeQuery = true)
-    void upsertCard(String issuer, String cardProduct, String rewardDetails);
+    void upsertCard(String issuer, String cardProduct, String rewardDetails, LocalDateTime updatedAt);
+
+    @Transactional
+    default void upsertCard(String issuer, String cardProduct, String rewardDetails) {
+        upsertCard(issuer, cardProduct, rewardDetails, LocalDateTime.now());
+    }
+
+    /**
+     * 🔹 Catalog rows changed after the (updatedAt, id) cursor and no later than {@code until}, oldest first.
+     */
+    @Query("""
+           SELECT c
+           FROM CreditCard c
+           WHERE c.updatedAt <= :until
+             AND (c.updatedAt > :sinceAt OR (c.updatedAt = :sinceAt AND c.id > :sinceId))
+           ORDER BY c.updatedAt, c.id
+           """)
+    List<CreditCard> findChangedSince(LocalDateTime sinceAt, long sinceId, LocalDateTime until, Limit limit);
 }
@@ -0,0 +1,24 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.model.CreditCardTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CreditCardTombstoneRepository extends JpaRepository<CreditCardTombstone, Long> {
+
+    /**
+     * 🔹 Deletions after the (updatedAt, id) cursor and no later than {@code until}, oldest first.
+     */
+    @Query("""
+           SELECT t
+           FROM CreditCardTombstone t
+           WHERE t.updatedAt <= :until
+             AND (t.updatedAt > :sinceAt OR (t.updatedAt = :sinceAt AND t.id > :sinceId))
+           ORDER BY t.updatedAt, t.id
+           """)
+    List<CreditCardTombstone> findChangedSince(LocalDateTime sinceAt, long sinceId, LocalDateTime until, Limit limit);
+}
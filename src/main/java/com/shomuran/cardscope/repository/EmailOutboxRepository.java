@@ -0,0 +1,31 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.model.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * 🔹 Claims the next batch of due messages. Rows are locked FOR UPDATE SKIP LOCKED
+     * (lock timeout -2), so several instances can drain the outbox without double-sending.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+           SELECT m
+           FROM EmailOutboxMessage m
+           WHERE m.status = com.shomuran.cardscope.model.EmailOutboxMessage.Status.PENDING
+             AND m.nextAttemptAt <= :now
+           ORDER BY m.id
+           """)
+    List<EmailOutboxMessage> lockDueMessages(LocalDateTime now, Pageable page);
+}
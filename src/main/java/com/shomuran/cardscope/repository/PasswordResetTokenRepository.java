@@ -3,9 +3,20 @@ package com.shomuran.cardscope.repository;
 import com.shomuran.cardscope.model.PasswordResetToken;
 import com.shomuran.cardscope.model.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
     Optional<PasswordResetToken> findByToken(String token);
     void deleteByUser(UserProfile user);
+
+    /**
+     * Single-use claim: of several concurrent callers with the same token, exactly one gets 1.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PasswordResetToken t WHERE t.id = :id")
+    int claim(Long id);
 }
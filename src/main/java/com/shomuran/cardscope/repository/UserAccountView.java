@@ -0,0 +1,29 @@
+package com.shomuran.cardscope.repository;
+
+/**
+ * Single-row projection of {@link com.shomuran.cardscope.model.UserProfile}
+ * used by the authentication and token paths. Selecting through this view
+ * never touches the {@code user_cards} collection.
+ */
+public interface UserAccountView {
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+
+    String getPasswordHash();
+
+    String getProvider();
+
+    String getProviderId();
+
+    /**
+     * Null for rows created before the column existed; treat as 0.
+     */
+    Long getTokenVersion();
+
+    default long tokenVersion() {
+        return getTokenVersion() != null ? getTokenVersion() : 0L;
+    }
+}
@@ -0,0 +1,23 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.model.UserProfile;
+
+import java.util.Optional;
+
+/**
+ * Profile lookups served from the second-level cache: email to id through the natural-id cache, then the
+ * profile and its card collection from their regions. Saves and deletes through JPA update the cache as they
+ * commit, and other instances evict through {@code CacheInvalidationBus}.
+ */
+public interface UserProfileNaturalIdRepository {
+
+    /**
+     * The profile with its cards initialized, so callers may use them outside the transaction.
+     */
+    Optional<UserProfile> findProfileByEmail(String email);
+
+    /**
+     * Same as {@link #findProfileByEmail} for callers that know the id (verified access tokens).
+     */
+    Optional<UserProfile> findProfileById(Long id);
+}
@@ -0,0 +1,48 @@
+package com.shomuran.cardscope.repository;
+
+import com.shomuran.cardscope.config.ReplicaRoutingDataSource;
+import com.shomuran.cardscope.model.UserProfile;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class UserProfileNaturalIdRepositoryImpl implements UserProfileNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserProfile> findProfileByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        // Cache misses read the primary: a profile loaded from a lagging replica would stay cached for the whole
+        // TTL on instances that already handled the invalidation
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            return withCards(entityManager.unwrap(Session.class)
+                    .bySimpleNaturalId(UserProfile.class)
+                    .loadOptional(email));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserProfile> findProfileById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            return withCards(Optional.ofNullable(entityManager.find(UserProfile.class, id)));
+        }
+    }
+
+    private static Optional<UserProfile> withCards(Optional<UserProfile> profile) {
+        profile.ifPresent(user -> Hibernate.initialize(user.getUserCards()));
+        return profile;
+    }
+}
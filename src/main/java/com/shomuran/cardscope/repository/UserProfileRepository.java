@@ -2,10 +2,39 @@ package com.shomuran.cardscope.repository;
 
 import com.shomuran.cardscope.model.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
-    Optional<UserProfile> findByEmail(String email);
+@Transactional(readOnly = true)
+public interface UserProfileRepository extends JpaRepository<UserProfile, Long>, UserProfileNaturalIdRepository {
     boolean existsByEmail(String email);
+
+    /**
+     * 🔹 Auth/token paths: reads the single user_profile row, no card collection.
+     */
+    Optional<UserAccountView> findAccountByEmail(String email);
+
+    Optional<UserAccountView> findAccountById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile u SET u.passwordHash = :passwordHash, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updatePasswordHash(Long id, String passwordHash);
+
+    /**
+     * 🔹 Password reset: stores the new hash and bumps the token version, retiring all earlier refresh tokens.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile u SET u.passwordHash = :passwordHash, " +
+            "u.tokenVersion = COALESCE(u.tokenVersion, 0) + 1, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int resetPassword(Long id, String passwordHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile u SET u.provider = :provider, u.providerId = :providerId, u.updatedAt = LOCAL DATETIME WHERE u.id = :id")
+    int updateProvider(Long id, String provider, String providerId);
 }
@@ -0,0 +1,186 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Issues and verifies HS256-signed JWTs.
+ * <p>
+ * Access tokens are short-lived and carry the user id and email, so any filter or
+ * controller can identify the caller without touching the database. Refresh tokens
+ * live longer and are only accepted by {@code POST /api/auth/refresh}. Both carry the user's
+ * token version ({@code ver}); a password reset bumps it, which retires every refresh token
+ * issued before.
+ */
+@Service
+public class AccessTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenService.class);
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String HEADER = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    private final ThreadLocal<Mac> macs;
+
+    public AccessTokenService(@Value("${app.auth.token-secret:}") String secret,
+                              @Value("${app.auth.access-token-ttl:15m}") Duration accessTtl,
+                              @Value("${app.auth.refresh-token-ttl:30d}") Duration refreshTtl) {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+            log.warn("⚠️ app.auth.token-secret is not set — using a random key; tokens will not survive a restart or work across instances");
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (secretBytes.length < 32) {
+                throw new IllegalStateException("app.auth.token-secret must be at least 32 bytes");
+            }
+        }
+        this.key = new SecretKeySpec(secretBytes, HMAC_ALGORITHM);
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+    }
+
+    /**
+     * A verified refresh token; {@code tokenVersion} must still match the user's before it is honoured.
+     */
+    public record RefreshToken(AuthenticatedUser user, long tokenVersion) {
+    }
+
+    public TokenPair issue(Long userId, String email, long tokenVersion) {
+        return new TokenPair(
+                sign(userId, email, tokenVersion, TYPE_ACCESS, accessTtl),
+                sign(userId, email, tokenVersion, TYPE_REFRESH, refreshTtl),
+                accessTtl.toSeconds()
+        );
+    }
+
+    /**
+     * Verifies signature, algorithm, expiry and token type. Returns empty for any invalid token.
+     */
+    public Optional<AuthenticatedUser> verify(String token, String expectedType) {
+        return claims(token, expectedType).map(AccessTokenService::user);
+    }
+
+    /**
+     * Same checks as {@link #verify} for a refresh token, also returning the token version it was issued with.
+     */
+    public Optional<RefreshToken> verifyRefresh(String token) {
+        return claims(token, TYPE_REFRESH).map(claims -> new RefreshToken(user(claims),
+                claims.get("ver") instanceof Number version ? version.longValue() : 0L));
+    }
+
+    private Optional<Map<String, Object>> claims(String token, String expectedType) {
+        if (token == null) return Optional.empty();
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) return Optional.empty();
+
+        String signingInput = token.substring(0, lastDot);
+        byte[] expected = hmac(signingInput);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) return Optional.empty();
+
+        try {
+            // Only ever HS256: a token naming another algorithm was not issued here, whatever its signature
+            byte[] header = Base64.getUrlDecoder().decode(token.substring(0, firstDot));
+            Map<String, Object> headerClaims = mapper.readValue(header, new TypeReference<>() {
+            });
+            if (!"HS256".equals(headerClaims.get("alg"))) return Optional.empty();
+
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot));
+            Map<String, Object> claims = mapper.readValue(payload, new TypeReference<>() {
+            });
+            if (!expectedType.equals(claims.get("typ"))) return Optional.empty();
+            long exp = ((Number) claims.get("exp")).longValue();
+            if (Instant.now().getEpochSecond() >= exp) return Optional.empty();
+
+            user(claims); // sub must parse
+            return Optional.of(claims);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private static AuthenticatedUser user(Map<String, Object> claims) {
+        return new AuthenticatedUser(Long.valueOf((String) claims.get("sub")), (String) claims.get("email"));
+    }
+
+    /**
+     * True for compact JWS strings; legacy opaque UUID tokens are not JWTs and are ignored.
+     */
+    public static boolean looksLikeJwt(String token) {
+        return token != null && token.chars().filter(c -> c == '.').count() == 2;
+    }
+
+    private String sign(Long userId, String email, long tokenVersion, String type, Duration ttl) {
+        long now = Instant.now().getEpochSecond();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(userId));
+        claims.put("email", email);
+        claims.put("ver", tokenVersion);
+        claims.put("typ", type);
+        claims.put("iat", now);
+        claims.put("exp", now + ttl.toSeconds());
+
+        try {
+            String signingInput = HEADER + "." + base64Url(mapper.writeValueAsBytes(claims));
+            return signingInput + "." + base64Url(hmac(signingInput));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to sign token", e);
+        }
+    }
+
+    private byte[] hmac(String signingInput) {
+        return macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
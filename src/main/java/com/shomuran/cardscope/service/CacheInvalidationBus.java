@@ -0,0 +1,316 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps in-process caches consistent across instances over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Writers report changes here ({@link #cardChanged}, {@link #catalogChanged}, {@link #userChanged}) after
+ * evicting their own local entries. Each change is sent to the other instances once the surrounding
+ * transaction commits, and every instance republishes what it receives from others as an
+ * {@link Invalidation} application event, which the caches handle with {@code @EventListener}.
+ * <p>
+ * One background thread owns a dedicated connection to the primary: it sends queued notifications, then waits
+ * up to {@code poll-interval} for incoming ones. Whenever notifications may have been missed (the connection
+ * was re-established, or another instance's sequence numbers skip because its send queue overflowed) the caches
+ * get an {@link Kind#ALL} event and resync in full. Outside PostgreSQL the bus is off and caches stay
+ * instance-local.
+ */
+@Service
+@RegisterReflectionForBinding(CacheInvalidationBus.Message.class)
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public enum Kind {
+        /** One catalog card, by id (when it exists) and issuer and product. */
+        CARD,
+        /** The whole catalog (bulk import). */
+        CATALOG,
+        /** One user profile, by id and (when known) email. */
+        USER,
+        /** Anything may have changed: notifications were missed. Local only, never sent. */
+        ALL
+    }
+
+    /**
+     * A change another instance made, or a resync request.
+     *
+     * @param removed whether the card or user was deleted, which is the only way its natural id goes stale
+     * @param version the change's timestamp in epoch millis ({@code updated_at} where the writer has it)
+     */
+    public record Invalidation(Kind kind, Long cardId, String issuer, String cardProduct, Long userId, String email,
+                               boolean removed, long version) {
+    }
+
+    /** Wire format: the sender's id and per-sender sequence number let receivers detect lost messages. */
+    record Message(String origin, long seq, Invalidation change) {
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final BlockingQueue<Invalidation> outbox;
+    /** Set when a change did not fit in the outbox; the worker then skips a sequence number. */
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    /** Last sequence number sent (or skipped). Numbered on the worker thread, so it follows the send order. */
+    private long sequence;
+
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final Duration pollInterval;
+    private final Duration reconnectBackoff;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public CacheInvalidationBus(ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                                DataSourceProperties dataSourceProperties,
+                                @Value("${app.cache.invalidation.enabled:true}") boolean enabled,
+                                @Value("${app.cache.invalidation.channel:cardscope_cache}") String channel,
+                                @Value("${app.cache.invalidation.poll-interval:250ms}") Duration pollInterval,
+                                @Value("${app.cache.invalidation.reconnect-backoff:5s}") Duration reconnectBackoff,
+                                @Value("${app.cache.invalidation.max-pending:10000}") int maxPending) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("app.cache.invalidation.channel must be a lowercase SQL identifier: " + channel);
+        }
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.url = dataSourceProperties.determineUrl();
+        this.username = dataSourceProperties.determineUsername();
+        this.password = dataSourceProperties.determinePassword();
+        this.enabled = enabled && url != null && url.startsWith("jdbc:postgresql:");
+        this.channel = channel;
+        this.pollInterval = pollInterval;
+        this.reconnectBackoff = reconnectBackoff;
+        this.outbox = new ArrayBlockingQueue<>(Math.max(1, maxPending));
+    }
+
+    /**
+     * @param cardId null when no such card is stored
+     */
+    public void cardChanged(Long cardId, String issuer, String cardProduct) {
+        send(new Invalidation(Kind.CARD, cardId, issuer, cardProduct, null, null, false, System.currentTimeMillis()));
+    }
+
+    public void cardRemoved(Long cardId, String issuer, String cardProduct) {
+        send(new Invalidation(Kind.CARD, cardId, issuer, cardProduct, null, null, true, System.currentTimeMillis()));
+    }
+
+    public void catalogChanged() {
+        send(new Invalidation(Kind.CATALOG, null, null, null, null, null, false, System.currentTimeMillis()));
+    }
+
+    /**
+     * @param email may be null when the writer only has the id
+     */
+    public void userChanged(Long userId, String email, long version) {
+        send(new Invalidation(Kind.USER, null, null, null, userId, email, false, version));
+    }
+
+    public void userRemoved(Long userId, String email) {
+        send(new Invalidation(Kind.USER, null, null, null, userId, email, true, System.currentTimeMillis()));
+    }
+
+    /**
+     * Queues the change for the other instances, after commit when a transaction is active.
+     */
+    private void send(Invalidation change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(change);
+                }
+            });
+        } else {
+            enqueue(change);
+        }
+    }
+
+    private void enqueue(Invalidation change) {
+        if (!outbox.offer(change)) {
+            // The next message skips a sequence number, which makes every other instance resync
+            dropped.set(true);
+            meterRegistry.counter("cache.invalidation.dropped").increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            log.info("📡 Cache invalidation bus off (needs PostgreSQL) — caches are instance-local");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "CardScope-Invalidation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(pollInterval.toMillis() + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("📡 Listening for cache invalidations on '{}'", channel);
+                listening(connectedBefore);
+                connectedBefore = true;
+
+                while (running) {
+                    flushOutbox(connection);
+                    PGNotification[] notifications = pg.getNotifications((int) Math.max(1, pollInterval.toMillis()));
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("⚠️ Cache invalidation connection lost: {} — reconnecting in {}",
+                            e.getMessage(), reconnectBackoff);
+                    sleep(reconnectBackoff);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once LISTEN is in place on a new connection.
+     */
+    void listening(boolean reconnected) {
+        lastSeen.clear();
+        if (reconnected) {
+            // Anything sent while we were away is lost; listening again first, so nothing slips in between
+            resync("reconnect");
+        }
+    }
+
+    void flushOutbox(Connection connection) throws SQLException {
+        Invalidation change;
+        while ((change = outbox.peek()) != null) {
+            if (dropped.getAndSet(false)) {
+                sequence++;
+            }
+            Message message = new Message(origin, sequence + 1, change);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, channel);
+                statement.setString(2, mapper.writeValueAsString(message));
+                statement.execute();
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            // Removed and numbered only once sent, so a connection drop keeps it for the next connection
+            sequence = message.seq();
+            outbox.poll();
+            meterRegistry.counter("cache.invalidation.messages",
+                    "direction", "sent", "kind", message.change().kind().name().toLowerCase(Locale.ROOT)).increment();
+        }
+    }
+
+    void receive(String payload) {
+        Message message;
+        try {
+            message = mapper.readValue(payload, Message.class);
+        } catch (Exception e) {
+            message = null;
+        }
+        if (message == null || message.origin() == null || message.change() == null || message.change().kind() == null) {
+            log.warn("⚠️ Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (origin.equals(message.origin())) {
+            return; // our own change, evicted locally already
+        }
+        meterRegistry.counter("cache.invalidation.messages",
+                "direction", "received", "kind", message.change().kind().name().toLowerCase(Locale.ROOT)).increment();
+
+        Long previous = lastSeen.put(message.origin(), message.seq());
+        if (previous != null && message.seq() != previous + 1) {
+            log.warn("⚠️ Missed {} cache invalidation(s) from {}", message.seq() - previous - 1, message.origin());
+            resync("gap");
+            return;
+        }
+        publish(message.change());
+    }
+
+    private void resync(String reason) {
+        meterRegistry.counter("cache.invalidation.resyncs", "reason", reason).increment();
+        log.info("🔄 Resyncing local caches ({})", reason);
+        publish(new Invalidation(Kind.ALL, null, null, null, null, null, false, System.currentTimeMillis()));
+    }
+
+    private void publish(Invalidation change) {
+        try {
+            eventPublisher.publishEvent(change);
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Cache invalidation handler failed for {}: {}", change, e.getMessage());
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.config.ReplicaRoutingDataSource;
+import com.shomuran.cardscope.model.CreditCard;
+import com.shomuran.cardscope.repository.CreditCardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the {@code credit_card} catalog with each card's {@code rewardDetails} already parsed.
+ * <p>
+ * The profile and suggestion paths read reward data from here instead of querying and re-parsing it per
+ * card per request. {@link #preload()} fills it from one table scan (the cache warmer calls it at startup and
+ * on its schedule); cards that are not loaded yet are read through on first use, and absent cards are
+ * remembered as absent until evicted. Writers call {@link #evict} after upserting a card; other instances
+ * hear about it through {@link CacheInvalidationBus}.
+ * <p>
+ * Loads always read the primary: an entry read from a lagging replica right after an evict would otherwise
+ * stay stale for the whole TTL.
+ * <p>
+ * The parsed {@code rewards} object is shared by every caller and must be treated as read-only.
+ */
+@Service
+public class CardCatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CardCatalogCache.class);
+
+    /**
+     * @param rewards the parsed {@code rewardDetails}, or null when the stored text is not valid JSON
+     */
+    public record Entry(String issuer, String cardProduct, String rewardDetails, Object rewards) {
+    }
+
+    @Autowired
+    private CreditCardRepository creditCardRepository;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Cache<String, Optional<Entry>> entries;
+
+    public CardCatalogCache(MeterRegistry meterRegistry,
+                            @Value("${app.catalog.cache.max-size:10000}") long maxSize,
+                            @Value("${app.catalog.cache.ttl:30m}") Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "card.catalog");
+    }
+
+    public Optional<Entry> find(String issuer, String cardProduct) {
+        return entries.get(key(issuer, cardProduct), k -> {
+            try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+                return creditCardRepository.findCard(issuer, cardProduct)
+                        .map(this::toEntry);
+            }
+        });
+    }
+
+    /**
+     * Replaces the cached catalog with the current table contents and returns the number of cards loaded.
+     */
+    public int preload() {
+        List<CreditCard> cards;
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            cards = creditCardRepository.findAll();
+        }
+        for (CreditCard card : cards) {
+            entries.put(key(card.getIssuer(), card.getCardProduct()), Optional.of(toEntry(card)));
+        }
+        return cards.size();
+    }
+
+    /**
+     * Up to {@code limit} cached catalog cards, for callers that need representative data (e.g. warm-up).
+     */
+    public List<Entry> sample(int limit) {
+        return entries.asMap().values().stream()
+                .flatMap(Optional::stream)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Drops the card here and on every other instance, after its row was inserted or updated.
+     */
+    public void evict(String issuer, String cardProduct) {
+        entries.invalidate(key(issuer, cardProduct));
+        Long id;
+        try (ReplicaRoutingDataSource.Pin pin = ReplicaRoutingDataSource.pinPrimary()) {
+            id = creditCardRepository.findIdByNaturalId(issuer, cardProduct).orElse(null);
+        }
+        cacheInvalidationBus.cardChanged(id, issuer, cardProduct);
+    }
+
+    /**
+     * Drops a deleted card here and on every other instance.
+     */
+    public void evictRemoved(CreditCard card) {
+        entries.invalidate(key(card.getIssuer(), card.getCardProduct()));
+        cacheInvalidationBus.cardRemoved(card.getId(), card.getIssuer(), card.getCardProduct());
+    }
+
+    @EventListener
+    public void onInvalidation(CacheInvalidationBus.Invalidation invalidation) {
+        switch (invalidation.kind()) {
+            case CARD -> entries.invalidate(key(invalidation.issuer(), invalidation.cardProduct()));
+            case CATALOG, ALL -> {
+                entries.invalidateAll();
+                log.info("🔄 Reloaded {} catalog cards after a {} invalidation", preload(),
+                        invalidation.kind().name().toLowerCase(Locale.ROOT));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private Entry toEntry(CreditCard card) {
+        String rewardDetails = card.getRewardDetails() != null ? card.getRewardDetails() : "{}";
+        Object rewards;
+        try {
+            rewards = mapper.readValue(rewardDetails, Object.class);
+        } catch (Exception e) {
+            log.warn("Invalid JSON for card {} {}: {}", card.getIssuer(), card.getCardProduct(), e.getMessage());
+            rewards = null;
+        }
+        return new Entry(card.getIssuer(), card.getCardProduct(), rewardDetails, rewards);
+    }
+
+    private static String key(String issuer, String cardProduct) {
+        return (issuer + "|" + cardProduct).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,100 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.PromptLoader;
+import com.shomuran.cardscope.dto.CardSuggestionAnswer;
+import com.shomuran.cardscope.model.UserCard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Card suggestions from OpenAI for {@code /api/get-card-suggestions}, shared by the endpoint and
+ * {@link SuggestionPrefetcher}. Falls back to {@link LocalSuggestionService} when the LLM budget says so.
+ */
+@Service
+public class CardSuggestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardSuggestionService.class);
+
+    /**
+     * @param status HTTP status for the endpoint to answer with; {@code body} is the suggestion or an error
+     */
+    public record Outcome(int status, Map<String, Object> body) {
+        public boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+    }
+
+    @Autowired
+    private PromptLoader promptLoader;
+
+    @Autowired
+    private ModelRouter modelRouter;
+
+    @Autowired
+    private LocalSuggestionService localSuggestionService;
+
+    public Outcome suggest(List<UserCard> userCards, String store, String category, String currentQuarter) throws IOException {
+        // 💸 Over budget: serve a remembered or locally ranked answer instead of calling OpenAI
+        String answerKey = LocalSuggestionService.answerKey(OpenAiClient.UseCase.SUGGESTION, userCards, store,
+                category, currentQuarter);
+        if (modelRouter.localOnly(OpenAiClient.UseCase.SUGGESTION)) {
+            return new Outcome(200, localSuggestionService.answer(answerKey, userCards, store, category));
+        }
+
+        // Load base system prompt
+        String basePrompt = promptLoader.getCardSuggestionPrompt();
+
+        // 🔹 Combine issuer and cardProduct into a single string list
+        List<String> cardNames = userCards.stream()
+                .map(uc -> uc.getIssuer() + " " + uc.getCardProduct())
+                .toList();
+
+        // Build dynamic user context
+        String userPrompt = PromptAssembler.suggestionUserPrompt(cardNames, store, category, currentQuarter);
+        log.debug("userPrompt: {}", userPrompt);
+        // Build request payload for Responses API; the router picks model and tools per attempt
+        String cacheKey = PromptAssembler.promptCacheKey(OpenAiClient.UseCase.SUGGESTION, promptLoader.getCardSuggestionVersion());
+        OpenAiClient.Result<CardSuggestionAnswer> result = modelRouter.call(OpenAiClient.UseCase.SUGGESTION,
+                basePrompt.length() + userPrompt.length(),
+                plan -> PromptAssembler.responsesRequest(plan, cacheKey, basePrompt,
+                        promptLoader.getCardSuggestionSchema(), "card_suggestion", userPrompt),
+                CardSuggestionAnswer.class, CardSuggestionService::hasSuggestions);
+        if (!result.isSuccessful()) {
+            return new Outcome(result.httpStatus(), Map.of("error", "OpenAI API call failed: " + result.message()));
+        }
+
+        CardSuggestionAnswer answer = result.answer();
+        if (answer == null) {
+            return new Outcome(500, Map.of("error", result.unparsedText() == null
+                    ? "No output_text from model"
+                    : "Model output did not match the suggestion schema"));
+        }
+        log.debug("Suggestion response: {}", answer);
+
+        // Build response
+        Map<String, Object> responseMap = new LinkedHashMap<>();
+        responseMap.put("store", store);
+        responseMap.put("category", answer.category());
+        responseMap.put("currentQuarter", answer.currentQuarter());
+        responseMap.put("suggestions", answer.suggestions());
+        localSuggestionService.remember(answerKey, responseMap);
+
+        return new Outcome(200, responseMap);
+    }
+
+    /**
+     * Validation for {@link ModelRouter}: an answer without a named suggestion (none at all, or only what was
+     * left of one after repairing truncated output) is escalated to a stronger model.
+     */
+    public static boolean hasSuggestions(CardSuggestionAnswer answer) {
+        return answer.suggestions() != null
+                && answer.suggestions().stream().anyMatch(suggestion -> suggestion != null && suggestion.cardName() != null);
+    }
+}
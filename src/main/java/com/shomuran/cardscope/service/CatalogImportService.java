@@ -0,0 +1,538 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk catalog import from a partner feed, for {@code POST /api/admin/cards/import} and
+ * {@link com.shomuran.cardscope.jobs.CatalogImportRunner}.
+ * <p>
+ * The file is streamed (CSV with a header row, or one JSON object per line) and upserted in batches of
+ * {@code batch-size} rows on one connection, committing after each batch. On PostgreSQL a batch is
+ * {@code COPY}'d into a temporary staging table and merged into {@code credit_card} with one statement; on H2
+ * it is a JDBC batch of {@code MERGE} statements. Rows whose reward details did not change are left alone,
+ * so they keep their {@code updated_at} and are not sent to syncing clients again.
+ * <p>
+ * Rows without issuer or product, or with reward details that are not a JSON object, are rejected and
+ * reported with their line number; the rest of the file is still imported. If the import fails part-way
+ * (unreadable input, a database error), the batches committed so far stay and the caches are still refreshed.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_REWARD_DETAILS_LENGTH = 10000;
+
+    public enum Format {
+        CSV, JSONL;
+
+        /**
+         * Format from an explicit name ({@code csv}, {@code jsonl}/{@code ndjson}), else from a content type or
+         * file name; CSV when nothing says otherwise.
+         */
+        public static Format resolve(String name, String contentTypeOrFileName) {
+            String hint = (name != null && !name.isBlank() ? name : String.valueOf(contentTypeOrFileName))
+                    .toLowerCase(Locale.ROOT);
+            if (hint.contains("jsonl") || hint.contains("ndjson") || hint.contains("json")) {
+                return JSONL;
+            }
+            if (name != null && !name.isBlank() && !hint.contains("csv")) {
+                throw new IllegalArgumentException("Unknown import format: " + name);
+            }
+            return CSV;
+        }
+    }
+
+    public record Reject(long line, String reason) {
+    }
+
+    /**
+     * @param rows      data rows read (excluding the CSV header and blank lines)
+     * @param upserted  cards inserted or whose reward details changed
+     * @param unchanged valid rows that matched the stored card (including repeats within the file)
+     */
+    public record Report(long rows, long upserted, long unchanged, long rejected, List<Reject> rejects,
+                         long elapsedMs, double rowsPerSecond) {
+    }
+
+    private record Row(long line, String issuer, String cardProduct, String rewardDetails) {
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.catalog.import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.catalog.import.max-reported-rejects:100}")
+    private int maxReportedRejects;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public Report importCatalog(InputStream input, Format format) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        skipByteOrderMark(reader);
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (BatchWriter writer = writerFor(connection)) {
+                run.writer = writer;
+                run.connection = connection;
+                if (format == Format.JSONL) {
+                    readJsonLines(reader, run);
+                } else {
+                    readCsv(reader, run);
+                }
+                run.flush();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } finally {
+            // Batches committed before a failure stay, so caches must drop the old rows either way
+            if (run.upserted > 0) {
+                entityCacheService.evictCatalog();
+                cardCatalogCache.preload();
+                cacheInvalidationBus.catalogChanged();
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        double rowsPerSecond = run.rows == 0 ? 0 : Math.round(run.rows * 1e10 / Math.max(1, elapsedNanos)) / 10.0;
+        Report report = new Report(run.rows, run.upserted, run.unchanged, run.rejected, run.rejects,
+                elapsedMs, rowsPerSecond);
+        meterRegistry.counter("catalog.import.rows", "outcome", "upserted").increment(run.upserted);
+        meterRegistry.counter("catalog.import.rows", "outcome", "unchanged").increment(run.unchanged);
+        meterRegistry.counter("catalog.import.rows", "outcome", "rejected").increment(run.rejected);
+        log.info("📦 Catalog import: {} rows in {} ms ({} rows/s) — {} upserted, {} unchanged, {} rejected",
+                run.rows, elapsedMs, rowsPerSecond, run.upserted, run.unchanged, run.rejected);
+        return report;
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException, SQLException {
+        CsvParser csv = new CsvParser(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        int issuerColumn = -1;
+        int productColumn = -1;
+        int rewardsColumn = -1;
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            switch (name.toLowerCase(Locale.ROOT).replace("_", "")) {
+                case "issuer" -> issuerColumn = i;
+                case "cardproduct", "product" -> productColumn = i;
+                case "rewarddetails", "rewards" -> rewardsColumn = i;
+                default -> {
+                }
+            }
+        }
+        if (issuerColumn < 0 || productColumn < 0) {
+            throw new IllegalArgumentException("CSV header must name issuer and card_product columns");
+        }
+
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            long line = csv.recordStartLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            run.rows++;
+            run.accept(line, field(fields, issuerColumn), field(fields, productColumn),
+                    rewardsColumn < 0 ? null : parseRewardDetails(field(fields, rewardsColumn)));
+        }
+    }
+
+    private void readJsonLines(BufferedReader reader, Run run) throws IOException, SQLException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            run.rows++;
+            JsonNode node;
+            try {
+                node = mapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                run.reject(line, "not valid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                run.reject(line, "not a JSON object");
+                continue;
+            }
+            JsonNode rewards = first(node, "rewardDetails", "reward_details");
+            Object rewardDetails = rewards == null || rewards.isNull() ? null
+                    : rewards.isTextual() ? parseRewardDetails(rewards.asText()) : rewards;
+            run.accept(line, text(first(node, "issuer")), text(first(node, "cardProduct", "card_product")),
+                    rewardDetails);
+        }
+    }
+
+    /**
+     * Excel and some partner exports start with a UTF-8 byte order mark; it is not part of the first field.
+     */
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    /**
+     * @return the parsed JSON, null for an empty value, or an error message
+     */
+    private Object parseRewardDetails(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            return mapper.readTree(raw);
+        } catch (JsonProcessingException e) {
+            return "reward_details is not valid JSON: " + e.getOriginalMessage();
+        }
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static JsonNode first(JsonNode node, String... names) {
+        for (String name : names) {
+            if (node.has(name)) {
+                return node.get(name);
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    /**
+     * Per-import state: validates rows, collects the current batch and writes it when full.
+     */
+    private final class Run {
+        private BatchWriter writer;
+        private Connection connection;
+        private final List<Row> batch = new ArrayList<>();
+        private final List<Reject> rejects = new ArrayList<>();
+        private long rows;
+        private long upserted;
+        private long unchanged;
+        private long rejected;
+
+        void accept(long line, String issuer, String cardProduct, Object rewardDetails) throws SQLException {
+            issuer = issuer == null ? "" : issuer.trim();
+            cardProduct = cardProduct == null ? "" : cardProduct.trim();
+            if (issuer.isEmpty() || cardProduct.isEmpty()) {
+                reject(line, "issuer and card_product are required");
+                return;
+            }
+            if (issuer.length() > MAX_NAME_LENGTH || cardProduct.length() > MAX_NAME_LENGTH) {
+                reject(line, "issuer or card_product longer than " + MAX_NAME_LENGTH + " characters");
+                return;
+            }
+            if (rewardDetails instanceof String error) {
+                reject(line, error);
+                return;
+            }
+            if (rewardDetails != null && !((JsonNode) rewardDetails).isObject()) {
+                reject(line, "reward_details must be a JSON object");
+                return;
+            }
+
+            String json;
+            try {
+                // Stored compact, as the refresher writes it, so unchanged details compare equal
+                json = rewardDetails == null ? "{}" : mapper.writeValueAsString(rewardDetails);
+            } catch (JsonProcessingException e) {
+                reject(line, "reward_details could not be serialized");
+                return;
+            }
+            if (json.length() > MAX_REWARD_DETAILS_LENGTH) {
+                reject(line, "reward_details longer than " + MAX_REWARD_DETAILS_LENGTH + " characters");
+                return;
+            }
+
+            batch.add(new Row(line, issuer, cardProduct, json));
+            if (batch.size() >= Math.max(1, batchSize)) {
+                flush();
+            }
+        }
+
+        void reject(long line, String reason) {
+            rejected++;
+            if (rejects.size() < maxReportedRejects) {
+                rejects.add(new Reject(line, reason));
+            }
+        }
+
+        void flush() throws SQLException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int changed = writer.write(batch, LocalDateTime.now());
+            connection.commit();
+            upserted += changed;
+            unchanged += batch.size() - changed;
+            batch.clear();
+        }
+    }
+
+    private BatchWriter writerFor(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        if ("PostgreSQL".equalsIgnoreCase(product) && connection.isWrapperFor(PGConnection.class)) {
+            return new CopyMergeWriter(connection);
+        }
+        if ("H2".equalsIgnoreCase(product)) {
+            return new MergeBatchWriter(connection);
+        }
+        throw new IllegalStateException("Catalog import supports PostgreSQL and H2, not " + product);
+    }
+
+    private interface BatchWriter extends AutoCloseable {
+        /**
+         * Upserts {@code rows} (not yet committed) and returns how many cards were inserted or changed.
+         */
+        int write(List<Row> rows, LocalDateTime updatedAt) throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    /**
+     * PostgreSQL: {@code COPY} into a session-local staging table, then one {@code INSERT ... ON CONFLICT}.
+     * Within a batch the last row for a card wins.
+     */
+    private static final class CopyMergeWriter implements BatchWriter {
+        private static final String STAGING = "credit_card_import";
+
+        private final Connection connection;
+        private final CopyManager copyManager;
+        private final PreparedStatement merge;
+
+        CopyMergeWriter(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE IF NOT EXISTS " + STAGING
+                        + " (line bigint, issuer text, card_product text, reward_details text) ON COMMIT DELETE ROWS");
+            }
+            this.merge = connection.prepareStatement("""
+                    INSERT INTO credit_card (issuer, card_product, reward_details, updated_at)
+                    SELECT DISTINCT ON (issuer, card_product) issuer, card_product, reward_details, ?
+                    FROM credit_card_import
+                    ORDER BY issuer, card_product, line DESC
+                    ON CONFLICT (issuer, card_product)
+                    DO UPDATE SET reward_details = EXCLUDED.reward_details, updated_at = EXCLUDED.updated_at
+                    WHERE credit_card.reward_details IS DISTINCT FROM EXCLUDED.reward_details
+                    """);
+        }
+
+        @Override
+        public int write(List<Row> rows, LocalDateTime updatedAt) throws SQLException {
+            StringBuilder csv = new StringBuilder(rows.size() * 256);
+            for (Row row : rows) {
+                csv.append(row.line()).append(',');
+                appendCsv(csv, row.issuer()).append(',');
+                appendCsv(csv, row.cardProduct()).append(',');
+                appendCsv(csv, row.rewardDetails()).append('\n');
+            }
+            try {
+                copyManager.copyIn("COPY " + STAGING + " (line, issuer, card_product, reward_details) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY into " + STAGING + " failed", e);
+            }
+            merge.setTimestamp(1, Timestamp.valueOf(updatedAt));
+            return merge.executeUpdate();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            merge.close();
+            // Runs before the caller's rollback: drop a failed batch, then the staging table, since the
+            // connection goes back to the pool
+            connection.rollback();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + STAGING);
+            }
+            connection.commit();
+        }
+
+        private static StringBuilder appendCsv(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.append('"');
+                out.append(c);
+            }
+            return out.append('"');
+        }
+    }
+
+    /**
+     * H2 (local runs and tests): a JDBC batch of standard {@code MERGE} statements.
+     */
+    private static final class MergeBatchWriter implements BatchWriter {
+        private final PreparedStatement merge;
+
+        MergeBatchWriter(Connection connection) throws SQLException {
+            this.merge = connection.prepareStatement("""
+                    MERGE INTO credit_card c
+                    USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP)))
+                        AS s (issuer, card_product, reward_details, updated_at)
+                    ON c.issuer = s.issuer AND c.card_product = s.card_product
+                    WHEN MATCHED AND c.reward_details IS DISTINCT FROM s.reward_details THEN
+                        UPDATE SET reward_details = s.reward_details, updated_at = s.updated_at
+                    WHEN NOT MATCHED THEN
+                        INSERT (issuer, card_product, reward_details, updated_at)
+                        VALUES (s.issuer, s.card_product, s.reward_details, s.updated_at)
+                    """);
+        }
+
+        @Override
+        public int write(List<Row> rows, LocalDateTime updatedAt) throws SQLException {
+            Timestamp timestamp = Timestamp.valueOf(updatedAt);
+            for (Row row : rows) {
+                merge.setString(1, row.issuer());
+                merge.setString(2, row.cardProduct());
+                merge.setString(3, row.rewardDetails());
+                merge.setTimestamp(4, timestamp);
+                merge.addBatch();
+            }
+            int changed = 0;
+            for (int count : merge.executeBatch()) {
+                changed += Math.max(0, count);
+            }
+            return changed;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            merge.close();
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated, double-quoted fields may contain commas, quotes ({@code ""})
+     * and line breaks. Reads one record at a time.
+     */
+    static final class CsvParser {
+        private final BufferedReader reader;
+        private long line;
+        private long recordStartLine;
+
+        CsvParser(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        long recordStartLine() {
+            return recordStartLine;
+        }
+
+        /**
+         * @return the next record's fields, or null at end of input
+         */
+        List<String> next() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            recordStartLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Line break inside a quoted field: continue with the next physical line
+                    String more = reader.readLine();
+                    if (more == null) {
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.config.ReadReplicaProperties;
+import com.shomuran.cardscope.model.CreditCard;
+import com.shomuran.cardscope.model.CreditCardTombstone;
+import com.shomuran.cardscope.repository.CreditCardRepository;
+import com.shomuran.cardscope.repository.CreditCardTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental catalog sync for clients that keep a local copy ({@code GET /api/cards/sync}).
+ * <p>
+ * Changes are read by keyset on {@code (updated_at, id)} from {@code credit_card} and
+ * {@code credit_card_tombstone}, so each page is an index range scan however large the catalog grows.
+ * The cursor is opaque to clients and holds the last position in both streams. Rows newer than
+ * {@code now - settle-window} are held back until the next call: a transaction that stamped an earlier
+ * {@code updated_at} but committed later would otherwise slip in behind a cursor that already moved past it.
+ * The same window covers reads served by a lagging replica, so startup fails unless it is longer than the
+ * replicas' {@code max-lag} plus {@code check-interval} (the most a replica can fall behind unnoticed).
+ * <p>
+ * A sync without a cursor returns the whole catalog and no deletions. If an upsert and a delete for the
+ * same card arrive together, the client keeps whichever has the later timestamp.
+ */
+@Service
+public class CatalogSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSyncService.class);
+
+    /** Thrown for a cursor this service did not issue; the controller answers 400. */
+    public static class InvalidCursorException extends RuntimeException {
+        public InvalidCursorException(String message) {
+            super(message);
+        }
+    }
+
+    private record Position(LocalDateTime at, long id) {
+        static final Position START = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+    }
+
+    private record Cursor(Position cards, Position deletes) {
+    }
+
+    @Autowired
+    private CreditCardRepository creditCardRepository;
+
+    @Autowired
+    private CreditCardTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private ReadReplicaProperties readReplicaProperties;
+
+    @Value("${app.catalog.sync.default-limit:500}")
+    private int defaultLimit;
+
+    @Value("${app.catalog.sync.max-limit:2000}")
+    private int maxLimit;
+
+    @Value("${app.catalog.sync.settle-window:5s}")
+    private Duration settleWindow;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @PostConstruct
+    void checkSettleWindow() {
+        if (!readReplicaProperties.isEnabled()) {
+            return;
+        }
+        Duration replicaBehind = readReplicaProperties.getMaxLag().plus(readReplicaProperties.getCheckInterval());
+        if (settleWindow.compareTo(replicaBehind) <= 0) {
+            throw new IllegalStateException("app.catalog.sync.settle-window (" + settleWindow
+                    + ") must be longer than the read replicas' max-lag plus check-interval (" + replicaBehind + ")");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> changesSince(String since, Integer limit) {
+        boolean initial = since == null || since.isBlank();
+        Cursor cursor = initial ? new Cursor(Position.START, Position.START) : decode(since);
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultLimit, maxLimit));
+        LocalDateTime until = LocalDateTime.now().minus(settleWindow).truncatedTo(ChronoUnit.MICROS);
+
+        // One extra row tells us whether another page follows
+        List<CreditCard> cards = creditCardRepository.findChangedSince(
+                cursor.cards().at(), cursor.cards().id(), until, Limit.of(pageSize + 1));
+        List<CreditCardTombstone> tombstones = initial ? List.of() : tombstoneRepository.findChangedSince(
+                cursor.deletes().at(), cursor.deletes().id(), until, Limit.of(pageSize + 1));
+        boolean hasMore = cards.size() > pageSize || tombstones.size() > pageSize;
+        cards = cards.subList(0, Math.min(cards.size(), pageSize));
+        tombstones = tombstones.subList(0, Math.min(tombstones.size(), pageSize));
+
+        Position cardsAt = cards.isEmpty() ? cursor.cards()
+                : new Position(cards.get(cards.size() - 1).getUpdatedAt(), cards.get(cards.size() - 1).getId());
+        // The first sync starts the delete stream at the snapshot time: earlier deletions are already reflected
+        Position deletesAt = initial ? new Position(until, Long.MAX_VALUE) : tombstones.isEmpty() ? cursor.deletes()
+                : new Position(tombstones.get(tombstones.size() - 1).getUpdatedAt(),
+                tombstones.get(tombstones.size() - 1).getId());
+
+        List<Map<String, Object>> upserts = new ArrayList<>(cards.size());
+        for (CreditCard card : cards) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("issuer", card.getIssuer());
+            item.put("cardProduct", card.getCardProduct());
+            item.put("rewardDetails", rewards(card));
+            item.put("updatedAt", card.getUpdatedAt().toString());
+            upserts.add(item);
+        }
+        List<Map<String, Object>> deletes = tombstones.stream()
+                .map(t -> Map.<String, Object>of(
+                        "issuer", t.getIssuer(),
+                        "cardProduct", t.getCardProduct(),
+                        "deletedAt", t.getUpdatedAt().toString()))
+                .toList();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("cursor", encode(new Cursor(cardsAt, deletesAt)));
+        response.put("hasMore", hasMore);
+        response.put("upserts", upserts);
+        response.put("deletes", deletes);
+        return response;
+    }
+
+    /**
+     * Removes a card from the catalog and leaves a tombstone so synced clients drop it too.
+     *
+     * @return false when no such card exists
+     */
+    @Transactional
+    public boolean retire(String issuer, String cardProduct) {
+        return creditCardRepository.findCard(issuer, cardProduct)
+                .map(card -> {
+                    CreditCardTombstone tombstone = new CreditCardTombstone();
+                    tombstone.setIssuer(card.getIssuer());
+                    tombstone.setCardProduct(card.getCardProduct());
+                    tombstoneRepository.save(tombstone);
+                    creditCardRepository.delete(card);
+                    cardCatalogCache.evictRemoved(card);
+                    log.info("🗑️ Retired catalog card {} {}", card.getIssuer(), card.getCardProduct());
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private Object rewards(CreditCard card) {
+        // Served from the parsed catalog cache when it agrees with the row; raw text if the JSON is invalid
+        CardCatalogCache.Entry entry = cardCatalogCache.find(card.getIssuer(), card.getCardProduct()).orElse(null);
+        String details = card.getRewardDetails() != null ? card.getRewardDetails() : "{}";
+        if (entry != null && details.equals(entry.rewardDetails())) {
+            return entry.rewards() != null ? entry.rewards() : details;
+        }
+        try {
+            return mapper.readValue(details, Object.class);
+        } catch (Exception e) {
+            return details;
+        }
+    }
+
+    private static String encode(Cursor cursor) {
+        String raw = micros(cursor.cards().at()) + "." + cursor.cards().id() + "."
+                + micros(cursor.deletes().at()) + "." + cursor.deletes().id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Cursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split("\\.");
+            if (parts.length != 4) {
+                throw new InvalidCursorException("Malformed sync cursor");
+            }
+            return new Cursor(
+                    new Position(fromMicros(Long.parseLong(parts[0])), Long.parseLong(parts[1])),
+                    new Position(fromMicros(Long.parseLong(parts[2])), Long.parseLong(parts[3])));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed sync cursor");
+        }
+    }
+
+    private static long micros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(Position.START.at(), time);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(micros, ChronoUnit.MICROS);
+    }
+}
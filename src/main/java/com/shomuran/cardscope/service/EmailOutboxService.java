@@ -0,0 +1,46 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.EmailOutboxMessage;
+import com.shomuran.cardscope.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues outgoing mail in the {@code email_outbox} table instead of talking to SMTP
+ * inside the request. Delivery happens in {@link com.shomuran.cardscope.jobs.EmailOutboxSender}.
+ */
+@Service
+public class EmailOutboxService {
+
+    /**
+     * Published after the row is written; the sender listens for it after commit
+     * so mail goes out promptly instead of waiting for the next poll.
+     */
+    public record MessageEnqueued(Long messageId) {
+    }
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Must run inside the caller's transaction so the message commits (or rolls back)
+     * together with the business change that triggered it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public EmailOutboxMessage enqueue(String recipient, String subject, String htmlBody) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(recipient);
+        message.setSubject(subject);
+        message.setHtmlBody(htmlBody);
+
+        EmailOutboxMessage saved = emailOutboxRepository.save(message);
+        eventPublisher.publishEvent(new MessageEnqueued(saved.getId()));
+        return saved;
+    }
+}
@@ -0,0 +1,113 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.CreditCard;
+import com.shomuran.cardscope.model.UserProfile;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Evicts Hibernate second-level cache entries that changed outside this instance's sessions, and reports
+ * hit ratios for every Micrometer-monitored cache.
+ * <p>
+ * Saves and deletes through JPA keep the regions current on their own; what Hibernate cannot see is another
+ * instance's writes ({@link CacheInvalidationBus} events) and the JDBC catalog import.
+ */
+@Service
+public class EntityCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCacheService.class);
+
+    private static final String USER_CARDS_ROLE = UserProfile.class.getName() + ".userCards";
+
+    private final Cache cache;
+    private final MeterRegistry meterRegistry;
+
+    public EntityCacheService(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs before the other cache listeners, so a catalog reload does not read back stale entities.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onInvalidation(CacheInvalidationBus.Invalidation invalidation) {
+        // Natural ids never change, so their entries only go stale when the row is deleted. Hibernate cannot
+        // evict a single natural id by value, so a delete clears that (small) region.
+        switch (invalidation.kind()) {
+            case CARD -> {
+                if (invalidation.cardId() != null) {
+                    cache.evictEntityData(CreditCard.class, invalidation.cardId());
+                }
+                if (invalidation.removed()) {
+                    cache.evictNaturalIdData(CreditCard.class);
+                }
+            }
+            case CATALOG -> evictCatalog();
+            case USER -> {
+                if (invalidation.userId() != null) {
+                    cache.evictEntityData(UserProfile.class, invalidation.userId());
+                    cache.evictCollectionData(USER_CARDS_ROLE, invalidation.userId());
+                } else {
+                    cache.evictEntityData(UserProfile.class);
+                    cache.evictCollectionData(USER_CARDS_ROLE);
+                }
+                if (invalidation.removed()) {
+                    cache.evictNaturalIdData(UserProfile.class);
+                }
+            }
+            case ALL -> {
+                cache.evictAllRegions();
+                log.info("🧹 Cleared second-level cache");
+            }
+        }
+    }
+
+    /**
+     * Drops every cached catalog card, for writes that bypass Hibernate.
+     */
+    public void evictCatalog() {
+        cache.evictEntityData(CreditCard.class);
+        cache.evictNaturalIdData(CreditCard.class);
+    }
+
+    /**
+     * 📊 Hits, misses and hit ratio per cache since startup.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Map<String, Double>> counts = new TreeMap<>();
+        for (FunctionCounter counter : meterRegistry.find("cache.gets").functionCounters()) {
+            String name = counter.getId().getTag("cache");
+            String result = counter.getId().getTag("result");
+            if (name != null && result != null) {
+                counts.computeIfAbsent(name, k -> new LinkedHashMap<>()).merge(result, counter.count(), Double::sum);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        counts.forEach((name, byResult) -> {
+            long hits = byResult.getOrDefault("hit", 0.0).longValue();
+            long misses = byResult.getOrDefault("miss", 0.0).longValue();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hits", hits);
+            entry.put("misses", misses);
+            entry.put("hitRatio", hits + misses == 0 ? null : Math.round(hits * 1000.0 / (hits + misses)) / 1000.0);
+            result.put(name, entry);
+        });
+        return result;
+    }
+}
@@ -1,39 +1,103 @@
 package com.shomuran.cardscope.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.config.PlacesQuotaProperties;
 import com.shomuran.cardscope.dto.NearbySearchRequest;
 import com.shomuran.cardscope.dto.NearbySearchResponse;
 import com.shomuran.cardscope.dto.StoreInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+/**
+ * Google Places lookups. Every billed call first takes a token from {@link PlacesRateLimiter}; when none is
+ * available, or Google reports the quota as exhausted, the lookup is answered from recently seen responses
+ * for the same spot or store, and failing that from local keyword rules, instead of erroring out.
+ */
 @Service
 public class GooglePlacesService {
 
+    private static final Logger log = LoggerFactory.getLogger(GooglePlacesService.class);
+
     @Value("${google.api.key}")
     private String googleApiKey;
 
+    // Overridable so load tests can point at a local stand-in
+    @Value("${google.places.base-url:https://maps.googleapis.com}")
+    private String placesBaseUrl;
+
+    @Value("${google.places.new-api-base-url:https://places.googleapis.com}")
+    private String placesNewApiBaseUrl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlacesRateLimiter placesRateLimiter;
+
+    @Autowired
+    private PlacesQuotaProperties quotaProperties;
+
+    // Last good response per API and rounded location / store name, served while throttled
+    private Cache<String, Object> fallbackCache;
+
     private final RestTemplate restTemplate = new RestTemplate();
-    private static final String PLACES_API_URL = "https://places.googleapis.com/v1/places:searchNearby";
+
+    // Same HttpURLConnection keep-alive cache as restTemplate, but bounded so warm-up never hangs
+    private final RestTemplate preconnectTemplate = new RestTemplate(preconnectRequestFactory());
+
+    // Metric tag values, one per billed Places API
+    private static final String API_NEARBY_SEARCH = "nearbysearch";
+    private static final String API_TEXT_SEARCH = "textsearch";
+    private static final String API_SEARCH_NEARBY = "searchNearby";
+
+    @PostConstruct
+    void initFallbackCache() {
+        fallbackCache = Caffeine.newBuilder()
+                .maximumSize(quotaProperties.getCacheMaxSize())
+                .expireAfterWrite(quotaProperties.getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fallbackCache, "google.places.fallback");
+    }
 
     /**
      * Detect nearest store and category using latitude & longitude.
      */
 
     public List<StoreInfo> detectNearbyStores(double latitude, double longitude) {
+        return detectNearbyStores(latitude, longitude, PlacesRateLimiter.Priority.INTERACTIVE);
+    }
+
+    public List<StoreInfo> detectNearbyStores(double latitude, double longitude, PlacesRateLimiter.Priority priority) {
         String placesUrl = String.format(
-                "https://maps.googleapis.com/maps/api/place/nearbysearch/json?location=%f,%f&radius=100&key=%s",
-                latitude, longitude, googleApiKey
+                "%s/maps/api/place/nearbysearch/json?location=%f,%f&radius=100&key=%s",
+                placesBaseUrl, latitude, longitude, googleApiKey
         );
 
-        Map<String, Object> response = restTemplate.getForObject(placesUrl, Map.class);
+        Map<String, Object> response = limitedLegacyCall(API_NEARBY_SEARCH,
+                locationKey("nearby", latitude, longitude), placesUrl, priority);
+        if (response == null) return List.of();
         List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
 
         if (results == null || results.isEmpty()) return List.of();
@@ -42,7 +106,7 @@ public class GooglePlacesService {
                 .limit(5) // top 5
                 .map(r -> {
                     String storeName = (String) r.get("name");
-                    String category = getCategoryForStore(storeName); // reuse your logic
+                    String category = getCategoryForStore(storeName, priority); // reuse your logic
                     return new StoreInfo(storeName, category);
                 })
                 .toList();
@@ -52,12 +116,20 @@ public class GooglePlacesService {
      * Detect nearest store and category using latitude & longitude.
      */
     public StoreInfo detectNearestStore(double latitude, double longitude) {
+        return detectNearestStore(latitude, longitude, PlacesRateLimiter.Priority.INTERACTIVE);
+    }
+
+    public StoreInfo detectNearestStore(double latitude, double longitude, PlacesRateLimiter.Priority priority) {
         String placesUrl = String.format(
-                "https://maps.googleapis.com/maps/api/place/nearbysearch/json?location=%f,%f&radius=100&type=store&key=%s",
-                latitude, longitude, googleApiKey
+                "%s/maps/api/place/nearbysearch/json?location=%f,%f&radius=100&type=store&key=%s",
+                placesBaseUrl, latitude, longitude, googleApiKey
         );
 
-        Map<String, Object> response = restTemplate.getForObject(placesUrl, Map.class);
+        Map<String, Object> response = limitedLegacyCall(API_NEARBY_SEARCH,
+                locationKey("nearby-store", latitude, longitude), placesUrl, priority);
+        if (response == null) {
+            return new StoreInfo("Unknown Store", "general");
+        }
         List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
 
         if (results == null || results.isEmpty()) {
@@ -70,7 +142,7 @@ public class GooglePlacesService {
 
         // Extract Google category if available
         List<String> types = (List<String>) firstResult.get("types");
-        String category = (types != null && !types.isEmpty()) ? types.get(0) : getCategoryForStore(storeName);
+        String category = (types != null && !types.isEmpty()) ? types.get(0) : getCategoryForStore(storeName, priority);
 
         return new StoreInfo(storeName, category);
     }
@@ -94,13 +166,19 @@ public class GooglePlacesService {
     }
 */
     public String getCategoryForStore(String storeName) {
+        return getCategoryForStore(storeName, PlacesRateLimiter.Priority.INTERACTIVE);
+    }
+
+    public String getCategoryForStore(String storeName, PlacesRateLimiter.Priority priority) {
         try {
             String url = String.format(
-                    "https://maps.googleapis.com/maps/api/place/textsearch/json?query=%s&key=%s",
-                    storeName.replace(" ", "+"), googleApiKey
+                    "%s/maps/api/place/textsearch/json?query=%s&key=%s",
+                    placesBaseUrl, storeName.replace(" ", "+"), googleApiKey
             );
 
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+            Map<String, Object> response = limitedLegacyCall(API_TEXT_SEARCH,
+                    API_TEXT_SEARCH + "|" + storeName.trim().toLowerCase(Locale.ROOT), url, priority);
+            if (response == null) return localCategory(storeName);
             List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
 
             if (results == null || results.isEmpty()) return "general";
@@ -121,6 +199,16 @@ public class GooglePlacesService {
     }
 
     public NearbySearchResponse detectNearestStorev2(double latitude, double longitude) {
+        return detectNearestStorev2(latitude, longitude, PlacesRateLimiter.Priority.INTERACTIVE);
+    }
+
+    public NearbySearchResponse detectNearestStorev2(double latitude, double longitude,
+                                                     PlacesRateLimiter.Priority priority) {
+        String cacheKey = locationKey(API_SEARCH_NEARBY, latitude, longitude);
+        if (!placesRateLimiter.tryAcquire(API_SEARCH_NEARBY, priority)) {
+            return searchNearbyFallback(cacheKey);
+        }
+
         // 1. Setup Request Headers
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -149,22 +237,150 @@ public class GooglePlacesService {
 
         HttpEntity<NearbySearchRequest> entity = new HttpEntity<>(requestBody, headers);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
             // 3. Send the POST Request using RestTemplate
             ResponseEntity<NearbySearchResponse> response = restTemplate.postForEntity(
-                    PLACES_API_URL,
+                    placesNewApiBaseUrl + "/v1/places:searchNearby",
                     entity,
                     NearbySearchResponse.class
             );
+            outcome = "success";
 
             // 4. Return the response body
+            if (response.getBody() != null) {
+                fallbackCache.put(cacheKey, response.getBody());
+            }
             return response.getBody();
 
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = "quota";
+            log.warn("⚠️ Google Places quota exhausted for {}: {}", API_SEARCH_NEARBY, e.getMessage());
+            placesRateLimiter.drain(API_SEARCH_NEARBY);
+            return searchNearbyFallback(cacheKey);
         } catch (Exception e) {
             // Log the error and throw a custom exception or return an empty response
             System.err.println("Error calling Google Places API: " + e.getMessage());
             throw new RuntimeException("Nearby search failed", e);
+        } finally {
+            recordCall(API_SEARCH_NEARBY, outcome, sample);
+        }
+    }
+
+    /**
+     * Rate-limited legacy call. Returns the fresh response when a token was available, otherwise (or when
+     * Google answers with a quota error) the last good response for {@code cacheKey}; null when there is none.
+     */
+    private Map<String, Object> limitedLegacyCall(String api, String cacheKey, String url,
+                                                  PlacesRateLimiter.Priority priority) {
+        if (placesRateLimiter.tryAcquire(api, priority)) {
+            try {
+                Map<String, Object> response = timedLegacyCall(api, url);
+                if (!"OVER_QUERY_LIMIT".equals(response.get("status"))) {
+                    if (!response.isEmpty()) {
+                        fallbackCache.put(cacheKey, response);
+                    }
+                    return response;
+                }
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                // fall through to the cached answer
+            }
+            placesRateLimiter.drain(api);
         }
+        Map<String, Object> cached = (Map<String, Object>) fallbackCache.getIfPresent(cacheKey);
+        recordFallback(api, cached != null ? "cache" : "none");
+        return cached;
     }
 
+    private NearbySearchResponse searchNearbyFallback(String cacheKey) {
+        NearbySearchResponse cached = (NearbySearchResponse) fallbackCache.getIfPresent(cacheKey);
+        recordFallback(API_SEARCH_NEARBY, cached != null ? "cache" : "none");
+        if (cached != null) {
+            return cached;
+        }
+        NearbySearchResponse empty = new NearbySearchResponse();
+        empty.setPlaces(List.of());
+        return empty;
+    }
+
+    private void recordFallback(String api, String source) {
+        meterRegistry.counter("google.places.fallbacks", "api", api, "source", source).increment();
+    }
+
+    /**
+     * Category from the store name alone, using the same keyword rules as local ranking.
+     */
+    private static String localCategory(String storeName) {
+        String category = RewardRuleCompiler.normalizeCategory(storeName);
+        return "other".equals(category) ? "general" : category;
+    }
+
+    /**
+     * Rounds to 3 decimals (about 110 m), roughly the 100 m search radius, so nearby repeats share an entry.
+     */
+    private static String locationKey(String kind, double latitude, double longitude) {
+        return String.format(Locale.ROOT, "%s|%.3f,%.3f", kind, latitude, longitude);
+    }
+
+    /**
+     * GET against the legacy Places web service, timed per API. Quota errors arrive as
+     * HTTP 200 with status OVER_QUERY_LIMIT, or as HTTP 429.
+     */
+    private Map<String, Object> timedLegacyCall(String api, String url) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+            Object status = response != null ? response.get("status") : null;
+            if ("OVER_QUERY_LIMIT".equals(status)) {
+                outcome = "quota";
+            } else if (status == null || "OK".equals(status) || "ZERO_RESULTS".equals(status)) {
+                outcome = "success";
+            }
+            return response != null ? response : Map.of();
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = "quota";
+            throw e;
+        } finally {
+            recordCall(api, outcome, sample);
+        }
+    }
+
+    private void recordCall(String api, String outcome, Timer.Sample sample) {
+        sample.stop(Timer.builder("google.places.requests")
+                .description("Google Places API call latency")
+                .tag("api", api)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        if ("quota".equals(outcome)) {
+            meterRegistry.counter("google.places.quota.errors", "api", api).increment();
+        }
+    }
+
+    /**
+     * Opens connections to both Places hosts (DNS, TCP, TLS session) ahead of the first lookup.
+     * Any HTTP status counts; returns false when either host could not be reached.
+     */
+    public boolean preconnect() {
+        return preconnect(placesBaseUrl + "/maps/api/place/") & preconnect(placesNewApiBaseUrl + "/v1/places");
+    }
+
+    private boolean preconnect(String url) {
+        try {
+            preconnectTemplate.headForHeaders(url);
+            return true;
+        } catch (HttpStatusCodeException e) {
+            return true;
+        } catch (RestClientException e) {
+            return false;
+        }
+    }
+
+    private static SimpleClientHttpRequestFactory preconnectRequestFactory() {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(3000);
+        factory.setReadTimeout(3000);
+        return factory;
+    }
 }
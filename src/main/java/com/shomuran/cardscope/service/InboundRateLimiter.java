@@ -0,0 +1,79 @@
+package com.shomuran.cardscope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.config.InboundProtectionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per caller (user or client IP) for the expensive endpoints.
+ * <p>
+ * Buckets live in a bounded Caffeine map and are dropped once idle, so a flood of distinct IPs costs memory
+ * in proportion to {@code max-tracked-keys} at most; a dropped bucket comes back full.
+ */
+@Service
+public class InboundRateLimiter {
+
+    /**
+     * @param retryAfterSeconds when denied, how long until the caller has a token again
+     */
+    public record Decision(boolean allowed, long retryAfterSeconds) {
+    }
+
+    private final Cache<String, Bucket> buckets;
+    private final LongSupplier nanoTime;
+
+    @Autowired
+    public InboundRateLimiter(InboundProtectionProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    InboundRateLimiter(InboundProtectionProperties properties, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedKeys())
+                .expireAfterAccess(properties.getKeyIdleTimeout())
+                .ticker(nanoTime::getAsLong)
+                .build();
+    }
+
+    public Decision tryAcquire(String scope, String key, InboundProtectionProperties.Rate rate) {
+        Bucket bucket = buckets.get(scope + ":" + key, k -> new Bucket(rate, nanoTime.getAsLong()));
+        long waitNanos = bucket.take(nanoTime.getAsLong());
+        if (waitNanos == 0) {
+            return new Decision(true, 0);
+        }
+        return new Decision(false, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+    }
+
+    private static final class Bucket {
+        private final double capacity;
+        private final double perNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(InboundProtectionProperties.Rate rate, long now) {
+            this.capacity = Math.max(1, rate.getBurst());
+            this.perNano = rate.getRequestsPerMinute() / TimeUnit.MINUTES.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        /**
+         * @return 0 when a token was taken, otherwise nanoseconds until one is available
+         */
+        synchronized long take(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return perNano > 0 ? (long) Math.ceil((1 - tokens) / perNano) : TimeUnit.MINUTES.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.shomuran.cardscope.service;
+
+/**
+ * Salvages JSON that was cut off mid-stream (the model hit its output limit or the stream ended early).
+ * <p>
+ * The text is cut back to the last complete value and the still-open objects and arrays are closed. A member
+ * whose value was cut off is dropped, so it binds as null, but everything before it is kept. Text that is not
+ * truncated, and text that is broken in other ways, is left to the normal parse error.
+ */
+final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * @return the repaired JSON, or null when {@code buffer[start, end)} is not truncated JSON that can be closed
+     */
+    static String repair(char[] buffer, int start, int end) {
+        StringBuilder open = new StringBuilder();    // closers for the containers open at this point
+        StringBuilder keyNext = new StringBuilder(); // per open container: 'k' when an object expects a key
+        int safeEnd = -1;
+        String safeClosers = null;
+
+        boolean inString = false;
+        boolean stringIsKey = false;
+        boolean escaped = false;
+        boolean inScalar = false;
+
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (!stringIsKey) {
+                        safeEnd = i + 1;
+                        safeClosers = closers(open);
+                    }
+                }
+                continue;
+            }
+
+            boolean structural = c == '{' || c == '[' || c == '}' || c == ']' || c == ',' || c == ':' || c == '"';
+            if (inScalar && (structural || Character.isWhitespace(c))) {
+                inScalar = false;
+                safeEnd = i;
+                safeClosers = closers(open);
+            }
+            switch (c) {
+                case '{', '[' -> {
+                    if (open.isEmpty() && safeEnd >= 0) {
+                        return null; // a second top-level value: not something we can repair
+                    }
+                    open.append(c == '{' ? '}' : ']');
+                    keyNext.append(c == '{' ? 'k' : 'v');
+                    safeEnd = i + 1;
+                    safeClosers = closers(open);
+                }
+                case '}', ']' -> {
+                    if (open.isEmpty() || open.charAt(open.length() - 1) != c) {
+                        return null;
+                    }
+                    open.setLength(open.length() - 1);
+                    keyNext.setLength(keyNext.length() - 1);
+                    if (open.isEmpty()) {
+                        return null; // the document is complete, so it was not truncated
+                    }
+                    safeEnd = i + 1;
+                    safeClosers = closers(open);
+                }
+                case ':' -> {
+                    if (!keyNext.isEmpty()) keyNext.setCharAt(keyNext.length() - 1, 'v');
+                }
+                case ',' -> {
+                    if (!open.isEmpty() && open.charAt(open.length() - 1) == '}') {
+                        keyNext.setCharAt(keyNext.length() - 1, 'k');
+                    }
+                }
+                case '"' -> {
+                    inString = true;
+                    stringIsKey = !keyNext.isEmpty() && keyNext.charAt(keyNext.length() - 1) == 'k';
+                }
+                default -> {
+                    if (!Character.isWhitespace(c)) {
+                        inScalar = true;
+                    }
+                }
+            }
+        }
+
+        if (open.isEmpty() || safeEnd < 0) {
+            return null;
+        }
+        // Checkpoints sit right after a complete value or an opening bracket, so no comma or key dangles
+        return new String(buffer, start, safeEnd - start) + safeClosers;
+    }
+
+    private static String closers(StringBuilder open) {
+        return new StringBuilder(open).reverse().toString();
+    }
+}
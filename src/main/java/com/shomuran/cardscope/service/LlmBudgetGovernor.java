@@ -0,0 +1,220 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.LlmBudgetProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks OpenAI token rate and spend per use case and decides how much model we can afford.
+ * <p>
+ * Tokens are counted in a rolling 60-second window; spend is accumulated per UTC day using the
+ * configured per-model prices. Utilization is the higher of the two ratios, and each configured
+ * threshold steps the use case down one {@link Level}: cheaper model, then no web search, then
+ * cached or locally computed answers only.
+ */
+@Service
+public class LlmBudgetGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmBudgetGovernor.class);
+
+    private static final int WINDOW_SECONDS = 60;
+
+    public enum Level {
+        NORMAL, CHEAPER_MODEL, NO_WEB_SEARCH, LOCAL_ONLY
+    }
+
+    /**
+     * What the caller should send. When {@code localOnly} is true no OpenAI call should be made.
+     */
+    public record Plan(Level level, String model, boolean webSearch) {
+        public boolean localOnly() {
+            return level == Level.LOCAL_ONLY;
+        }
+    }
+
+    private final LlmBudgetProperties properties;
+    private final Clock clock;
+    private final Map<OpenAiClient.UseCase, UseCaseState> states = new EnumMap<>(OpenAiClient.UseCase.class);
+
+    @Autowired
+    public LlmBudgetGovernor(LlmBudgetProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    LlmBudgetGovernor(LlmBudgetProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        for (OpenAiClient.UseCase useCase : OpenAiClient.UseCase.values()) {
+            UseCaseState state = new UseCaseState();
+            states.put(useCase, state);
+            Gauge.builder("llm.budget.level", () -> level(useCase).ordinal())
+                    .description("0=normal, 1=cheaper model, 2=no web search, 3=local only")
+                    .tag("use_case", useCase.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("llm.budget.spend.usd", () -> state.spendMicros(today()) / 1_000_000.0)
+                    .description("OpenAI spend so far today (UTC)")
+                    .tag("use_case", useCase.getTag())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Picks model and tools for the next call of {@code useCase}.
+     */
+    public Plan plan(OpenAiClient.UseCase useCase, String defaultModel, boolean defaultWebSearch) {
+        Level level = level(useCase);
+        String fallback = budget(useCase).getFallbackModel();
+        String cheaperModel = fallback != null && !fallback.isBlank() ? fallback : defaultModel;
+
+        return switch (level) {
+            case NORMAL -> new Plan(level, defaultModel, defaultWebSearch);
+            case CHEAPER_MODEL -> new Plan(level, cheaperModel, defaultWebSearch);
+            case NO_WEB_SEARCH, LOCAL_ONLY -> new Plan(level, cheaperModel, false);
+        };
+    }
+
+    /**
+     * Called by {@link OpenAiClient} with the usage block of every successful response.
+     */
+    public void record(OpenAiClient.UseCase useCase, String model, OpenAiClient.Usage usage) {
+        UseCaseState state = states.get(useCase);
+        Level before = level(useCase);
+
+        long now = clock.millis() / 1000;
+        state.addTokens(now, usage.inputTokens() + usage.outputTokens());
+        state.addSpend(today(), costMicros(model, usage));
+
+        Level after = level(useCase);
+        if (after != before) {
+            log.warn("⚠️ LLM budget for {} moved {} → {} (tokens/min={}, spend today=${})",
+                    useCase.getTag(), before, after, state.tokensInWindow(now), String.format("%.2f", state.spendMicros(today()) / 1_000_000.0));
+        }
+    }
+
+    public Level level(OpenAiClient.UseCase useCase) {
+        double utilization = utilization(useCase);
+        if (utilization >= properties.getLocalOnlyAt()) return Level.LOCAL_ONLY;
+        if (utilization >= properties.getNoWebSearchAt()) return Level.NO_WEB_SEARCH;
+        if (utilization >= properties.getCheaperModelAt()) return Level.CHEAPER_MODEL;
+        return Level.NORMAL;
+    }
+
+    /**
+     * State per use case for the admin endpoint.
+     */
+    public Map<String, Object> snapshot() {
+        long now = clock.millis() / 1000;
+        LocalDate today = today();
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (OpenAiClient.UseCase useCase : OpenAiClient.UseCase.values()) {
+            UseCaseState state = states.get(useCase);
+            LlmBudgetProperties.UseCaseBudget budget = budget(useCase);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("level", level(useCase));
+            entry.put("utilization", utilization(useCase));
+            entry.put("tokensLastMinute", state.tokensInWindow(now));
+            entry.put("tokensPerMinuteLimit", budget.getTokensPerMinute());
+            entry.put("spendTodayUsd", state.spendMicros(today) / 1_000_000.0);
+            entry.put("dailySpendLimitUsd", budget.getDailySpendUsd());
+            entry.put("fallbackModel", budget.getFallbackModel());
+            result.put(useCase.getTag(), entry);
+        }
+        return result;
+    }
+
+    private double utilization(OpenAiClient.UseCase useCase) {
+        UseCaseState state = states.get(useCase);
+        LlmBudgetProperties.UseCaseBudget budget = budget(useCase);
+        long now = clock.millis() / 1000;
+
+        double tokenRatio = budget.getTokensPerMinute() > 0
+                ? (double) state.tokensInWindow(now) / budget.getTokensPerMinute()
+                : 0;
+        double spendRatio = budget.getDailySpendUsd() > 0
+                ? state.spendMicros(today()) / (budget.getDailySpendUsd() * 1_000_000.0)
+                : 0;
+        return Math.max(tokenRatio, spendRatio);
+    }
+
+    private LlmBudgetProperties.UseCaseBudget budget(OpenAiClient.UseCase useCase) {
+        return properties.getUseCases().computeIfAbsent(useCase.getTag(), tag -> new LlmBudgetProperties.UseCaseBudget());
+    }
+
+    private long costMicros(String model, OpenAiClient.Usage usage) {
+        LlmBudgetProperties.ModelPrice price = properties.getPricing().get(model);
+        if (price == null) {
+            return 0;
+        }
+        long uncachedInput = Math.max(0, usage.inputTokens() - usage.cachedInputTokens());
+        // price is USD per 1M tokens, so tokens * price is exactly micro-dollars
+        double micros = uncachedInput * price.getInputPerMillion()
+                + usage.cachedInputTokens() * price.getCachedInputPerMillion()
+                + usage.outputTokens() * price.getOutputPerMillion();
+        return Math.round(micros);
+    }
+
+    private LocalDate today() {
+        return LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Lock-free counters: a ring of per-second token buckets and a day-stamped spend total.
+     */
+    private static final class UseCaseState {
+        private final AtomicLongArray bucketTokens = new AtomicLongArray(WINDOW_SECONDS);
+        private final AtomicLongArray bucketSecond = new AtomicLongArray(WINDOW_SECONDS);
+        private final AtomicReference<LocalDate> spendDay = new AtomicReference<>(LocalDate.MIN);
+        private final AtomicLong spendMicros = new AtomicLong();
+
+        void addTokens(long epochSecond, long tokens) {
+            int slot = (int) (epochSecond % WINDOW_SECONDS);
+            long stamped = bucketSecond.get(slot);
+            if (stamped != epochSecond && bucketSecond.compareAndSet(slot, stamped, epochSecond)) {
+                bucketTokens.set(slot, 0);
+            }
+            bucketTokens.addAndGet(slot, tokens);
+        }
+
+        long tokensInWindow(long epochSecond) {
+            long total = 0;
+            for (int slot = 0; slot < WINDOW_SECONDS; slot++) {
+                if (epochSecond - bucketSecond.get(slot) < WINDOW_SECONDS) {
+                    total += bucketTokens.get(slot);
+                }
+            }
+            return total;
+        }
+
+        void addSpend(LocalDate day, long micros) {
+            rollDay(day);
+            spendMicros.addAndGet(micros);
+        }
+
+        long spendMicros(LocalDate day) {
+            rollDay(day);
+            return spendMicros.get();
+        }
+
+        private void rollDay(LocalDate day) {
+            LocalDate current = spendDay.get();
+            if (!current.equals(day) && spendDay.compareAndSet(current, day)) {
+                spendMicros.set(0);
+            }
+        }
+    }
+}
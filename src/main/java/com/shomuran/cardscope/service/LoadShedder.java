@@ -0,0 +1,136 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.InboundProtectionProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission gate for the expensive endpoints that sheds load based on measured queueing delay.
+ * <p>
+ * At most {@code max-concurrent} requests run at once and up to {@code max-queued} wait for a slot. The time
+ * each one waits is the queueing delay. Following CoDel, if even the shortest wait in an {@code interval} was
+ * above {@code target-delay}, there is a standing queue and the gate switches to overloaded: new requests
+ * then only wait up to the target before being rejected, which drains the queue quickly. The gate returns to
+ * normal after an interval whose shortest wait was back under the target.
+ * <p>
+ * Because waiting is capped, the expensive endpoints can hold at most {@code max-concurrent + max-queued}
+ * servlet threads, leaving the rest for cheap endpoints.
+ */
+@Service
+public class LoadShedder {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadShedder.class);
+
+    private final InboundProtectionProperties.Shedding settings;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer queueDelay;
+
+    private final long targetNanos;
+    private final long intervalNanos;
+
+    private final LongSupplier nanoTime;
+
+    private volatile boolean overloaded;
+    private long intervalStart;
+    private long minDelayInInterval = Long.MAX_VALUE;
+
+    @Autowired
+    public LoadShedder(InboundProtectionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    LoadShedder(InboundProtectionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.intervalStart = nanoTime.getAsLong();
+        this.settings = properties.getShedding();
+        this.slots = new Semaphore(Math.max(1, settings.getMaxConcurrent()), true);
+        this.targetNanos = settings.getTargetDelay().toNanos();
+        this.intervalNanos = settings.getInterval().toNanos();
+
+        this.queueDelay = Timer.builder("http.inbound.queue.delay")
+                .description("Time expensive requests waited for an execution slot")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("http.inbound.inflight", slots, s -> settings.getMaxConcurrent() - s.availablePermits())
+                .description("Expensive requests currently executing")
+                .register(meterRegistry);
+        Gauge.builder("http.inbound.queued", queued, AtomicInteger::get)
+                .description("Expensive requests waiting for a slot")
+                .register(meterRegistry);
+        Gauge.builder("http.inbound.overloaded", this, shedder -> shedder.isOverloaded() ? 1 : 0)
+                .description("1 while the load shedder is rejecting on queueing delay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits for an execution slot. Callers that get {@code true} must call {@link #exit()} when done.
+     */
+    public boolean tryEnter() {
+        roll(nanoTime.getAsLong());
+        if (queued.incrementAndGet() > settings.getMaxQueued() + slots.availablePermits()) {
+            queued.decrementAndGet();
+            return false;
+        }
+        long start = nanoTime.getAsLong();
+        boolean admitted = false;
+        try {
+            long maxWait = overloaded ? targetNanos : settings.getMaxWait().toNanos();
+            admitted = slots.tryAcquire(maxWait, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+        }
+        long delay = nanoTime.getAsLong() - start;
+        queueDelay.record(delay, TimeUnit.NANOSECONDS);
+        sample(delay);
+        return admitted;
+    }
+
+    public void exit() {
+        slots.release();
+    }
+
+    public boolean isOverloaded() {
+        roll(nanoTime.getAsLong());
+        return overloaded;
+    }
+
+    /** Seconds a rejected client should wait: one measurement interval, at least a second. */
+    public long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(intervalNanos + 999_999_999));
+    }
+
+    private synchronized void sample(long delayNanos) {
+        minDelayInInterval = Math.min(minDelayInInterval, delayNanos);
+        roll(nanoTime.getAsLong());
+    }
+
+    private synchronized void roll(long now) {
+        if (now - intervalStart < intervalNanos) {
+            return;
+        }
+        // No samples in the last interval means no queue
+        boolean next = minDelayInInterval != Long.MAX_VALUE && minDelayInInterval > targetNanos;
+        if (next != overloaded) {
+            log.warn(next ? "🚦 Load shedding ON: min queueing delay {} ms > target {} ms"
+                            : "✅ Load shedding OFF: min queueing delay {} ms within target {} ms",
+                    minDelayInInterval == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(minDelayInInterval),
+                    TimeUnit.NANOSECONDS.toMillis(targetNanos));
+        }
+        overloaded = next;
+        intervalStart = now;
+        minDelayInInterval = Long.MAX_VALUE;
+    }
+}
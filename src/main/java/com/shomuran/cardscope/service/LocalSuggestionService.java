@@ -0,0 +1,143 @@
+package com.shomuran.cardscope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.model.UserCard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Answers card-suggestion requests without OpenAI when the LLM budget is exhausted.
+ * <p>
+ * Successful model answers are remembered for a while (keyed by use case, the user's cards, store, category
+ * and quarter)
+ * and replayed first; otherwise the stored reward details are compiled with {@link RewardRuleCompiler}
+ * and the cards are ranked by their best matching rate.
+ */
+@Service
+public class LocalSuggestionService {
+
+    private static final int TOP_N = 3;
+
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private RewardRuleCompiler rewardRuleCompiler;
+
+    private final Cache<String, Map<String, Object>> answers;
+
+    public LocalSuggestionService(MeterRegistry meterRegistry,
+                                  @Value("${app.llm.answer-cache.max-size:5000}") long maxSize,
+                                  @Value("${app.llm.answer-cache.ttl:6h}") Duration ttl) {
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, answers, "llm.answers");
+    }
+
+    /**
+     * Everything the answer depends on: the cards, store, category and quarter. A request without a quarter is
+     * answered for the current one, so its key carries today's quarter and expires with it.
+     */
+    public static String answerKey(OpenAiClient.UseCase useCase, List<UserCard> userCards, String store,
+                                   String category, String currentQuarter) {
+        List<String> cards = userCards.stream()
+                .map(uc -> (uc.getIssuer() + " " + uc.getCardProduct()).toLowerCase(Locale.ROOT))
+                .sorted()
+                .toList();
+        LocalDate today = LocalDate.now();
+        String quarter = currentQuarter == null || currentQuarter.isBlank()
+                ? today.getYear() + "-" + RewardRuleCompiler.quarterOf(today)
+                : currentQuarter;
+        return useCase.getTag() + "|" + String.join(",", cards) + "|" + normalize(store)
+                + "|" + normalize(category) + "|" + normalize(quarter);
+    }
+
+    private static String normalize(String part) {
+        return part == null ? "" : part.toLowerCase(Locale.ROOT).trim();
+    }
+
+    public void remember(String key, Map<String, Object> answer) {
+        answers.put(key, answer);
+    }
+
+    /**
+     * A previously remembered model answer for {@code key}, or a ranking computed from stored reward details.
+     * The result carries {@code "source": "cache" | "local"}.
+     */
+    public Map<String, Object> answer(String key, List<UserCard> userCards, String store, String category) {
+        Map<String, Object> cached = answers.getIfPresent(key);
+        if (cached != null) {
+            Map<String, Object> result = new LinkedHashMap<>(cached);
+            result.put("source", "cache");
+            return result;
+        }
+        return rank(userCards, store, category);
+    }
+
+    /**
+     * Ranks the user's cards for {@code store}/{@code category} using compiled reward rules.
+     */
+    public Map<String, Object> rank(List<UserCard> userCards, String store, String category) {
+        String quarter = RewardRuleCompiler.quarterOf(LocalDate.now());
+        String target = RewardRuleCompiler.normalizeCategory(category);
+        String storeLower = store == null ? "" : store.toLowerCase(Locale.ROOT);
+
+        List<Map<String, Object>> ranked = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (UserCard card : userCards) {
+            RewardRuleCompiler.CompiledCard compiled = compile(card);
+            RewardRuleCompiler.Rule best = null;
+            for (RewardRuleCompiler.Rule rule : compiled.rules()) {
+                if (rule.kind() == RewardRuleCompiler.RuleKind.ROTATING && !quarter.equals(rule.quarter())) continue;
+                boolean matches = rule.category().equals(target) && !"other".equals(target)
+                        || (!storeLower.isEmpty() && rule.label() != null && storeLower.contains(rule.label().toLowerCase(Locale.ROOT)));
+                if (matches && (best == null || rule.rate() > best.rate())) {
+                    best = rule;
+                }
+            }
+
+            double score = best != null && best.rate() > compiled.baseRate() ? best.rate() : compiled.baseRate();
+            Map<String, Object> suggestion = new LinkedHashMap<>();
+            suggestion.put("card_name", compiled.cardName());
+            if (best != null && best.rate() > compiled.baseRate()) {
+                suggestion.put("expected_reward", best.rateText());
+                suggestion.put("reasoning", best.label() + (best.cap() != null ? " (cap: " + best.cap() + ")" : "")
+                        + (best.kind() == RewardRuleCompiler.RuleKind.ROTATING ? " — " + quarter + " rotating category" : ""));
+            } else {
+                suggestion.put("expected_reward", compiled.baseRateText() != null ? compiled.baseRateText() : "base rate");
+                suggestion.put("reasoning", "Base rate on all purchases");
+            }
+
+            int index = 0;
+            while (index < scores.size() && scores.get(index) >= score) index++;
+            scores.add(index, score);
+            ranked.add(index, suggestion);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("store", store);
+        result.put("category", category != null ? category : target);
+        result.put("currentQuarter", quarter);
+        result.put("suggestions", ranked.subList(0, Math.min(TOP_N, ranked.size())));
+        result.put("source", "local");
+        return result;
+    }
+
+    private RewardRuleCompiler.CompiledCard compile(UserCard card) {
+        Object parsed = cardCatalogCache.find(card.getIssuer(), card.getCardProduct())
+                .map(CardCatalogCache.Entry::rewards)
+                .orElse(Map.of());
+        return rewardRuleCompiler.compile(card.getIssuer(), card.getCardProduct(), parsed != null ? parsed : Map.of());
+    }
+}
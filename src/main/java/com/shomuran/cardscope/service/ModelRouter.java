@@ -0,0 +1,251 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.ModelRoutingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Picks the model and tools for each OpenAI call from {@code app.llm.routing} instead of hardcoded names.
+ * <p>
+ * A call starts on the first tier of its route that accepts the prompt size and whose rolling p90 latency is
+ * within the route's SLO (if no tier meets the SLO, the fastest eligible one). When the answer fails the
+ * caller's validation and there is still time left in the SLO, the call is repeated one tier up. The
+ * {@link LlmBudgetGovernor} still has the last word on each attempt's model and web search.
+ * <p>
+ * Rolling latency and outcome stats per tier are kept for {@code /api/admin/llm-routes} and recorded as
+ * {@code llm.route.requests}. Samples older than {@code stats-max-age} drop out, so a tier that was skipped
+ * for being slow is tried again once its slow samples have expired.
+ */
+@Service
+public class ModelRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRouter.class);
+
+    private final ModelRoutingProperties properties;
+    private final LlmBudgetGovernor llmBudgetGovernor;
+    private final OpenAiClient openAiClient;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+    // Tier does not override equals, so each configured tier has its own stats, even two on the same model
+    private final Map<ModelRoutingProperties.Tier, RollingStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ModelRouter(ModelRoutingProperties properties, LlmBudgetGovernor llmBudgetGovernor,
+                       OpenAiClient openAiClient, MeterRegistry meterRegistry) {
+        this(properties, llmBudgetGovernor, openAiClient, meterRegistry, System::nanoTime);
+    }
+
+    ModelRouter(ModelRoutingProperties properties, LlmBudgetGovernor llmBudgetGovernor,
+                OpenAiClient openAiClient, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.properties = properties;
+        this.llmBudgetGovernor = llmBudgetGovernor;
+        this.openAiClient = openAiClient;
+        this.meterRegistry = meterRegistry;
+
+        List<String> missing = Arrays.stream(OpenAiClient.UseCase.values())
+                .map(OpenAiClient.UseCase::getTag)
+                .filter(tag -> {
+                    ModelRoutingProperties.Route route = properties.getRoutes().get(tag);
+                    return route == null || route.getTiers().isEmpty();
+                })
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("No app.llm.routing.routes tiers configured for " + missing);
+        }
+    }
+
+    /**
+     * True when the budget allows no OpenAI call for {@code useCase}; callers answer locally instead.
+     */
+    public boolean localOnly(OpenAiClient.UseCase useCase) {
+        return llmBudgetGovernor.level(useCase) == LlmBudgetGovernor.Level.LOCAL_ONLY;
+    }
+
+    /**
+     * Calls OpenAI on the routed tier, escalating while {@code valid} rejects the answer.
+     *
+     * @param promptChars total prompt length, used to skip tiers that cannot take it
+     * @param requestBody builds the Responses API body for the planned model and tools
+     * @return the first valid result, or the last attempt's result
+     */
+    public <T> OpenAiClient.Result<T> call(OpenAiClient.UseCase useCase, int promptChars,
+                                           Function<LlmBudgetGovernor.Plan, Map<String, Object>> requestBody,
+                                           Class<T> answerType, Predicate<T> valid) throws IOException {
+        ModelRoutingProperties.Route route = properties.getRoutes().get(useCase.getTag());
+        List<ModelRoutingProperties.Tier> tiers = route.getTiers().stream()
+                .filter(tier -> tier.getMaxPromptChars() <= 0 || promptChars <= tier.getMaxPromptChars())
+                .toList();
+        if (tiers.isEmpty()) {
+            // Larger than every limit: the last (strongest) tier is the best we have
+            tiers = List.of(route.getTiers().get(route.getTiers().size() - 1));
+        }
+
+        long sloMillis = route.getLatencySlo().toMillis();
+        long start = nanoTime.getAsLong();
+        OpenAiClient.Result<T> result = null;
+        for (int index = startTier(tiers, sloMillis); index < tiers.size(); index++) {
+            ModelRoutingProperties.Tier tier = tiers.get(index);
+            LlmBudgetGovernor.Plan plan = llmBudgetGovernor.plan(useCase, tier.getModel(), tier.isWebSearch());
+
+            long attemptStart = nanoTime.getAsLong();
+            String outcome = "error";
+            try {
+                result = openAiClient.createResponse(useCase, requestBody.apply(plan), answerType);
+                outcome = !result.isSuccessful() ? "http_error"
+                        : result.answer() != null && valid.test(result.answer()) ? "valid" : "invalid";
+            } finally {
+                record(useCase, tier, plan.model(), outcome, nanoTime.getAsLong() - attemptStart);
+            }
+
+            if (!"invalid".equals(outcome)) {
+                return result;
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - start);
+            if (index + 1 < tiers.size() && elapsed < sloMillis) {
+                log.info("⬆️ {} answer from {} failed validation — escalating to {}",
+                        useCase.getTag(), plan.model(), tiers.get(index + 1).getModel());
+            } else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rolling stats per route and tier, for the admin endpoint.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (OpenAiClient.UseCase useCase : OpenAiClient.UseCase.values()) {
+            ModelRoutingProperties.Route route = properties.getRoutes().get(useCase.getTag());
+            List<Map<String, Object>> tiers = new ArrayList<>();
+            for (ModelRoutingProperties.Tier tier : route.getTiers()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("model", tier.getModel());
+                entry.put("webSearch", tier.isWebSearch());
+                entry.put("maxPromptChars", tier.getMaxPromptChars());
+                entry.putAll(stats(tier).summary(nanoTime.getAsLong()));
+                tiers.add(entry);
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("latencySloMs", route.getLatencySlo().toMillis());
+            entry.put("tiers", tiers);
+            result.put(useCase.getTag(), entry);
+        }
+        return result;
+    }
+
+    private int startTier(List<ModelRoutingProperties.Tier> tiers, long sloMillis) {
+        long now = nanoTime.getAsLong();
+        int fastest = 0;
+        long fastestP90 = Long.MAX_VALUE;
+        for (int index = 0; index < tiers.size(); index++) {
+            long[] recent = stats(tiers.get(index)).latencies(now);
+            long p90 = recent.length >= properties.getMinSamples() ? percentile(recent, 0.90) : 0;
+            if (p90 <= sloMillis) {
+                return index;
+            }
+            if (p90 < fastestP90) {
+                fastest = index;
+                fastestP90 = p90;
+            }
+        }
+        return fastest;
+    }
+
+    private void record(OpenAiClient.UseCase useCase, ModelRoutingProperties.Tier tier, String model,
+                        String outcome, long nanos) {
+        stats(tier).add(nanoTime.getAsLong(), TimeUnit.NANOSECONDS.toMillis(nanos), "valid".equals(outcome));
+        Timer.builder("llm.route.requests")
+                .description("Routed OpenAI attempts by route, model and outcome")
+                .tag("route", useCase.getTag())
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private RollingStats stats(ModelRoutingProperties.Tier tier) {
+        return stats.computeIfAbsent(tier, key -> new RollingStats(Math.max(1, properties.getStatsWindow()),
+                properties.getStatsMaxAge().toNanos()));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    /**
+     * The latest {@code window} attempts younger than {@code maxAgeNanos}: latency and whether the answer
+     * was valid.
+     */
+    private static final class RollingStats {
+        private final long[] latencies;
+        private final long[] recordedAt;
+        private final boolean[] valid;
+        private final long maxAgeNanos;
+        private int next;
+        private int size;
+
+        RollingStats(int window, long maxAgeNanos) {
+            this.latencies = new long[window];
+            this.recordedAt = new long[window];
+            this.valid = new boolean[window];
+            this.maxAgeNanos = maxAgeNanos;
+        }
+
+        synchronized void add(long now, long millis, boolean ok) {
+            latencies[next] = millis;
+            recordedAt[next] = now;
+            valid[next] = ok;
+            next = (next + 1) % latencies.length;
+            size = Math.min(size + 1, latencies.length);
+        }
+
+        /**
+         * Sorted latencies of the samples that have not expired.
+         */
+        synchronized long[] latencies(long now) {
+            long[] recent = new long[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (now - recordedAt[i] <= maxAgeNanos) {
+                    recent[count++] = latencies[i];
+                }
+            }
+            recent = Arrays.copyOf(recent, count);
+            Arrays.sort(recent);
+            return recent;
+        }
+
+        synchronized Map<String, Object> summary(long now) {
+            long[] recent = latencies(now);
+            int ok = 0;
+            for (int i = 0; i < size; i++) {
+                if (valid[i] && now - recordedAt[i] <= maxAgeNanos) ok++;
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("calls", recent.length);
+            summary.put("successRate", recent.length == 0 ? null : (double) ok / recent.length);
+            summary.put("p50Ms", percentile(recent, 0.50));
+            summary.put("p90Ms", percentile(recent, 0.90));
+            summary.put("p99Ms", percentile(recent, 0.99));
+            return summary;
+        }
+    }
+}
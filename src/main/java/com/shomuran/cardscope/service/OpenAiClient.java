@@ -0,0 +1,323 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared caller for the OpenAI Responses API.
+ * <p>
+ * All use cases share one connection pool; each gets the timeouts it used before.
+ * Every call records {@code openai.requests} (latency by use case, model, HTTP status and prompt cache
+ * hit/partial/miss), {@code openai.prompt.cache.ratio} (cached share of the input tokens)
+ * and {@code openai.tokens} (from the response {@code usage} block); {@code openai.answers} counts whether the
+ * answer parsed, needed repair after truncation, or could not be used.
+ * <p>
+ * Interactive calls can be hedged ({@link OpenAiHedgePolicy}): when the first request is slower than usual,
+ * an identical second one is sent, the first response wins and the other call is cancelled.
+ * {@code openai.hedge} counts hedges by outcome. The provider may still bill the cancelled call for its input,
+ * so every hedge charges {@link LlmBudgetGovernor} an input-only estimate (about four bytes of request JSON
+ * per token) on top of the winner's reported usage.
+ */
+@Service
+public class OpenAiClient {
+
+    public enum UseCase {
+        SUGGESTION("suggestion", 10, 10, 10, 0),
+        SUGGESTION_JSON("suggestion-json", 30, 60, 60, 0),
+        REWARD("reward", 60, 120, 180, 180);
+
+        private final String tag;
+        private final int connectTimeoutSeconds;
+        private final int writeTimeoutSeconds;
+        private final int readTimeoutSeconds;
+        private final int callTimeoutSeconds;
+
+        UseCase(String tag, int connectTimeoutSeconds, int writeTimeoutSeconds, int readTimeoutSeconds, int callTimeoutSeconds) {
+            this.tag = tag;
+            this.connectTimeoutSeconds = connectTimeoutSeconds;
+            this.writeTimeoutSeconds = writeTimeoutSeconds;
+            this.readTimeoutSeconds = readTimeoutSeconds;
+            this.callTimeoutSeconds = callTimeoutSeconds;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * Longest a call can take before it fails with a timeout.
+         */
+        long maxLatencyMillis() {
+            return TimeUnit.SECONDS.toMillis(callTimeoutSeconds > 0 ? callTimeoutSeconds
+                    : connectTimeoutSeconds + writeTimeoutSeconds + readTimeoutSeconds);
+        }
+    }
+
+    /**
+     * Token usage as reported by the API; zero when the response had no usage block.
+     */
+    public record Usage(long inputTokens, long outputTokens, long cachedInputTokens) {
+        public static final Usage NONE = new Usage(0, 0, 0);
+    }
+
+    /**
+     * {@code answer} is the first {@code output_text} bound to the requested type, or null when the model
+     * produced none ({@code unparsedText} null) or it did not match the type ({@code unparsedText} holds it).
+     */
+    public record Result<T>(int httpStatus, String message, String model, T answer, String unparsedText, Usage usage) {
+        public boolean isSuccessful() {
+            return httpStatus >= 200 && httpStatus < 300;
+        }
+    }
+
+    /** Cached share of the input from which a call counts as a prompt cache hit (the static prefix was served). */
+    private static final double CACHE_HIT_RATIO = 0.5;
+
+    /** Rough size of one input token in request JSON, used to charge hedged calls that never report usage. */
+    private static final int BYTES_PER_TOKEN = 4;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LlmBudgetGovernor llmBudgetGovernor;
+
+    @Autowired
+    private OpenAiResponseReader responseReader;
+
+    @Autowired
+    private OpenAiHedgePolicy hedgePolicy;
+
+    @Value("${openai.api.key}")
+    private String openAiKey;
+
+    // Overridable so load tests can point at a local stand-in
+    @Value("${openai.base-url:https://api.openai.com}")
+    private String openAiBaseUrl;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<UseCase, OkHttpClient> clients = new EnumMap<>(UseCase.class);
+    private final OkHttpClient preconnectClient;
+
+    public OpenAiClient() {
+        // Hedged calls go through the async dispatcher, whose default of 5 calls per host would queue them
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(256);
+        dispatcher.setMaxRequestsPerHost(256);
+        OkHttpClient base = new OkHttpClient.Builder().dispatcher(dispatcher).build();
+        preconnectClient = base.newBuilder().callTimeout(5, TimeUnit.SECONDS).build();
+        for (UseCase useCase : UseCase.values()) {
+            OkHttpClient.Builder builder = base.newBuilder()
+                    .connectTimeout(useCase.connectTimeoutSeconds, TimeUnit.SECONDS)
+                    .writeTimeout(useCase.writeTimeoutSeconds, TimeUnit.SECONDS)
+                    .readTimeout(useCase.readTimeoutSeconds, TimeUnit.SECONDS)
+                    .callTimeout(useCase.callTimeoutSeconds, TimeUnit.SECONDS);
+            clients.put(useCase, builder.build());
+        }
+    }
+
+    /**
+     * Posts {@code requestBody} to /v1/responses and binds the first {@code output_text} to {@code answerType}.
+     * Non-2xx answers are returned, not thrown; I/O failures (including timeouts) propagate as {@link IOException}.
+     */
+    public <T> Result<T> createResponse(UseCase useCase, Map<String, Object> requestBody, Class<T> answerType) throws IOException {
+        String model = String.valueOf(requestBody.get("model"));
+
+        byte[] json = mapper.writeValueAsBytes(requestBody);
+        RequestBody body = RequestBody.create(MediaType.parse("application/json"), json);
+
+        Request request = new Request.Builder()
+                .url(openAiBaseUrl + "/v1/responses")
+                .header("Authorization", "Bearer " + openAiKey)
+                .header("Content-Type", "application/json")
+                .post(body)
+                .build();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "io_error";
+        String promptCache = "unknown";
+        try (Response response = execute(useCase, model, request, json.length)) {
+            status = String.valueOf(response.code());
+            if (!response.isSuccessful()) {
+                return new Result<>(response.code(), response.message(), model, null, null, Usage.NONE);
+            }
+
+            OpenAiResponseReader.Reply<T> reply = responseReader.read(response.body().byteStream(), answerType);
+            recordTokens(useCase, model, reply.usage());
+            promptCache = recordPromptCache(useCase, model, reply.usage());
+            meterRegistry.counter("openai.answers", "use_case", useCase.tag, "outcome",
+                    reply.answer() == null ? (reply.hasOutputText() ? "invalid" : "missing")
+                            : reply.repaired() ? "repaired" : "parsed").increment();
+            llmBudgetGovernor.record(useCase, model, reply.usage());
+            return new Result<>(response.code(), response.message(), model, reply.answer(), reply.unparsedText(), reply.usage());
+        } finally {
+            sample.stop(Timer.builder("openai.requests")
+                    .description("OpenAI Responses API call latency")
+                    .tag("use_case", useCase.tag)
+                    .tag("model", model)
+                    .tag("status", status)
+                    .tag("prompt_cache", promptCache)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Sends {@code request}, hedging it when the policy says so. The returned response is the first one to
+     * arrive; the other call is cancelled.
+     */
+    private Response execute(UseCase useCase, String model, Request request, int bodyBytes) throws IOException {
+        long hedgeAfter = hedgePolicy.hedgeDelayMillis(useCase);
+        OkHttpClient client = clients.get(useCase);
+        long start = System.nanoTime();
+        if (hedgeAfter < 0) {
+            Response response = client.newCall(request).execute();
+            hedgePolicy.recordLatency(useCase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return response;
+        }
+
+        CompletableFuture<Arrival> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        Call primary = client.newCall(request);
+        Call hedge = null;
+        primary.enqueue(raceCallback(first, pending));
+        try {
+            Arrival arrival;
+            try {
+                arrival = first.get(hedgeAfter, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException slow) {
+                if (hedgePolicy.tryHedge(useCase)) {
+                    pending.incrementAndGet();
+                    hedge = client.newCall(request);
+                    hedge.enqueue(raceCallback(first, pending));
+                    hedgeCounter(useCase, "sent").increment();
+                    // The losing call reports no usage, so charge its input up front
+                    llmBudgetGovernor.record(useCase, model, new Usage(bodyBytes / BYTES_PER_TOKEN, 0, 0));
+                } else {
+                    hedgeCounter(useCase, "budget_exhausted").increment();
+                }
+                arrival = first.get();
+            }
+            // The policy needs the primary's latency. When the hedge won, the primary is only known to be
+            // slower than the hedge delay; counting it as the slowest possible keeps it above the threshold
+            // however far the threshold moves, which the time so far would not.
+            hedgePolicy.recordLatency(useCase, arrival.call() == primary
+                    ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                    : useCase.maxLatencyMillis());
+            if (hedge != null) {
+                hedgeCounter(useCase, arrival.call() == hedge ? "hedge_won" : "primary_won").increment();
+            }
+            return arrival.response();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for OpenAI");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } finally {
+            // Cancel whichever call did not win (both on failure); cancelling a finished call is a no-op
+            Arrival winner = first.getNow(null);
+            if (winner == null || winner.call() != primary) primary.cancel();
+            if (hedge != null && (winner == null || winner.call() != hedge)) hedge.cancel();
+        }
+    }
+
+    private record Arrival(Call call, Response response) {
+    }
+
+    /**
+     * Completes {@code first} with the first response; later responses are closed, and the race only fails
+     * once every call has failed.
+     */
+    private static Callback raceCallback(CompletableFuture<Arrival> first, AtomicInteger pending) {
+        return new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!first.complete(new Arrival(call, response))) {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (pending.decrementAndGet() == 0) {
+                    first.completeExceptionally(e);
+                }
+            }
+        };
+    }
+
+    private Counter hedgeCounter(UseCase useCase, String outcome) {
+        return Counter.builder("openai.hedge")
+                .description("Hedged OpenAI requests by outcome")
+                .tag("use_case", useCase.tag)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens (or keeps alive) a pooled connection to the API host, so the next call skips DNS, TCP and TLS setup.
+     * Any HTTP status counts; returns false only when the host could not be reached.
+     */
+    public boolean preconnect() {
+        Request request = new Request.Builder()
+                .url(openAiBaseUrl + "/v1/models")
+                .head()
+                .build();
+        try (Response ignored = preconnectClient.newCall(request).execute()) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void recordTokens(UseCase useCase, String model, Usage usage) {
+        tokenCounter(useCase, model, "input").increment(usage.inputTokens());
+        tokenCounter(useCase, model, "output").increment(usage.outputTokens());
+        tokenCounter(useCase, model, "cached_input").increment(usage.cachedInputTokens());
+    }
+
+    /**
+     * Share of the input served from the provider's prompt cache; returns hit, partial or miss for the latency tag.
+     */
+    private String recordPromptCache(UseCase useCase, String model, Usage usage) {
+        if (usage.inputTokens() <= 0) {
+            return "unknown";
+        }
+        double ratio = Math.min(1.0, (double) usage.cachedInputTokens() / usage.inputTokens());
+        DistributionSummary.builder("openai.prompt.cache.ratio")
+                .description("Cached input tokens / input tokens per OpenAI call")
+                .tag("use_case", useCase.tag)
+                .tag("model", model)
+                .register(meterRegistry)
+                .record(ratio);
+        if (usage.cachedInputTokens() == 0) {
+            return "miss";
+        }
+        return ratio >= CACHE_HIT_RATIO ? "hit" : "partial";
+    }
+
+    private Counter tokenCounter(UseCase useCase, String model, String type) {
+        return Counter.builder("openai.tokens")
+                .description("Tokens reported in the OpenAI usage block")
+                .tag("use_case", useCase.tag)
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.OpenAiHedgingProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decides when {@link OpenAiClient} sends a hedge (a second, identical request) for a slow interactive call.
+ * <p>
+ * Per use case it keeps the latest {@code window} response times and hedges once a call has run longer than
+ * the configured {@code percentile} of them (never before {@code min-delay}). Hedges are paid for from a
+ * budget that earns {@code max-extra-ratio} of a hedge per call, so extra requests stay under that share
+ * of traffic even when OpenAI is slow across the board.
+ */
+@Service
+public class OpenAiHedgePolicy {
+
+    private final OpenAiHedgingProperties properties;
+    private final Map<OpenAiClient.UseCase, UseCaseState> states = new EnumMap<>(OpenAiClient.UseCase.class);
+
+    public OpenAiHedgePolicy(OpenAiHedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (OpenAiClient.UseCase useCase : OpenAiClient.UseCase.values()) {
+            if (properties.getUseCases().contains(useCase.getTag())) {
+                UseCaseState state = new UseCaseState(Math.max(1, properties.getWindow()));
+                states.put(useCase, state);
+                Gauge.builder("openai.hedge.delay", state, s -> s.thresholdMillis)
+                        .description("Current hedge delay in ms (-1 until enough latencies are recorded)")
+                        .baseUnit("milliseconds")
+                        .tag("use_case", useCase.getTag())
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    /**
+     * How long to wait for the first request before hedging, or -1 when this use case is not hedged (yet).
+     * Every call made through {@link OpenAiClient} counts towards the hedge budget here.
+     */
+    public long hedgeDelayMillis(OpenAiClient.UseCase useCase) {
+        UseCaseState state = states.get(useCase);
+        if (!properties.isEnabled() || state == null) {
+            return -1;
+        }
+        state.earn(properties.getMaxExtraRatio(), properties.getMaxSavedHedges());
+        long threshold = state.thresholdMillis;
+        return threshold < 0 ? -1 : Math.max(threshold, properties.getMinDelay().toMillis());
+    }
+
+    /**
+     * Spends one hedge from the budget; false when the budget is used up.
+     */
+    public boolean tryHedge(OpenAiClient.UseCase useCase) {
+        UseCaseState state = states.get(useCase);
+        return state != null && state.spend();
+    }
+
+    /**
+     * Records how long the first request of a call took to produce response headers. A first request that lost
+     * to its hedge is recorded as its timeout, since only a lower bound for it is known.
+     */
+    public void recordLatency(OpenAiClient.UseCase useCase, long millis) {
+        UseCaseState state = states.get(useCase);
+        if (state != null) {
+            state.record(millis, properties.getPercentile(), properties.getMinSamples());
+        }
+    }
+
+    private static final class UseCaseState {
+        private static final int RECOMPUTE_EVERY = 16;
+
+        private final long[] latencies;
+        private int next;
+        private int count;
+        private double credits;
+        private volatile long thresholdMillis = -1;
+
+        UseCaseState(int window) {
+            this.latencies = new long[window];
+        }
+
+        synchronized void earn(double perCall, int max) {
+            credits = Math.min(max, credits + perCall);
+        }
+
+        synchronized boolean spend() {
+            if (credits < 1) {
+                return false;
+            }
+            credits -= 1;
+            return true;
+        }
+
+        synchronized void record(long millis, double percentile, int minSamples) {
+            latencies[next] = millis;
+            next = (next + 1) % latencies.length;
+            count++;
+            if (count >= minSamples && count % RECOMPUTE_EVERY == 0 || count == minSamples) {
+                long[] sorted = Arrays.copyOf(latencies, Math.min(count, latencies.length));
+                Arrays.sort(sorted);
+                int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+                thresholdMillis = sorted[Math.max(0, index)];
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Single-pass streaming reader for Responses API bodies.
+ * <p>
+ * Walks the token stream once, skipping everything except the first {@code output_text} item and the
+ * {@code usage} block. The output text is bound straight from the parser's character buffer into the
+ * caller's answer type, so neither the body nor the model text is materialized as a String or tree.
+ */
+@Component
+public class OpenAiResponseReader {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenAiResponseReader.class);
+
+    private static final String FENCE = "```";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param answer       the first output_text bound to the answer type, or null
+     * @param unparsedText the first output_text, only when it could not be bound to the answer type
+     * @param hasOutputText whether an output_text item was present at all
+     * @param repaired     whether the answer was bound only after closing truncated JSON ({@link JsonRepair})
+     */
+    public record Reply<T>(T answer, String unparsedText, boolean hasOutputText, boolean repaired,
+                           OpenAiClient.Usage usage) {
+    }
+
+    public <T> Reply<T> read(InputStream body, Class<T> answerType) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Responses API body is not a JSON object");
+            }
+
+            Accumulator<T> acc = new Accumulator<>(answerType);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("output".equals(field) && value == JsonToken.START_ARRAY) {
+                    readOutput(parser, acc);
+                } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                    acc.usage = readUsage(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Reply<>(acc.answer, acc.unparsedText, acc.found, acc.repaired, acc.usage);
+        }
+    }
+
+    private <T> void readOutput(JsonParser parser, Accumulator<T> acc) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT || acc.found) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(field) && value == JsonToken.START_ARRAY && !acc.found) {
+                    readContent(parser, acc);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private <T> void readContent(JsonParser parser, Accumulator<T> acc) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT || acc.found) {
+                parser.skipChildren();
+                continue;
+            }
+
+            String type = null;
+            String textSeenBeforeType = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    if ("output_text".equals(type)) {
+                        bindAnswer(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), acc);
+                    } else if (type == null) {
+                        // "type" normally comes first; keep the text in case it turns out to be output_text
+                        textSeenBeforeType = parser.getText();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (!acc.found && "output_text".equals(type) && textSeenBeforeType != null) {
+                char[] chars = textSeenBeforeType.toCharArray();
+                bindAnswer(chars, 0, chars.length, acc);
+            }
+        }
+    }
+
+    private <T> void bindAnswer(char[] buffer, int offset, int length, Accumulator<T> acc) throws IOException {
+        acc.found = true;
+
+        // Same cleanup the controllers used to do: trim and drop markdown fences
+        int start = offset;
+        int end = offset + length;
+        while (start < end && Character.isWhitespace(buffer[start])) start++;
+        while (end > start && Character.isWhitespace(buffer[end - 1])) end--;
+        if (startsWith(buffer, start, end, FENCE)) {
+            start += FENCE.length();
+            while (start < end && buffer[start] != '\n' && buffer[start] != '{' && buffer[start] != '[') start++;
+            if (end - start >= FENCE.length() && startsWith(buffer, end - FENCE.length(), end, FENCE)) {
+                end -= FENCE.length();
+            }
+        }
+
+        try (JsonParser answerParser = mapper.getFactory().createParser(buffer, start, end - start)) {
+            acc.answer = mapper.readValue(answerParser, acc.answerType);
+        } catch (JsonProcessingException e) {
+            // 🩹 Output cut off at the token limit: keep what was complete rather than failing the whole answer
+            String repaired = JsonRepair.repair(buffer, start, end);
+            if (repaired != null) {
+                try {
+                    acc.answer = mapper.readValue(repaired, acc.answerType);
+                    acc.repaired = true;
+                    log.warn("🩹 Repaired truncated {} ({} chars)", acc.answerType.getSimpleName(), end - start);
+                    return;
+                } catch (JsonProcessingException ignored) {
+                    // fall through and report the original error
+                }
+            }
+            acc.unparsedText = new String(buffer, offset, length);
+            log.warn("⚠️ output_text is not a valid {}: {}", acc.answerType.getSimpleName(), e.getOriginalMessage());
+        }
+    }
+
+    private OpenAiClient.Usage readUsage(JsonParser parser) throws IOException {
+        long input = 0;
+        long output = 0;
+        long cached = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                // Responses API names, with the Chat Completions equivalents some compatible servers send
+                case "input_tokens", "prompt_tokens" -> input = value.isNumeric() ? parser.getLongValue() : 0;
+                case "output_tokens", "completion_tokens" -> output = value.isNumeric() ? parser.getLongValue() : 0;
+                case "input_tokens_details", "prompt_tokens_details" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String detail = parser.currentName();
+                        JsonToken detailValue = parser.nextToken();
+                        if ("cached_tokens".equals(detail) && detailValue.isNumeric()) {
+                            cached = parser.getLongValue();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new OpenAiClient.Usage(input, output, cached);
+    }
+
+    private static boolean startsWith(char[] buffer, int start, int end, String prefix) {
+        if (end - start < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[start + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static final class Accumulator<T> {
+        private final Class<T> answerType;
+        private T answer;
+        private String unparsedText;
+        private boolean found;
+        private boolean repaired;
+        private OpenAiClient.Usage usage = OpenAiClient.Usage.NONE;
+
+        private Accumulator(Class<T> answerType) {
+            this.answerType = answerType;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.shomuran.cardscope.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs all password hashing on the dedicated {@code passwordHashExecutor}.
+ * <p>
+ * Submissions never block: when the pool and its queue are full a {@link TaskRejectedException}
+ * is thrown immediately so the controller can answer 503 instead of parking a servlet thread.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Timer queueWait;
+    private final Timer hashTime;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.queueWait = Timer.builder("password.hash.queue.wait")
+                .description("Time a hashing task waited for a free hashing thread")
+                .register(meterRegistry);
+        this.hashTime = Timer.builder("password.hash.duration")
+                .description("Time spent computing password hashes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Result of a login check. {@code upgradedHash} is non-null when the stored hash
+     * used an old encoding or work factor and should be replaced.
+     */
+    public record Verification(boolean matched, String upgradedHash) {
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Verification> verify(String rawPassword, String storedHash) {
+        return submit(() -> {
+            if (!passwordEncoder.matches(rawPassword, storedHash)) {
+                return new Verification(false, null);
+            }
+            String upgraded = passwordEncoder.upgradeEncoding(storedHash)
+                    ? passwordEncoder.encode(rawPassword)
+                    : null;
+            return new Verification(true, upgraded);
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTime.record(work);
+            }, executor);
+        } catch (TaskRejectedException e) {
+            // Counted by the executor's rejection handler (executor.rejected{name=passwordHashExecutor})
+            log.warn("Password hashing saturated (queue={}, active={}) — rejecting request",
+                    getQueueSize(), getActiveCount());
+            throw e;
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueueSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+}
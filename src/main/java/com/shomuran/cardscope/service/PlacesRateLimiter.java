@@ -0,0 +1,157 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.PlacesQuotaProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side token buckets that keep Google Places calls inside our quota, one bucket per billed API.
+ * <p>
+ * Buckets refill continuously at {@code requests-per-minute} up to {@code burst} and are shared by all
+ * request threads. Interactive lookups may borrow the next token and wait for it (up to
+ * {@code interactive-max-wait}); background lookups never wait and leave {@code background-reserve} of the
+ * bucket untouched, so they are the first to be turned away. A denied caller is expected to answer from
+ * cached or local data instead of calling Google.
+ */
+@Service
+public class PlacesRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(PlacesRateLimiter.class);
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final PlacesQuotaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PlacesRateLimiter(PlacesQuotaProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    PlacesRateLimiter(PlacesQuotaProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Takes one token for {@code api}, waiting briefly if the caller is interactive.
+     *
+     * @return false when the caller should not call Google and must fall back
+     */
+    public boolean tryAcquire(String api, Priority priority) {
+        Bucket bucket = bucket(api);
+        long waitNanos = bucket.take(priority);
+        boolean granted = waitNanos >= 0;
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        meterRegistry.counter("google.places.ratelimit", "api", api, "priority", priority.tag(),
+                "outcome", granted ? "granted" : "throttled").increment();
+        return granted;
+    }
+
+    /**
+     * Empties the bucket after Google itself reported the quota as exhausted, so we back off for a while.
+     */
+    public void drain(String api) {
+        bucket(api).drain();
+        log.warn("⚠️ Google Places quota hit for {} — draining the local bucket", api);
+    }
+
+    public double available(String api) {
+        return bucket(api).available();
+    }
+
+    private Bucket bucket(String api) {
+        return buckets.computeIfAbsent(api, key -> {
+            PlacesQuotaProperties.ApiQuota quota = properties.quota(key);
+            Bucket bucket = new Bucket(quota.getBurst(), quota.getRequestsPerMinute() / 60.0);
+            Gauge.builder("google.places.ratelimit.tokens", bucket, Bucket::available)
+                    .description("Tokens left in the Places API bucket (negative while interactive callers wait)")
+                    .tag("api", key)
+                    .register(meterRegistry);
+            return bucket;
+        });
+    }
+
+    private final class Bucket {
+        private final double capacity;
+        private final double perNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int burst, double perSecond) {
+            this.capacity = Math.max(1, burst);
+            this.perNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.refilledAt = nanoTime.getAsLong();
+        }
+
+        /**
+         * @return nanoseconds to wait before the call may proceed, or -1 if denied
+         */
+        synchronized long take(Priority priority) {
+            refill();
+            if (priority == Priority.BACKGROUND) {
+                if (tokens - 1 < capacity * properties.getBackgroundReserve()) {
+                    return -1;
+                }
+                tokens -= 1;
+                return 0;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            if (perNano <= 0) {
+                return -1;
+            }
+            // Borrow the next token; callers queue up behind each other through the debt
+            long wait = (long) Math.ceil((1 - tokens) / perNano);
+            if (wait > properties.getInteractiveMaxWait().toNanos()) {
+                return -1;
+            }
+            tokens -= 1;
+            return wait;
+        }
+
+        synchronized void drain() {
+            refill();
+            tokens = Math.min(tokens, 0);
+        }
+
+        synchronized double available() {
+            refill();
+            return tokens;
+        }
+
+        private void refill() {
+            long now = nanoTime.getAsLong();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+        }
+    }
+}
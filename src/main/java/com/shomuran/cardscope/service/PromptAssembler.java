@@ -0,0 +1,88 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.CreditCardDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the per-request user prompts sent alongside the system prompts from {@link com.shomuran.cardscope.config.PromptLoader}.
+ */
+public final class PromptAssembler {
+
+    private static final List<Map<String, Object>> WEB_SEARCH_TOOLS = List.of(Map.of("type", "web_search_preview"));
+
+    private PromptAssembler() {
+    }
+
+    /**
+     * User prompt for {@code /api/get-card-suggestions}; category and quarter lines are omitted when unknown.
+     */
+    public static String suggestionUserPrompt(List<String> cardNames, String store, String category, String currentQuarter) {
+        return "The user has these cards: " + String.join(", ", cardNames) + ".\n" +
+                "Store: " + store + ".\n" +
+                (category != null ? "Category: " + category + ".\n" : "") +
+                (currentQuarter != null ? "Current quarter: " + currentQuarter + ".\n" : "");
+    }
+
+    /**
+     * User prompt for {@code /api/json/get-card-suggestions}, embedding the card definitions as pretty-printed JSON.
+     */
+    public static String suggestionJsonUserPrompt(ObjectMapper mapper, List<CreditCardDto> cards, String store) throws JsonProcessingException {
+        return "The user provided the following card definitions JSON:\n" +
+                mapper.writerWithDefaultPrettyPrinter().writeValueAsString(cards) + "\n\n" +
+                "Store: " + store + ".\n" +
+                "Use the JSON definitions above to generate the top 3 card suggestions following the schema.";
+    }
+
+    /**
+     * Responses API request with every static part ahead of the per-request user message: model, cache key,
+     * tools, answer schema and system prompt come out byte-identical for all requests of a use case and prompt
+     * version, so the provider's prompt cache can serve that prefix. Keys are kept in insertion order so the
+     * serialized body is the same on every instance.
+     */
+    public static Map<String, Object> responsesRequest(LlmBudgetGovernor.Plan plan, String promptCacheKey,
+                                                       String systemPrompt, Map<String, Object> answerSchema,
+                                                       String schemaName, String userPrompt) {
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", plan.model());
+        requestBody.put("prompt_cache_key", promptCacheKey);
+        if (plan.webSearch()) {
+            requestBody.put("tools", WEB_SEARCH_TOOLS);
+        }
+        requestBody.put("text", structuredOutput(schemaName, answerSchema));
+        requestBody.put("input", List.of(message("system", systemPrompt), message("user", userPrompt)));
+        return requestBody;
+    }
+
+    private static Map<String, Object> message(String role, String content) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", role);
+        message.put("content", content);
+        return message;
+    }
+
+    /**
+     * Stable {@code prompt_cache_key} for a use case and prompt version ({@link com.shomuran.cardscope.config.PromptLoader}).
+     * Requests sharing a key are routed to the same cache, so it must not contain anything per user.
+     */
+    public static String promptCacheKey(OpenAiClient.UseCase useCase, String promptVersion) {
+        return "cardscope-" + useCase.getTag() + "-" + promptVersion;
+    }
+
+    /**
+     * The Responses API {@code text} parameter that makes the model answer with JSON matching {@code schema}
+     * (strict structured outputs), instead of relying on the prose schema in the prompt.
+     */
+    public static Map<String, Object> structuredOutput(String name, Map<String, Object> schema) {
+        Map<String, Object> format = new LinkedHashMap<>();
+        format.put("type", "json_schema");
+        format.put("name", name);
+        format.put("strict", true);
+        format.put("schema", schema);
+        return Map.of("format", format);
+    }
+}
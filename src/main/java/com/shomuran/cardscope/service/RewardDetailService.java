@@ -1,12 +1,11 @@
 package com.shomuran.cardscope.service;
 
+import com.shomuran.cardscope.dto.CardRewardAnswer;
 import com.shomuran.cardscope.repository.UserProfileRepository;
 import com.shomuran.cardscope.config.PromptLoader;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import okhttp3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -18,97 +17,52 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class RewardDetailService {
 
+    private static final Logger log = LoggerFactory.getLogger(RewardDetailService.class);
+
     @Autowired
     private UserProfileRepository userProfileRepository;
 
     @Autowired
     private PromptLoader promptLoader;
 
-    @Value("${openai.api.key}")
-    private String openAiKey;
-
-    private final ObjectMapper mapper = new ObjectMapper();
-    OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(60, TimeUnit.SECONDS)   // default 10s → now 60s
-            .writeTimeout(120, TimeUnit.SECONDS)    // for large prompt uploads
-            .readTimeout(180, TimeUnit.SECONDS)     // for long generation
-            .callTimeout(180, TimeUnit.SECONDS)     // total time allowed for call
-            .build();
+    @Autowired
+    private ModelRouter modelRouter;
 
     /**
      * Synchronous OpenAI call
      */
     public Map<?, ?> getRewardDetails(String cardName) {
         try {
+            if (modelRouter.localOnly(OpenAiClient.UseCase.REWARD)) {
+                // not a timeout, so the async retry loop gives up immediately
+                return Map.of("error", "OpenAI budget exhausted — reward lookup deferred");
+            }
+
             String basePrompt = promptLoader.getCardRewardPrompt();
             String userPrompt = "The user has these cards: " + cardName;
 
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "gpt-5-mini");
-            requestBody.put("tools", List.of(Map.of("type", "web_search_preview")));
-            requestBody.put("input", List.of(
-                    Map.of("role", "system", "content", basePrompt),
-                    Map.of("role", "user", "content", userPrompt)
-            ));
-
-            RequestBody body = RequestBody.create(
-                    MediaType.parse("application/json"),
-                    mapper.writeValueAsString(requestBody)
-            );
-
-            Request request = new Request.Builder()
-                    .url("https://api.openai.com/v1/responses")
-                    .header("Authorization", "Bearer " + openAiKey)
-                    .header("Content-Type", "application/json")
-                    .post(body)
-                    .build();
-
-            String responseText;
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    return Map.of("error", "OpenAI API call failed: " + response.message());
-                }
-
-                String bodyString = response.body().string();
-                Map<String, Object> bodyMap = mapper.readValue(bodyString, new TypeReference<>() {
-                });
-
-                List<Map<String, Object>> outputs = (List<Map<String, Object>>) bodyMap.get("output");
-                if (outputs == null || outputs.isEmpty()) {
-                    return Map.of("error", "No output from model");
-                }
-
-                responseText = null;
-                for (Map<String, Object> outputItem : outputs) {
-                    List<Map<String, Object>> contentList = (List<Map<String, Object>>) outputItem.get("content");
-                    if (contentList != null) {
-                        for (Map<String, Object> contentItem : contentList) {
-                            if ("output_text".equals(contentItem.get("type"))) {
-                                responseText = (String) contentItem.get("text");
-                                break;
-                            }
-                        }
-                    }
-                    if (responseText != null) break;
-                }
-
-                if (responseText == null) {
-                    return Map.of("error", "No output_text from model");
-                }
+            // An empty answer is retried one tier up before we settle for "no rewards yet"
+            String cacheKey = PromptAssembler.promptCacheKey(OpenAiClient.UseCase.REWARD, promptLoader.getCardRewardVersion());
+            OpenAiClient.Result<CardRewardAnswer> result = modelRouter.call(OpenAiClient.UseCase.REWARD,
+                    basePrompt.length() + userPrompt.length(),
+                    plan -> PromptAssembler.responsesRequest(plan, cacheKey, basePrompt,
+                            promptLoader.getCardRewardSchema(), "card_reward", userPrompt),
+                    CardRewardAnswer.class, answer -> answer.cardReward() != null);
+            if (!result.isSuccessful()) {
+                return Map.of("error", "OpenAI API call failed: " + result.message());
             }
 
-            responseText = responseText.trim();
-            if (responseText.startsWith("```")) {
-                responseText = responseText.replaceAll("```(json)?", "").trim();
+            CardRewardAnswer answer = result.answer();
+            if (answer == null) {
+                return Map.of("error", result.unparsedText() == null
+                        ? "No output_text from model"
+                        : "Model output did not match the reward schema");
+            }
+            if (answer.cardReward() == null) {
+                return Map.of(); // model answered {} — callers store it as "no rewards yet"
             }
 
-            Map<String, Object> parsedResponse =
-                    mapper.readValue(responseText, new TypeReference<>() {
-                    });
-            Map<String, Object> parsedRewards =
-                    (Map<String, Object>) parsedResponse.get("cardReward");
-
-            return Map.of("cardReward", parsedRewards);
+            return Map.of("cardReward", answer.cardReward());
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -136,8 +90,7 @@ public class RewardDetailService {
                     return result;
                 }
 
-                System.out.println("⚠️ Timeout on attempt " + attempt +
-                        " for " + cardName + " — retrying...");
+                log.warn("⚠️ Timeout on attempt {} for {} — retrying...", attempt, cardName);
                 try {
                     TimeUnit.SECONDS.sleep(2);
                 } catch (InterruptedException e) {
@@ -146,7 +99,7 @@ public class RewardDetailService {
                 }
             }
 
-            System.out.println("❌ All retries failed for " + cardName);
+            log.error("❌ All retries failed for {}", cardName);
             return Map.of("error", "Failed after " + maxRetries + " retries (timeout)");
         });
     }
@@ -0,0 +1,185 @@
+package com.shomuran.cardscope.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the free-text {@code cardReward} JSON stored in {@code CreditCard.rewardDetails}
+ * into numeric, category-normalized rules that can be ranked without an LLM.
+ */
+@Component
+public class RewardRuleCompiler {
+
+    private static final Pattern NUMBER = Pattern.compile("(\\d+(?:\\.\\d+)?)");
+    private static final Pattern AMOUNT = Pattern.compile("\\$\\s*([\\d,]+(?:\\.\\d+)?)");
+
+    /**
+     * Canonical categories and the keywords (issuer wording and Google Places types) that map to them.
+     * Order matters: the first match wins.
+     */
+    private static final Map<String, List<String>> CATEGORY_KEYWORDS = new LinkedHashMap<>();
+
+    static {
+        CATEGORY_KEYWORDS.put("wholesale_club", List.of("wholesale", "costco", "sam's club", "bj's"));
+        CATEGORY_KEYWORDS.put("gas", List.of("gas", "fuel", "ev charging", "gas_station"));
+        CATEGORY_KEYWORDS.put("groceries", List.of("grocer", "supermarket"));
+        CATEGORY_KEYWORDS.put("dining", List.of("dining", "restaurant", "cafe", "bakery", "bar", "night_club",
+                "meal_takeaway", "meal_delivery", "food delivery", "takeout"));
+        CATEGORY_KEYWORDS.put("drugstore", List.of("drugstore", "drug store", "pharmac"));
+        CATEGORY_KEYWORDS.put("streaming", List.of("streaming"));
+        CATEGORY_KEYWORDS.put("online_retail", List.of("online", "amazon", ".com"));
+        CATEGORY_KEYWORDS.put("home_improvement", List.of("home improvement", "hardware", "home_goods"));
+        CATEGORY_KEYWORDS.put("travel", List.of("travel", "airline", "flight", "hotel", "lodging", "car rental",
+                "rv_park", "cruise"));
+        CATEGORY_KEYWORDS.put("transit", List.of("transit", "parking", "taxi", "rideshare", "train", "toll"));
+        CATEGORY_KEYWORDS.put("entertainment", List.of("entertainment", "movie", "theater", "stadium", "museum",
+                "zoo", "concert"));
+        CATEGORY_KEYWORDS.put("fitness", List.of("gym", "fitness"));
+        CATEGORY_KEYWORDS.put("department_store", List.of("department", "clothing", "apparel", "shopping_mall",
+                "general merchandise"));
+    }
+
+    public enum RuleKind {
+        BONUS, USER_CHOICE, ROTATING
+    }
+
+    /**
+     * One earn rule. {@code rate} is the numeric multiplier/percentage (5% and 5x both become 5.0);
+     * {@code quarter} is only set for rotating categories.
+     */
+    public record Rule(String category, String label, double rate, String rateText,
+                       String cap, Double capAmount, Double afterCapRate,
+                       RuleKind kind, String quarter) {
+    }
+
+    public record CompiledCard(String issuer, String cardProduct, String cardName,
+                               double baseRate, String baseRateText, List<Rule> rules) {
+    }
+
+    /**
+     * @param rewardDetails parsed JSON, either {@code {"cardReward": {...}}} or the inner object
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledCard compile(String issuer, String cardProduct, Object rewardDetails) {
+        String cardName = issuer + " " + cardProduct;
+        Map<String, Object> reward = Map.of();
+        if (rewardDetails instanceof Map<?, ?> map) {
+            Object inner = map.get("cardReward");
+            reward = inner instanceof Map<?, ?> ? (Map<String, Object>) inner : (Map<String, Object>) map;
+        }
+
+        String baseRateText = asString(reward.get("base_rate"));
+        double baseRate = parseRate(baseRateText, 1.0);
+        List<Rule> rules = new ArrayList<>();
+
+        for (Map<String, Object> bonus : asList(reward.get("bonus_categories"))) {
+            rules.add(rule(asString(bonus.get("category")), bonus, RuleKind.BONUS, null));
+        }
+
+        for (Map<String, Object> choice : asList(reward.get("user_choice_categories"))) {
+            Object options = choice.get("options");
+            if (options instanceof List<?> list) {
+                for (Object option : list) {
+                    rules.add(rule(String.valueOf(option), choice, RuleKind.USER_CHOICE, null));
+                }
+            }
+        }
+
+        if (reward.get("rotating_categories") instanceof Map<?, ?> rotating) {
+            for (Map.Entry<?, ?> quarter : rotating.entrySet()) {
+                for (Map<String, Object> entry : asList(quarter.getValue())) {
+                    rules.add(rule(asString(entry.get("category")), entry, RuleKind.ROTATING, String.valueOf(quarter.getKey())));
+                }
+            }
+        }
+
+        return new CompiledCard(issuer, cardProduct, cardName, baseRate, baseRateText, rules);
+    }
+
+    private Rule rule(String label, Map<String, Object> source, RuleKind kind, String quarter) {
+        String rateText = asString(source.get("rate"));
+        String cap = asString(source.get("cap"));
+        String afterCap = asString(source.get("after_cap_rate"));
+        return new Rule(
+                normalizeCategory(label),
+                label,
+                parseRate(rateText, 0.0),
+                rateText,
+                cap,
+                parseAmount(cap),
+                afterCap != null ? parseRate(afterCap, 0.0) : null,
+                kind,
+                quarter
+        );
+    }
+
+    /**
+     * Maps issuer wording or a Google Places type to a canonical category, or "other" when unknown.
+     */
+    public static String normalizeCategory(String text) {
+        if (text == null || text.isBlank()) return "other";
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, List<String>> entry : CATEGORY_KEYWORDS.entrySet()) {
+            for (String keyword : entry.getValue()) {
+                if (lower.contains(keyword)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return "other";
+    }
+
+    /**
+     * The canonical categories with their keywords, in match order (shipped to clients in the rule bundle).
+     */
+    public static Map<String, List<String>> categoryKeywords() {
+        return Collections.unmodifiableMap(CATEGORY_KEYWORDS);
+    }
+
+    /**
+     * First number in a rate string ("5% cash back", "3X points", "1.5%"); {@code fallback} if none.
+     */
+    public static double parseRate(String text, double fallback) {
+        if (text == null) return fallback;
+        Matcher matcher = NUMBER.matcher(text);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : fallback;
+    }
+
+    /**
+     * Dollar amount in a cap string ("$1,500 per quarter"), or null.
+     */
+    public static Double parseAmount(String text) {
+        if (text == null) return null;
+        Matcher matcher = AMOUNT.matcher(text);
+        return matcher.find() ? Double.parseDouble(matcher.group(1).replace(",", "")) : null;
+    }
+
+    public static String quarterOf(LocalDate date) {
+        return "Q" + ((date.getMonthValue() - 1) / 3 + 1);
+    }
+
+    private static String asString(Object value) {
+        return value instanceof String s && !s.isBlank() ? s : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> asList(Object value) {
+        if (!(value instanceof List<?> list)) return List.of();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Object item : list) {
+            if (item instanceof Map<?, ?> map) {
+                result.add((Map<String, Object>) map);
+            }
+        }
+        return result;
+    }
+}
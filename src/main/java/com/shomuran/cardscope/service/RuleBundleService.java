@@ -0,0 +1,88 @@
+package com.shomuran.cardscope.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shomuran.cardscope.dto.RuleBundle;
+import com.shomuran.cardscope.model.UserCard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiles a user's cards into a {@link RuleBundle} the mobile app can rank with on-device.
+ * <p>
+ * Uses the same {@link RewardRuleCompiler} rules as the server-side local ranking, so both rank identically.
+ * The version is a content hash: it only changes when a card, its reward data, the category table or the
+ * active quarter changes, which lets clients revalidate with {@code If-None-Match} and skip the download.
+ */
+@Service
+public class RuleBundleService {
+
+    public static final int SCHEMA = 1;
+
+    @Autowired
+    private CardCatalogCache cardCatalogCache;
+
+    @Autowired
+    private RewardRuleCompiler rewardRuleCompiler;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public RuleBundle build(List<UserCard> userCards, LocalDate today) {
+        String quarter = RewardRuleCompiler.quarterOf(today);
+        LocalDate validUntil = today.with(IsoFields.DAY_OF_QUARTER, 1).plusMonths(3).minusDays(1);
+
+        List<RuleBundle.Card> cards = userCards.stream()
+                .map(card -> compile(card, quarter))
+                .sorted(Comparator.comparing(RuleBundle.Card::name))
+                .toList();
+
+        RuleBundle content = new RuleBundle(SCHEMA, null, quarter, validUntil.toString(),
+                RewardRuleCompiler.categoryKeywords(), cards);
+        return new RuleBundle(SCHEMA, version(content), content.quarter(), content.validUntil(),
+                content.categories(), content.cards());
+    }
+
+    private RuleBundle.Card compile(UserCard card, String quarter) {
+        Object rewards = cardCatalogCache.find(card.getIssuer(), card.getCardProduct())
+                .map(CardCatalogCache.Entry::rewards)
+                .orElse(null);
+        RewardRuleCompiler.CompiledCard compiled = rewardRuleCompiler.compile(
+                card.getIssuer(), card.getCardProduct(), rewards != null ? rewards : Map.of());
+
+        List<RuleBundle.Rule> rules = compiled.rules().stream()
+                // Only the active quarter's rotating categories; the bundle expires with the quarter
+                .filter(rule -> rule.kind() != RewardRuleCompiler.RuleKind.ROTATING || quarter.equals(rule.quarter()))
+                .map(rule -> new RuleBundle.Rule(
+                        rule.category(),
+                        rule.label(),
+                        rule.rate(),
+                        rule.rateText(),
+                        rule.capAmount(),
+                        rule.cap(),
+                        rule.afterCapRate(),
+                        rule.kind().name().toLowerCase(Locale.ROOT)))
+                .toList();
+
+        return new RuleBundle.Card(compiled.cardName(), compiled.issuer(), compiled.cardProduct(),
+                compiled.baseRate(), compiled.baseRateText(), rules);
+    }
+
+    private String version(RuleBundle content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(mapper.writeValueAsBytes(content));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not version rule bundle", e);
+        }
+    }
+}
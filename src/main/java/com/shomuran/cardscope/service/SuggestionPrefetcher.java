@@ -0,0 +1,204 @@
+package com.shomuran.cardscope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shomuran.cardscope.dto.StoreInfo;
+import com.shomuran.cardscope.model.UserCard;
+import com.shomuran.cardscope.model.UserProfile;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speculatively computes card suggestions for the stores a user was just shown (opt-in,
+ * {@code app.prefetch.enabled}).
+ * <p>
+ * After {@code /api/google/detect-stores} or {@code /detect-stores-v1} answers for a known user, the top
+ * {@code top-n} stores are queued on the low-priority {@code suggestionPrefetchExecutor}. Results are parked
+ * for {@code ttl}, keyed by cards and store only. A follow-up suggestion request that names neither a category
+ * nor a quarter takes the parked answer, or joins a prefetch that is still running instead of starting a second
+ * OpenAI call.
+ * <p>
+ * Prefetching is skipped whenever it would compete with real traffic: when the LLM budget is not at its
+ * normal level, when the load shedder reports overload, or when the executor queue is full.
+ */
+@Service
+public class SuggestionPrefetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionPrefetcher.class);
+
+    @Autowired
+    private CardSuggestionService cardSuggestionService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private LlmBudgetGovernor llmBudgetGovernor;
+
+    @Autowired
+    private LoadShedder loadShedder;
+
+    @Autowired
+    @Qualifier("suggestionPrefetchExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.prefetch.top-n:3}")
+    private int topN;
+
+    @Value("${app.prefetch.join-timeout:8s}")
+    private Duration joinTimeout;
+
+    private final Cache<String, Map<String, Object>> parked;
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+
+    public SuggestionPrefetcher(MeterRegistry meterRegistry,
+                                @Value("${app.prefetch.max-size:5000}") long maxSize,
+                                @Value("${app.prefetch.ttl:2m}") Duration ttl) {
+        this.parked = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, parked, "suggestion.prefetch");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues prefetches for the first {@code top-n} stores. Returns immediately; the profile is loaded on the
+     * prefetch thread. Either {@code userId} or {@code email} identifies the user.
+     */
+    public void prefetch(Long userId, String email, List<StoreInfo> stores) {
+        if (!enabled || stores == null || stores.isEmpty() || (userId == null && (email == null || email.isBlank()))) {
+            return;
+        }
+        if (llmBudgetGovernor.level(OpenAiClient.UseCase.SUGGESTION) != LlmBudgetGovernor.Level.NORMAL
+                || loadShedder.isOverloaded()) {
+            count("skipped");
+            return;
+        }
+        List<StoreInfo> top = stores.stream()
+                .filter(store -> store.getName() != null && !store.getName().isBlank())
+                .limit(topN)
+                .toList();
+        try {
+            executor.execute(() -> run(userId, email, top));
+        } catch (TaskRejectedException e) {
+            count("rejected");
+        }
+    }
+
+    /**
+     * Key of a prefetched answer. A prefetch uses the category Places reported and the current quarter, so it
+     * is keyed like a request that named neither; callers must only claim for such requests.
+     */
+    public static String key(List<UserCard> userCards, String store) {
+        return LocalSuggestionService.answerKey(OpenAiClient.UseCase.SUGGESTION, userCards, store, null, null);
+    }
+
+    /**
+     * The prefetched answer for {@code key}, waiting up to {@code join-timeout} if it is still being computed.
+     * Each answer is handed out once.
+     */
+    public Optional<Map<String, Object>> claim(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Map<String, Object> ready = parked.asMap().remove(key);
+        if (ready != null) {
+            count("hit");
+            return Optional.of(ready);
+        }
+        CompletableFuture<Map<String, Object>> running = inFlight.get(key);
+        if (running == null) {
+            return Optional.empty();
+        }
+        try {
+            Map<String, Object> joined = running.get(joinTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (joined != null) {
+                parked.invalidate(key);
+                count("joined");
+                return Optional.of(joined);
+            }
+        } catch (Exception e) {
+            log.debug("Prefetch for {} not usable: {}", key, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private void run(Long userId, String email, List<StoreInfo> stores) {
+        Optional<UserProfile> profile = userId != null
+                ? userProfileRepository.findProfileById(userId)
+                : userProfileRepository.findProfileByEmail(email);
+        List<UserCard> userCards = profile.map(UserProfile::getUserCards).orElse(List.of());
+        if (userCards.isEmpty()) {
+            return;
+        }
+        // One task per store so they run side by side; registered first so an early follow-up can join
+        for (StoreInfo store : stores) {
+            String key = key(userCards, store.getName());
+            CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            if (parked.getIfPresent(key) != null || inFlight.putIfAbsent(key, future) != null) {
+                continue;
+            }
+            try {
+                executor.execute(() -> compute(key, future, userCards, store));
+            } catch (TaskRejectedException e) {
+                inFlight.remove(key, future);
+                future.complete(null);
+                count("rejected");
+            }
+        }
+    }
+
+    private void compute(String key, CompletableFuture<Map<String, Object>> future,
+                         List<UserCard> userCards, StoreInfo store) {
+        try {
+            CardSuggestionService.Outcome outcome = cardSuggestionService.suggest(
+                    userCards, store.getName(), store.getCategory(), null);
+            if (outcome.isSuccessful()) {
+                parked.put(key, outcome.body());
+                future.complete(outcome.body());
+                count("completed");
+            } else {
+                future.complete(null);
+                count("failed");
+            }
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            count("failed");
+            log.debug("Prefetch for {} failed: {}", store.getName(), e.getMessage());
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("suggestion.prefetch.requests", "outcome", outcome).increment();
+    }
+}
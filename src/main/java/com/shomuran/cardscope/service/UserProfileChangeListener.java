@@ -0,0 +1,33 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.UserProfile;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.ZoneId;
+
+/**
+ * Reports every saved or deleted {@link UserProfile} to {@link CacheInvalidationBus}. Bulk JPQL updates bypass
+ * entity callbacks, so their callers report the change themselves.
+ */
+public class UserProfileChangeListener {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(UserProfile profile) {
+        long version = profile.getUpdatedAt() != null
+                ? profile.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        cacheInvalidationBus.userChanged(profile.getId(), profile.getEmail(), version);
+    }
+
+    @PostRemove
+    public void removed(UserProfile profile) {
+        cacheInvalidationBus.userRemoved(profile.getId(), profile.getEmail());
+    }
+}
@@ -1,22 +1,20 @@
 package com.shomuran.cardscope.service;
 
 import com.shomuran.cardscope.model.PasswordResetToken;
-import com.shomuran.cardscope.model.UserProfile;
 import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.repository.UserAccountView;
 import com.shomuran.cardscope.repository.UserProfileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class UserService {
@@ -28,38 +26,42 @@ public class UserService {
     private PasswordResetTokenRepository tokenRepository;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    @Qualifier("accountWriteExecutor")
+    private Executor accountWriteExecutor;
 
     @Value("${app.frontend.url}")
     private String frontendUrl;
 
+    /**
+     * Writes the reset token and the outgoing email in one transaction; no SMTP work happens here.
+     */
+    @Transactional
     public void sendResetLink(String email) {
-        UserProfile user = userProfileRepository.findByEmail(email)
+        UserAccountView user = userProfileRepository.findAccountByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
         String token = UUID.randomUUID().toString();
 
         PasswordResetToken resetToken = new PasswordResetToken();
         resetToken.setToken(token);
-        resetToken.setUser(user);
+        // Reference only: the token needs the FK, not the loaded profile
+        resetToken.setUser(userProfileRepository.getReferenceById(user.getId()));
         resetToken.setExpiryDate(LocalDateTime.now().plusMinutes(30));
         tokenRepository.save(resetToken);
 
         String resetLink = frontendUrl + "/reset/" + token;
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(email);
-            helper.setFrom("noreply@shomuran.com", "CardScope Support");
-            helper.setSubject("Password Reset Request – CardScope");
-
-            // --- HTML template ---
-            String html = """
+        // --- HTML template ---
+        String html = """
         <!DOCTYPE html>
         <html>
         <head>
@@ -98,30 +100,54 @@ public class UserService {
         </html>
         """.formatted(user.getName(), resetLink);
 
-            helper.setText(html, true); // true => HTML content
-            mailSender.send(message);
-
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send reset email", e);
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        // Delivered by EmailOutboxSender after this transaction commits
+        emailOutboxService.enqueue(email, "Password Reset Request – CardScope", html);
     }
 
-    public void confirmResetPassword(String token, String newPassword) {
+    /**
+     * Validates and claims (deletes) the token synchronously, so a token can reset the password once even
+     * when confirmed twice concurrently. The new hash is computed on the password-hashing pool and stored
+     * from {@code accountWriteExecutor}. If hashing or the write fails, or either pool rejects its step,
+     * the token is put back so the user can retry.
+     *
+     * @throws org.springframework.core.task.TaskRejectedException when the hashing pool is saturated
+     */
+    public CompletableFuture<Void> confirmResetPassword(String token, String newPassword) {
         PasswordResetToken resetToken = tokenRepository.findByToken(token)
                 .orElseThrow(() -> new RuntimeException("Invalid token"));
 
         if (resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
             throw new RuntimeException("Token expired");
         }
+        if (tokenRepository.claim(resetToken.getId()) == 0) {
+            throw new RuntimeException("Invalid token"); // used by a concurrent confirm
+        }
 
-        UserProfile user = resetToken.getUser();
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
-        userProfileRepository.save(user);
-
-        tokenRepository.delete(resetToken);
+        // getId() on the lazy reference does not initialize the profile
+        Long userId = resetToken.getUser().getId();
+        CompletableFuture<String> hash;
+        try {
+            hash = passwordHashingService.encode(newPassword);
+        } catch (TaskRejectedException e) {
+            restoreToken(resetToken);
+            throw e;
+        }
+        return hash.thenAcceptAsync(passwordHash -> {
+            userProfileRepository.resetPassword(userId, passwordHash);
+            cacheInvalidationBus.userChanged(userId, null, System.currentTimeMillis());
+        }, accountWriteExecutor).whenComplete((done, failure) -> {
+            // Also reached when accountWriteExecutor rejected the write; the caller still sees the failure
+            if (failure != null) {
+                restoreToken(resetToken);
+            }
+        });
     }
 
-
-}
+    private void restoreToken(PasswordResetToken claimed) {
+        PasswordResetToken restored = new PasswordResetToken();
+        restored.setToken(claimed.getToken());
+        restored.setUser(userProfileRepository.getReferenceById(claimed.getUser().getId()));
+        restored.setExpiryDate(claimed.getExpiryDate());
+        tokenRepository.save(restored);
+    }
+}
\ No newline at end of file
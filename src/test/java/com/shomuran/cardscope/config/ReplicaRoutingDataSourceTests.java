@@ -0,0 +1,197 @@
+package com.shomuran.cardscope.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing between two in-memory H2 databases, each of which names itself: read-only transactions, lag
+ * fallback, pinning and read-your-writes through {@link ReadYourWritesFilter}.
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private ReadReplicaProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        // The replica reports whatever lag the test stores in it
+        new JdbcTemplate(replica).execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        new JdbcTemplate(replica).update("INSERT INTO replica_lag VALUES (0)");
+
+        properties = new ReadReplicaProperties();
+        properties.setEnabled(true);
+        properties.setMaxLag(Duration.ofSeconds(2));
+        properties.setLagQuery("SELECT seconds FROM replica_lag");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), properties, new SimpleMeterRegistry());
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        routing.destroy();
+        primary.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAHealthyReplica() {
+        routing.refreshLag();
+
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+        assertEquals("primary", readWrite.execute(status -> whoAmI()));
+        assertEquals("primary", whoAmI()); // no transaction at all
+    }
+
+    @Test
+    void uncheckedReplicaIsNotUsed() {
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimaryUntilItCatchesUp() {
+        routing.refreshLag();
+        setReplicaLag(5);
+        routing.refreshLag();
+
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+
+        setReplicaLag(1.5);
+        routing.refreshLag();
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        routing.refreshLag();
+        replica.close();
+
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+        routing.refreshLag();
+        assertEquals("primary", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void pinnedThreadReadsThePrimary() {
+        routing.refreshLag();
+
+        try (ReplicaRoutingDataSource.Pin outer = ReplicaRoutingDataSource.pinPrimary()) {
+            try (ReplicaRoutingDataSource.Pin inner = ReplicaRoutingDataSource.pinPrimary()) {
+                assertEquals("primary", readOnly.execute(status -> whoAmI()));
+            }
+            assertEquals("primary", readOnly.execute(status -> whoAmI()));
+        }
+        assertEquals("replica", readOnly.execute(status -> whoAmI()));
+    }
+
+    @Test
+    void callerReadsThePrimaryAfterAProfilePut() throws Exception {
+        routing.refreshLag();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties);
+
+        assertEquals("replica", serve(filter, "GET", "/api/user/writer@example.com", 200));
+        assertEquals("primary", serve(filter, "PUT", "/api/user/writer@example.com", 200));
+
+        assertEquals("primary", serve(filter, "GET", "/api/user/Writer%40example.com", 200));
+        assertEquals("primary", serve(filter, "GET", "/api/user/writer@example.com/rule-bundle", 200));
+        assertEquals("replica", serve(filter, "GET", "/api/user/other@example.com", 200));
+        assertEquals("replica", serve(filter, "POST", "/api/get-card-suggestions", 200));
+    }
+
+    @Test
+    void failedWriteDoesNotPinTheCaller() throws Exception {
+        routing.refreshLag();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties);
+
+        assertEquals("primary", serve(filter, "PUT", "/api/user/writer@example.com", 400));
+        assertEquals("replica", serve(filter, "GET", "/api/user/writer@example.com", 200));
+    }
+
+    @Test
+    void disabledReplicasKeepEveryReadOnThePrimary() {
+        properties.setEnabled(false);
+        properties.getInstances().add(new ReadReplicaProperties.Instance());
+        ReplicaRoutingDataSource disabled = new ReadReplicaConfig()
+                .replicaRoutingDataSource(primary, properties, new SimpleMeterRegistry());
+        disabled.refreshLag();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(disabled);
+        TransactionTemplate disabledReadOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        disabledReadOnly.setReadOnly(true);
+        assertEquals("primary", disabledReadOnly.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM whoami", String.class)));
+    }
+
+    @Test
+    void disabledFilterPinsNothing() throws Exception {
+        routing.refreshLag();
+        properties.setEnabled(false);
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(properties);
+
+        assertEquals("replica", serve(filter, "PUT", "/api/user/writer@example.com", 200));
+        assertEquals("replica", serve(filter, "GET", "/api/user/writer@example.com", 200));
+    }
+
+    /**
+     * Runs one request through the filter; the handler reads in a read-only transaction and answers {@code status}.
+     */
+    private String serve(ReadYourWritesFilter filter, String method, String uri, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> readFrom = new AtomicReference<>();
+        FilterChain handler = (req, res) -> {
+            readFrom.set(readOnly.execute(tx -> whoAmI()));
+            response.setStatus(status);
+        };
+        filter.doFilter(request, response, handler);
+        return readFrom.get();
+    }
+
+    private String whoAmI() {
+        return jdbc.queryForObject("SELECT name FROM whoami", String.class);
+    }
+
+    private void setReplicaLag(double seconds) {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET seconds = ?", seconds);
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setConnectionTimeout(250);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE whoami (name VARCHAR(16))");
+        jdbc.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+}
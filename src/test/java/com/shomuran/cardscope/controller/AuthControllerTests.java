@@ -0,0 +1,98 @@
+package com.shomuran.cardscope.controller;
+
+import com.shomuran.cardscope.model.PasswordResetToken;
+import com.shomuran.cardscope.repository.EmailOutboxRepository;
+import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Refresh-token lifecycle through the auth endpoints.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false"
+})
+class AuthControllerTests {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository.deleteAll();
+        passwordResetTokenRepository.deleteAll();
+        userProfileRepository.deleteAll();
+        ResponseEntity<Map> signup = rest.postForEntity("/api/auth/signup",
+                Map.of("email", "refresh@example.com", "password", "first-password", "name", "Refresh"), Map.class);
+        assertEquals(200, signup.getStatusCode().value());
+    }
+
+    @Test
+    void refreshRotatesTokens() {
+        String refreshToken = login("first-password");
+
+        ResponseEntity<Map> refreshed = refresh(refreshToken);
+
+        assertEquals(200, refreshed.getStatusCode().value());
+        assertNotNull(refreshed.getBody().get("token"));
+        assertEquals(200, refresh((String) refreshed.getBody().get("refreshToken")).getStatusCode().value());
+    }
+
+    @Test
+    void passwordResetRetiresEarlierRefreshTokens() {
+        String leaked = login("first-password");
+
+        PasswordResetToken token = new PasswordResetToken();
+        token.setToken("reset-token");
+        token.setUser(userProfileRepository.findProfileByEmail("refresh@example.com").orElseThrow());
+        token.setExpiryDate(LocalDateTime.now().plusMinutes(30));
+        passwordResetTokenRepository.save(token);
+        ResponseEntity<Map> reset = rest.postForEntity("/api/auth/reset/confirm",
+                Map.of("token", "reset-token", "newPassword", "second-password"), Map.class);
+        assertEquals(200, reset.getStatusCode().value());
+
+        assertEquals(401, refresh(leaked).getStatusCode().value());
+        assertEquals(200, refresh(login("second-password")).getStatusCode().value());
+    }
+
+    @Test
+    void accessTokenIsNotARefreshToken() {
+        ResponseEntity<Map> login = rest.postForEntity("/api/auth/login",
+                Map.of("email", "refresh@example.com", "password", "first-password"), Map.class);
+
+        assertEquals(401, refresh((String) login.getBody().get("token")).getStatusCode().value());
+    }
+
+    private String login(String password) {
+        ResponseEntity<Map> login = rest.postForEntity("/api/auth/login",
+                Map.of("email", "refresh@example.com", "password", password), Map.class);
+        assertEquals(200, login.getStatusCode().value());
+        return (String) login.getBody().get("refreshToken");
+    }
+
+    private ResponseEntity<Map> refresh(String refreshToken) {
+        return rest.postForEntity("/api/auth/refresh", Map.of("refreshToken", refreshToken), Map.class);
+    }
+}
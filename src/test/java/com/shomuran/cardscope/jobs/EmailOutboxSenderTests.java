@@ -0,0 +1,229 @@
+package com.shomuran.cardscope.jobs;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.shomuran.cardscope.model.EmailOutboxMessage;
+import com.shomuran.cardscope.model.UserProfile;
+import com.shomuran.cardscope.repository.EmailOutboxRepository;
+import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import com.shomuran.cardscope.service.UserService;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the password-reset outbox against GreenMail's in-process SMTP server.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "app.mail.outbox.poll-interval=1h"
+})
+class EmailOutboxSenderTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EmailOutboxSender emailOutboxSender;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private CountingMailSender mailSender;
+
+    private GreenMail smtp;
+
+    @BeforeEach
+    void setUp() {
+        smtp = new GreenMail(ServerSetupTest.SMTP);
+        smtp.start();
+        emailOutboxRepository.deleteAll();
+        passwordResetTokenRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile user = new UserProfile();
+        user.setEmail("reset@example.com");
+        user.setName("Reset User");
+        user.setUserCards(new ArrayList<>());
+        userProfileRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtp.stop();
+    }
+
+    @Test
+    void resetLinkIsDeliveredAfterCommit() throws Exception {
+        userService.sendResetLink("reset@example.com");
+
+        assertTrue(smtp.waitForIncomingEmail(5000, 1));
+        MimeMessage received = smtp.getReceivedMessages()[0];
+        assertEquals("Password Reset Request – CardScope", received.getSubject());
+        assertEquals("reset@example.com", received.getAllRecipients()[0].toString());
+
+        // The SENT status commits just after the SMTP handoff
+        awaitRows(1, row -> row.getStatus() == EmailOutboxMessage.Status.SENT);
+        assertEquals(1, emailOutboxRepository.findAll().get(0).getAttempts());
+    }
+
+    @Test
+    void failedSendIsRetriedWithBackoff() throws Exception {
+        smtp.stop();
+        userService.sendResetLink("reset@example.com");
+        awaitRows(1, row -> row.getAttempts() > 0);
+
+        EmailOutboxMessage row = emailOutboxRepository.findAll().get(0);
+        assertEquals(EmailOutboxMessage.Status.PENDING, row.getStatus());
+        assertEquals(1, row.getAttempts());
+        assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(row.getLastError());
+
+        // SMTP comes back and the backoff has elapsed
+        smtp.start();
+        row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(row);
+        emailOutboxSender.drain();
+
+        assertTrue(smtp.waitForIncomingEmail(5000, 1));
+        awaitRows(1, r -> r.getStatus() == EmailOutboxMessage.Status.SENT);
+    }
+
+    @Test
+    void batchIsSentOverOneConnection() throws Exception {
+        smtp.stop();
+        for (int i = 0; i < 3; i++) {
+            userService.sendResetLink("reset@example.com");
+        }
+        awaitRows(3, row -> row.getAttempts() > 0);
+        smtp.start();
+        List<EmailOutboxMessage> rows = emailOutboxRepository.findAll();
+        mailSender.connections.set(0);
+        rows.forEach(row -> row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1)));
+        emailOutboxRepository.saveAll(rows);
+
+        emailOutboxSender.drain();
+
+        assertTrue(smtp.waitForIncomingEmail(5000, 3));
+        awaitRows(3, row -> row.getStatus() == EmailOutboxMessage.Status.SENT);
+        assertEquals(1, mailSender.connections.get());
+    }
+
+    @Test
+    void drainRequestedWhileRunningIsNotLost() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        mailSender.beforeConnect = () -> {
+            sending.countDown();
+            await(release);
+        };
+        try {
+            userService.sendResetLink("reset@example.com");
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            // Committed while the running drain is past its query; the fast-path drain finds the lock taken
+            userService.sendResetLink("reset@example.com");
+            Thread.sleep(200);
+            release.countDown();
+
+            assertTrue(smtp.waitForIncomingEmail(5000, 2));
+            awaitRows(2, row -> row.getStatus() == EmailOutboxMessage.Status.SENT);
+        } finally {
+            mailSender.beforeConnect = () -> {
+            };
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The auto-configured sender, counting the SMTP connections it opens.
+     */
+    @TestConfiguration
+    @EnableConfigurationProperties(MailProperties.class)
+    static class CountingMailConfig {
+
+        @Bean
+        CountingMailSender mailSender(MailProperties properties) {
+            CountingMailSender sender = new CountingMailSender();
+            sender.setHost(properties.getHost());
+            sender.setPort(properties.getPort());
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+            Properties javaMail = new Properties();
+            javaMail.putAll(properties.getProperties());
+            sender.setJavaMailProperties(javaMail);
+            return sender;
+        }
+    }
+
+    static class CountingMailSender extends JavaMailSenderImpl {
+
+        final AtomicInteger connections = new AtomicInteger();
+
+        volatile Runnable beforeConnect = () -> {
+        };
+
+        @Override
+        protected Transport connectTransport() throws MessagingException {
+            beforeConnect.run();
+            connections.incrementAndGet();
+            return super.connectTransport();
+        }
+    }
+
+    /**
+     * The after-commit fast path drains on the async executor; wait until every row reaches the expected state.
+     */
+    private void awaitRows(int expectedRows, Predicate<EmailOutboxMessage> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            List<EmailOutboxMessage> rows = emailOutboxRepository.findAll();
+            if (rows.size() == expectedRows && rows.stream().allMatch(condition)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Outbox rows did not reach the expected state in time");
+    }
+}
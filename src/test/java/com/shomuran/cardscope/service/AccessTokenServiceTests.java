@@ -0,0 +1,118 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.dto.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Signing and verification of the hand-rolled HS256 tokens.
+ */
+class AccessTokenServiceTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final AccessTokenService tokens =
+            new AccessTokenService(SECRET, Duration.ofMinutes(15), Duration.ofDays(30));
+
+    @Test
+    void issuedTokensVerify() {
+        AccessTokenService.TokenPair pair = tokens.issue(42L, "user@example.com", 3);
+
+        assertEquals(Optional.of(new AuthenticatedUser(42L, "user@example.com")),
+                tokens.verify(pair.accessToken(), AccessTokenService.TYPE_ACCESS));
+        AccessTokenService.RefreshToken refresh = tokens.verifyRefresh(pair.refreshToken()).orElseThrow();
+        assertEquals(42L, refresh.user().id());
+        assertEquals(3L, refresh.tokenVersion());
+    }
+
+    @Test
+    void tamperedPayloadIsRejected() {
+        String token = tokens.issue(42L, "user@example.com", 0).accessToken();
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("\"sub\":\"42\"", "\"sub\":\"1\"");
+
+        assertTrue(tokens.verify(parts[0] + "." + base64Url(payload) + "." + parts[2],
+                AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String token = tokens.issue(42L, "user@example.com", 0).accessToken();
+        // The signature's first character carries six signature bits; the last one may only differ in padding bits
+        int first = token.lastIndexOf('.') + 1;
+        String flipped = token.substring(0, first) + (token.charAt(first) == 'A' ? 'B' : 'A') + token.substring(first + 1);
+
+        assertTrue(tokens.verify(flipped, AccessTokenService.TYPE_ACCESS).isEmpty());
+        assertTrue(tokens.verify(token.substring(0, token.lastIndexOf('.') + 1), AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    @Test
+    void tokenFromAnotherKeyIsRejected() {
+        AccessTokenService other = new AccessTokenService("fedcba9876543210fedcba9876543210",
+                Duration.ofMinutes(15), Duration.ofDays(30));
+
+        assertTrue(tokens.verify(other.issue(42L, "user@example.com", 0).accessToken(),
+                AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    @Test
+    void otherAlgorithmsAreRejected() {
+        String token = tokens.issue(42L, "user@example.com", 0).accessToken();
+        String[] parts = token.split("\\.");
+
+        String none = base64Url("{\"alg\":\"none\",\"typ\":\"JWT\"}");
+        assertTrue(tokens.verify(none + "." + parts[1] + ".", AccessTokenService.TYPE_ACCESS).isEmpty());
+
+        // Correctly signed with the real key, but the header claims HS512
+        String hs512 = base64Url("{\"alg\":\"HS512\",\"typ\":\"JWT\"}");
+        String resigned = resign(hs512 + "." + parts[1]);
+        assertTrue(tokens.verify(resigned, AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        AccessTokenService expiring = new AccessTokenService(SECRET, Duration.ZERO, Duration.ZERO);
+        AccessTokenService.TokenPair pair = expiring.issue(42L, "user@example.com", 0);
+
+        assertTrue(expiring.verify(pair.accessToken(), AccessTokenService.TYPE_ACCESS).isEmpty());
+        assertTrue(expiring.verifyRefresh(pair.refreshToken()).isEmpty());
+    }
+
+    @Test
+    void tokenTypesAreNotInterchangeable() {
+        AccessTokenService.TokenPair pair = tokens.issue(42L, "user@example.com", 0);
+
+        assertTrue(tokens.verifyRefresh(pair.accessToken()).isEmpty());
+        assertTrue(tokens.verify(pair.refreshToken(), AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertTrue(tokens.verify(null, AccessTokenService.TYPE_ACCESS).isEmpty());
+        assertTrue(tokens.verify("not-a-jwt", AccessTokenService.TYPE_ACCESS).isEmpty());
+        assertTrue(tokens.verify("a.b", AccessTokenService.TYPE_ACCESS).isEmpty());
+        assertTrue(tokens.verify("!!.??.**", AccessTokenService.TYPE_ACCESS).isEmpty());
+    }
+
+    private static String resign(String signingInput) {
+        try {
+            javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
+            mac.init(new javax.crypto.spec.SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return signingInput + "." + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,196 @@
+package com.shomuran.cardscope.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Message numbering and receipt, without a PostgreSQL server: {@code pg_notify} is an H2 alias that records
+ * payloads, and received payloads are fed to {@code receive} directly. Public so H2 can call the alias.
+ */
+public class CacheInvalidationBusTests {
+
+    private static final List<String> notified = new CopyOnWriteArrayList<>();
+
+    private final List<Object> events = new ArrayList<>();
+    private Connection h2;
+
+    /** Stands in for {@code pg_notify}. */
+    public static String pgNotify(String channel, String payload) {
+        notified.add(payload);
+        return "";
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        notified.clear();
+        h2 = DriverManager.getConnection("jdbc:h2:mem:bus-" + UUID.randomUUID());
+        try (Statement statement = h2.createStatement()) {
+            statement.execute("CREATE ALIAS PG_NOTIFY FOR '" + CacheInvalidationBusTests.class.getName() + ".pgNotify'");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        h2.close();
+    }
+
+    @Test
+    void changesAreNumberedInSendOrder() throws SQLException {
+        CacheInvalidationBus sender = bus(10);
+        sender.cardChanged(1L, "Chase", "Sapphire");
+        sender.userChanged(7L, "a@example.com", 42L);
+        sender.flushOutbox(h2);
+        sender.catalogChanged();
+        sender.flushOutbox(h2);
+
+        CacheInvalidationBus receiver = bus(10);
+        notified.forEach(receiver::receive);
+
+        assertEquals(List.of(CacheInvalidationBus.Kind.CARD, CacheInvalidationBus.Kind.USER,
+                CacheInvalidationBus.Kind.CATALOG), kinds());
+        CacheInvalidationBus.Invalidation user = (CacheInvalidationBus.Invalidation) events.get(1);
+        assertEquals(7L, user.userId());
+        assertEquals("a@example.com", user.email());
+        assertEquals(42L, user.version());
+        assertTrue(notified.get(0).contains("\"seq\":1"));
+        assertTrue(notified.get(2).contains("\"seq\":3"));
+    }
+
+    @Test
+    void removalsCarryTheirIds() throws SQLException {
+        CacheInvalidationBus sender = bus(10);
+        sender.cardRemoved(12L, "Chase", "Sapphire");
+        sender.userRemoved(7L, "a@example.com");
+        sender.flushOutbox(h2);
+
+        CacheInvalidationBus receiver = bus(10);
+        notified.forEach(receiver::receive);
+
+        CacheInvalidationBus.Invalidation card = (CacheInvalidationBus.Invalidation) events.get(0);
+        CacheInvalidationBus.Invalidation user = (CacheInvalidationBus.Invalidation) events.get(1);
+        assertEquals(12L, card.cardId());
+        assertTrue(card.removed());
+        assertEquals(7L, user.userId());
+        assertTrue(user.removed());
+    }
+
+    @Test
+    void droppedChangeMakesReceiversResync() throws SQLException {
+        CacheInvalidationBus sender = bus(1);
+        sender.cardChanged(1L, "Chase", "Sapphire");
+        sender.flushOutbox(h2);
+        sender.cardChanged(1L, "Amex", "Gold");
+        sender.cardChanged(1L, "Citi", "Double Cash"); // outbox full: dropped
+        sender.flushOutbox(h2);
+        sender.cardChanged(1L, "Discover", "It");
+        sender.flushOutbox(h2);
+
+        CacheInvalidationBus receiver = bus(10);
+        notified.forEach(receiver::receive);
+
+        assertEquals(3, notified.size());
+        assertTrue(notified.get(1).contains("\"seq\":3"));
+        assertTrue(notified.get(2).contains("\"seq\":4"));
+        assertEquals(List.of(CacheInvalidationBus.Kind.CARD, CacheInvalidationBus.Kind.ALL,
+                CacheInvalidationBus.Kind.CARD), kinds());
+    }
+
+    @Test
+    void gapInReceivedSequenceTriggersResyncAndResumesAfterIt() {
+        CacheInvalidationBus receiver = bus(10);
+
+        receiver.receive(message("other", 1));
+        receiver.receive(message("other", 2));
+        receiver.receive(message("other", 5));
+        receiver.receive(message("other", 6));
+
+        assertEquals(List.of(CacheInvalidationBus.Kind.CARD, CacheInvalidationBus.Kind.CARD,
+                CacheInvalidationBus.Kind.ALL, CacheInvalidationBus.Kind.CARD), kinds());
+    }
+
+    @Test
+    void sequencesAreTrackedPerSender() {
+        CacheInvalidationBus receiver = bus(10);
+
+        receiver.receive(message("first", 10));
+        receiver.receive(message("second", 1));
+        receiver.receive(message("first", 11));
+        receiver.receive(message("second", 2));
+
+        assertEquals(4, kinds().stream().filter(CacheInvalidationBus.Kind.CARD::equals).count());
+    }
+
+    @Test
+    void ownAndMalformedMessagesAreIgnored() throws SQLException {
+        CacheInvalidationBus bus = bus(10);
+        bus.cardChanged(1L, "Chase", "Sapphire");
+        bus.flushOutbox(h2);
+
+        bus.receive(notified.get(0));
+        bus.receive("not json");
+        bus.receive("{\"origin\":\"other\",\"seq\":1}");
+        bus.receive("{\"origin\":\"other\",\"seq\":1,\"change\":{\"kind\":\"NOPE\"}}");
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void reconnectResyncsAndForgetsSequences() {
+        CacheInvalidationBus receiver = bus(10);
+        receiver.listening(false);
+        receiver.receive(message("other", 1));
+        assertEquals(List.of(CacheInvalidationBus.Kind.CARD), kinds());
+
+        receiver.listening(true);
+        // The sender went on while we were away; its next number is not a gap after the resync
+        receiver.receive(message("other", 9));
+
+        assertEquals(List.of(CacheInvalidationBus.Kind.CARD, CacheInvalidationBus.Kind.ALL,
+                CacheInvalidationBus.Kind.CARD), kinds());
+    }
+
+    @Test
+    void busIsOffOutsidePostgres() throws SQLException {
+        DataSourceProperties h2Properties = new DataSourceProperties();
+        h2Properties.setUrl("jdbc:h2:mem:test");
+        CacheInvalidationBus bus = new CacheInvalidationBus(events::add, new SimpleMeterRegistry(), h2Properties,
+                true, "cardscope_cache", Duration.ofMillis(250), Duration.ofSeconds(5), 10);
+
+        bus.cardChanged(1L, "Chase", "Sapphire");
+        bus.flushOutbox(h2);
+
+        assertTrue(notified.isEmpty());
+    }
+
+    private CacheInvalidationBus bus(int maxPending) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:postgresql://localhost:5432/cardscope");
+        properties.setUsername("cardscope");
+        return new CacheInvalidationBus(events::add, new SimpleMeterRegistry(), properties,
+                true, "cardscope_cache", Duration.ofMillis(250), Duration.ofSeconds(5), maxPending);
+    }
+
+    private static String message(String origin, long seq) {
+        return "{\"origin\":\"" + origin + "\",\"seq\":" + seq
+                + ",\"change\":{\"kind\":\"CARD\",\"issuer\":\"Chase\",\"cardProduct\":\"Sapphire\",\"version\":1}}";
+    }
+
+    private List<CacheInvalidationBus.Kind> kinds() {
+        return events.stream().map(event -> ((CacheInvalidationBus.Invalidation) event).kind()).toList();
+    }
+}
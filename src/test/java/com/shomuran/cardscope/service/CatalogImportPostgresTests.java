@@ -0,0 +1,119 @@
+package com.shomuran.cardscope.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The PostgreSQL path of the catalog import ({@code COPY} into staging, then {@code INSERT ... ON CONFLICT}).
+ * <p>
+ * Opt-in: runs only when {@code CARDSCOPE_TEST_POSTGRES_URL} points at a throwaway database
+ * ({@code CARDSCOPE_TEST_POSTGRES_USER} / {@code _PASSWORD} default to postgres / empty). The schema is
+ * created and dropped by Hibernate, e.g.
+ * {@code docker run --rm -p 5432:5432 -e POSTGRES_HOST_AUTH_METHOD=trust postgres:16} with
+ * {@code CARDSCOPE_TEST_POSTGRES_URL=jdbc:postgresql://localhost:5432/postgres}.
+ */
+@EnabledIfEnvironmentVariable(named = "CARDSCOPE_TEST_POSTGRES_URL", matches = ".+")
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.catalog.import.batch-size=4"
+})
+class CatalogImportPostgresTests {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("CARDSCOPE_TEST_POSTGRES_URL"));
+        registry.add("spring.datasource.username",
+                () -> System.getenv().getOrDefault("CARDSCOPE_TEST_POSTGRES_USER", "postgres"));
+        registry.add("spring.datasource.password",
+                () -> System.getenv().getOrDefault("CARDSCOPE_TEST_POSTGRES_PASSWORD", ""));
+    }
+
+    @Autowired
+    private CatalogImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM credit_card WHERE issuer LIKE 'Import %'");
+    }
+
+    @Test
+    void copyMergeUpsertsAndLeavesUnchangedRowsAlone() throws Exception {
+        String csv = """
+                issuer,card_product,reward_details
+                Import Bank,Bronze,"{""dining"": ""1x""}"
+                Import Bank,Bronze,"{""dining"": ""1.5x""}"
+                Import Bank,Gold,"{""dining"": ""4x"", ""note"": ""a, b""}"
+                "Import ""Quoted"" Bank",Silver,"{
+                  ""travel"": ""2x""
+                }"
+                Import Bank,Plain,
+                """;
+
+        CatalogImportService.Report first = importCsv(csv);
+        assertEquals(5, first.rows());
+        assertEquals(4, first.upserted());
+        assertEquals(1, first.unchanged()); // the two Bronze rows share a batch; the later one wins
+        assertEquals("{\"dining\":\"4x\",\"note\":\"a, b\"}", rewardDetails("Import Bank", "Gold"));
+        assertEquals("{\"travel\":\"2x\"}", rewardDetails("Import \"Quoted\" Bank", "Silver"));
+        assertEquals("{\"dining\":\"1.5x\"}", rewardDetails("Import Bank", "Bronze"));
+        assertEquals("{}", rewardDetails("Import Bank", "Plain"));
+
+        jdbc.update("UPDATE credit_card SET updated_at = ? WHERE issuer LIKE 'Import %'", Timestamp.valueOf(OLD));
+        CatalogImportService.Report again = importCsv(csv.replace("\"\"4x\"\"", "\"\"5x\"\""));
+
+        assertEquals(1, again.upserted());
+        assertEquals(4, again.unchanged());
+        assertTrue(updatedAt("Import Bank", "Gold").isAfter(OLD));
+        assertEquals(OLD, updatedAt("Import \"Quoted\" Bank", "Silver"));
+        assertEquals(OLD, updatedAt("Import Bank", "Bronze"));
+        assertEquals(OLD, updatedAt("Import Bank", "Plain"));
+    }
+
+    @Test
+    void stagingTableIsRecreatedForTheNextImport() throws Exception {
+        importCsv("issuer,card_product\nImport Bank,First\n");
+
+        CatalogImportService.Report next = importCsv("issuer,card_product\nImport Bank,Second\n");
+
+        assertEquals(1, next.upserted());
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM credit_card WHERE issuer = 'Import Bank'",
+                Integer.class));
+    }
+
+    private CatalogImportService.Report importCsv(String csv) throws Exception {
+        return importService.importCatalog(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                CatalogImportService.Format.CSV);
+    }
+
+    private String rewardDetails(String issuer, String product) {
+        return jdbc.queryForObject("SELECT reward_details FROM credit_card WHERE issuer = ? AND card_product = ?",
+                String.class, issuer, product);
+    }
+
+    private LocalDateTime updatedAt(String issuer, String product) {
+        return jdbc.queryForObject("SELECT updated_at FROM credit_card WHERE issuer = ? AND card_product = ?",
+                Timestamp.class, issuer, product).toLocalDateTime();
+    }
+}
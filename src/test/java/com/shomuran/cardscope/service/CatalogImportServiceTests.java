@@ -0,0 +1,254 @@
+package com.shomuran.cardscope.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CSV and JSON-lines catalog imports against H2 (the MERGE batch path), plus the CSV record reader.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false",
+        "app.catalog.import.batch-size=2"
+})
+class CatalogImportServiceTests {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private CatalogImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @MockitoSpyBean
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM credit_card WHERE issuer LIKE 'Import %'");
+        clearInvocations(cacheInvalidationBus);
+    }
+
+    @Test
+    void csvRowsAreUpsertedAndRejectsReported() throws Exception {
+        CatalogImportService.Report report = importCsv("""
+                issuer,card_product,reward_details
+                Import Bank,Gold,"{""dining"": ""4x"", ""note"": ""a, b""}"
+                Import Bank,Silver,
+                ,Orphan,{}
+                Import Bank,Broken,"{not json"
+                Import Bank,List,"[1,2]"
+                Import Bank,Multi,"{
+                  ""dining"": ""3x"",
+                  ""travel"": ""1x""
+                }"
+                """);
+
+        assertEquals(6, report.rows());
+        assertEquals(3, report.upserted());
+        assertEquals(0, report.unchanged());
+        assertEquals(3, report.rejected());
+        assertEquals(List.of(4L, 5L, 6L), report.rejects().stream().map(CatalogImportService.Reject::line).toList());
+        assertEquals("issuer and card_product are required", report.rejects().get(0).reason());
+        assertTrue(report.rejects().get(1).reason().startsWith("reward_details is not valid JSON"));
+        assertEquals("reward_details must be a JSON object", report.rejects().get(2).reason());
+
+        assertEquals("{\"dining\":\"4x\",\"note\":\"a, b\"}", rewardDetails("Gold"));
+        assertEquals("{}", rewardDetails("Silver"));
+        assertEquals("{\"dining\":\"3x\",\"travel\":\"1x\"}", rewardDetails("Multi"));
+    }
+
+    @Test
+    void unchangedRowsKeepTheirUpdatedAt() throws Exception {
+        String csv = """
+                issuer,card_product,reward_details
+                Import Bank,Gold,"{""dining"":""4x""}"
+                Import Bank,Silver,"{""dining"":""2x""}"
+                Import Bank,Bronze,"{""dining"":""1x""}"
+                """;
+        assertEquals(3, importCsv(csv).upserted());
+        jdbc.update("UPDATE credit_card SET updated_at = ? WHERE issuer = 'Import Bank'", Timestamp.valueOf(OLD));
+
+        // Same details with different spacing still compare equal once stored compact
+        CatalogImportService.Report report = importCsv(csv
+                .replace("{\"\"dining\"\":\"\"2x\"\"}", "{ \"\"dining\"\" : \"\"2x\"\" }")
+                .replace("1x", "1.5x"));
+
+        assertEquals(1, report.upserted());
+        assertEquals(2, report.unchanged());
+        assertEquals(OLD, updatedAt("Gold"));
+        assertEquals(OLD, updatedAt("Silver"));
+        assertTrue(updatedAt("Bronze").isAfter(OLD));
+        assertEquals("{\"dining\":\"1.5x\"}", rewardDetails("Bronze"));
+    }
+
+    @Test
+    void byteOrderMarkAndAlternativeHeadersAreAccepted() throws Exception {
+        CatalogImportService.Report report = importService.importCatalog(stream(
+                "\uFEFF\"Issuer\",Product,Rewards\r\nImport BOM,Card,\"{}\"\r\n"), CatalogImportService.Format.CSV);
+
+        assertEquals(1, report.upserted());
+        assertEquals(0, report.rejected());
+
+        CatalogImportService.Report jsonLines = importService.importCatalog(stream(
+                "\uFEFF{\"issuer\":\"Import BOM\",\"cardProduct\":\"Other\"}\n"), CatalogImportService.Format.JSONL);
+        assertEquals(1, jsonLines.upserted());
+        assertEquals(0, jsonLines.rejected());
+        assertEquals(2, count("Import BOM"));
+    }
+
+    @Test
+    void failureMidFileKeepsCommittedBatchesAndRefreshesCaches() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        InputStream input = new SequenceInputStream(stream("""
+                issuer,card_product,reward_details
+                Import Partial,One,{}
+                Import Partial,Two,{}
+                Import Partial,Three,{}
+                """), failing);
+
+        assertThrows(IOException.class, () -> importService.importCatalog(input, CatalogImportService.Format.CSV));
+
+        // The first batch of two was committed; the third row was still pending and is rolled back
+        assertEquals(2, count("Import Partial"));
+        verify(cacheInvalidationBus).catalogChanged();
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsFails() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importCsv("issuer,rewards\nImport Bank,{}\n"));
+    }
+
+    @Test
+    void jsonLinesAreUpsertedAndRejectsReported() throws Exception {
+        CatalogImportService.Report report = importService.importCatalog(stream("""
+                {"issuer":"Import Json","cardProduct":"Gold","rewardDetails":{"dining":"4x","tiers":[1,2]}}
+                {"issuer":"Import Json","card_product":"Silver","reward_details":"{\\"travel\\": \\"2x\\"}"}
+
+                {"issuer":"Import Json","cardProduct":"Plain"}
+                {"issuer":"Import Json","cardProduct":"Broken"
+                ["Import Json","Array"]
+                {"issuer":"Import Json","cardProduct":"Rewards","rewardDetails":[1]}
+                {"issuer":"  ","cardProduct":"Blank"}
+                """), CatalogImportService.Format.JSONL);
+
+        assertEquals(7, report.rows());
+        assertEquals(3, report.upserted());
+        assertEquals(4, report.rejected());
+        assertEquals(List.of(5L, 6L, 7L, 8L), report.rejects().stream().map(CatalogImportService.Reject::line).toList());
+        assertTrue(report.rejects().get(0).reason().startsWith("not valid JSON"));
+        assertEquals("not a JSON object", report.rejects().get(1).reason());
+        assertEquals("reward_details must be a JSON object", report.rejects().get(2).reason());
+        assertEquals("issuer and card_product are required", report.rejects().get(3).reason());
+
+        jdbc.update("UPDATE credit_card SET updated_at = ? WHERE issuer = 'Import Json'", Timestamp.valueOf(OLD));
+        CatalogImportService.Report again = importService.importCatalog(stream(
+                "{\"issuer\":\"Import Json\",\"cardProduct\":\"Gold\",\"rewardDetails\":{\"dining\":\"4x\",\"tiers\":[1,2]}}\n"),
+                CatalogImportService.Format.JSONL);
+        assertEquals(0, again.upserted());
+        assertEquals(1, again.unchanged());
+        assertEquals(OLD, updatedAt("Import Json", "Gold"));
+        assertEquals("{\"travel\":\"2x\"}", rewardDetails("Import Json", "Silver"));
+        assertEquals("{}", rewardDetails("Import Json", "Plain"));
+    }
+
+    @Test
+    void csvParserHandlesQuotesAndLineBreaks() throws IOException {
+        CatalogImportService.CsvParser csv = parser("""
+                a,"b,c","say ""hi""\",""
+                "multi
+                line
+                field",x
+                plain,"",,end
+                """);
+
+        assertEquals(List.of("a", "b,c", "say \"hi\"", ""), csv.next());
+        assertEquals(1, csv.recordStartLine());
+        assertEquals(List.of("multi\nline\nfield", "x"), csv.next());
+        assertEquals(2, csv.recordStartLine());
+        assertEquals(List.of("plain", "", "", "end"), csv.next());
+        assertEquals(5, csv.recordStartLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void csvParserKeepsQuotesInsideUnquotedFields() throws IOException {
+        CatalogImportService.CsvParser csv = parser("5\" screen,\"\"\"quoted\"\"\"\n");
+
+        assertEquals(List.of("5\" screen", "\"quoted\""), csv.next());
+    }
+
+    @Test
+    void csvParserEndsAnUnterminatedQuoteAtEndOfInput() throws IOException {
+        CatalogImportService.CsvParser csv = parser("a,\"open\nstill open");
+
+        assertEquals(List.of("a", "open\nstill open"), csv.next());
+        assertNull(csv.next());
+    }
+
+    private CatalogImportService.Report importCsv(String csv) throws IOException, SQLException {
+        return importService.importCatalog(stream(csv), CatalogImportService.Format.CSV);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CatalogImportService.CsvParser parser(String text) {
+        return new CatalogImportService.CsvParser(new BufferedReader(new StringReader(text)));
+    }
+
+    private String rewardDetails(String product) {
+        return rewardDetails("Import Bank", product);
+    }
+
+    private String rewardDetails(String issuer, String product) {
+        return row(issuer, product).get("reward_details").toString();
+    }
+
+    private LocalDateTime updatedAt(String product) {
+        return updatedAt("Import Bank", product);
+    }
+
+    private LocalDateTime updatedAt(String issuer, String product) {
+        return ((Timestamp) row(issuer, product).get("updated_at")).toLocalDateTime();
+    }
+
+    private Map<String, Object> row(String issuer, String product) {
+        return jdbc.queryForMap("SELECT reward_details, updated_at FROM credit_card WHERE issuer = ? AND card_product = ?",
+                issuer, product);
+    }
+
+    private int count(String issuer) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM credit_card WHERE issuer = ?", Integer.class, issuer);
+    }
+}
@@ -0,0 +1,164 @@
+package com.shomuran.cardscope.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Catalog sync paging, the settle window and tombstones against H2. Test rows are stamped in 1971 so they
+ * come before any other catalog row in the stream.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false",
+        "app.catalog.sync.settle-window=1s"
+})
+class CatalogSyncServiceTests {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(1971, 1, 1, 0, 0);
+    private static final LocalDateTime T2 = T1.plusMinutes(1);
+    private static final LocalDateTime T3 = T1.plusMinutes(2);
+    private static final int ALL = 2000;
+
+    @Autowired
+    private CatalogSyncService syncService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("DELETE FROM credit_card WHERE issuer LIKE 'Sync %'");
+        jdbc.update("DELETE FROM credit_card_tombstone WHERE issuer LIKE 'Sync %'");
+        entityCacheService.evictCatalog();
+    }
+
+    @Test
+    void pagesFollowUpdatedAtThenIdAcrossEqualTimestamps() {
+        insertCard("A", T1);
+        long b = insertCard("B", T2);
+        insertCard("C", T2);
+        insertCard("D", T3);
+
+        Map<String, Object> first = syncService.changesSince(null, 2);
+        assertEquals(List.of("A", "B"), products(first));
+        assertEquals(true, first.get("hasMore"));
+        String[] cursor = decode(first);
+        assertEquals(ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), T2), Long.parseLong(cursor[0]));
+        assertEquals(b, Long.parseLong(cursor[1]));
+
+        // C shares B's timestamp and must not be skipped; the same cursor gives the same page
+        Map<String, Object> second = syncService.changesSince((String) first.get("cursor"), 2);
+        assertEquals(List.of("C", "D"), products(second));
+        assertEquals(second, syncService.changesSince((String) first.get("cursor"), 2));
+
+        Map<String, Object> whole = syncService.changesSince(null, ALL);
+        assertEquals(false, whole.get("hasMore"));
+        assertEquals(List.of("A", "B", "C", "D"), products(whole));
+    }
+
+    @Test
+    void rowsInsideTheSettleWindowWaitForTheNextSync() throws InterruptedException {
+        insertCard("Settled", T1);
+        insertCard("Fresh", LocalDateTime.now());
+
+        Map<String, Object> first = syncService.changesSince(null, ALL);
+        assertEquals(List.of("Settled"), products(first));
+
+        Thread.sleep(1100);
+        assertEquals(List.of("Fresh"), products(syncService.changesSince((String) first.get("cursor"), ALL)));
+    }
+
+    @Test
+    void firstSyncStartsTheDeleteStreamAtItsSnapshot() throws InterruptedException {
+        insertTombstone("Gone", T1);
+        insertCard("Retiring", T1);
+
+        Map<String, Object> first = syncService.changesSince(null, ALL);
+        assertEquals(List.of(), first.get("deletes"));
+        assertEquals(Long.MAX_VALUE, Long.parseLong(decode(first)[3]));
+
+        assertTrue(syncService.retire("Sync Bank", "Retiring"));
+        assertFalse(syncService.retire("Sync Bank", "Retiring"));
+        assertEquals(0, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM credit_card WHERE issuer = 'Sync Bank' AND card_product = 'Retiring'", Integer.class));
+        assertEquals(1, jdbc.queryForObject(
+                "SELECT COUNT(*) FROM credit_card_tombstone WHERE issuer = 'Sync Bank' AND card_product = 'Retiring'",
+                Integer.class));
+
+        // The earlier tombstone was already reflected in the first sync's snapshot
+        Thread.sleep(1100);
+        List<Map<String, Object>> deletes = deletes(syncService.changesSince((String) first.get("cursor"), ALL));
+        assertEquals(List.of("Retiring"), deletes.stream().map(d -> d.get("cardProduct")).toList());
+        assertNotNull(deletes.get(0).get("deletedAt"));
+    }
+
+    @Test
+    void cursorsThisServiceDidNotIssueAreRejected() {
+        assertThrows(CatalogSyncService.InvalidCursorException.class, () -> syncService.changesSince("%%%", 10));
+        assertThrows(CatalogSyncService.InvalidCursorException.class, () -> syncService.changesSince(encode("1.2.3"), 10));
+        assertThrows(CatalogSyncService.InvalidCursorException.class, () -> syncService.changesSince(encode("1.x.3.4"), 10));
+
+        ResponseEntity<Map> response = rest.getForEntity("/api/cards/sync?since={since}", Map.class, encode("junk"));
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Malformed sync cursor", response.getBody().get("error"));
+    }
+
+    private long insertCard(String product, LocalDateTime updatedAt) {
+        jdbc.update("INSERT INTO credit_card (issuer, card_product, reward_details, updated_at) VALUES (?, ?, ?, ?)",
+                "Sync Bank", product, "{}", Timestamp.valueOf(updatedAt));
+        return jdbc.queryForObject("SELECT id FROM credit_card WHERE issuer = 'Sync Bank' AND card_product = ?",
+                Long.class, product);
+    }
+
+    private void insertTombstone(String product, LocalDateTime updatedAt) {
+        jdbc.update("INSERT INTO credit_card_tombstone (issuer, card_product, updated_at) VALUES (?, ?, ?)",
+                "Sync Bank", product, Timestamp.valueOf(updatedAt));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> products(Map<String, Object> response) {
+        return ((List<Map<String, Object>>) response.get("upserts")).stream()
+                .filter(upsert -> "Sync Bank".equals(upsert.get("issuer")))
+                .map(upsert -> (String) upsert.get("cardProduct"))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> deletes(Map<String, Object> response) {
+        return ((List<Map<String, Object>>) response.get("deletes")).stream()
+                .filter(delete -> "Sync Bank".equals(delete.get("issuer")))
+                .toList();
+    }
+
+    private static String[] decode(Map<String, Object> response) {
+        return new String(Base64.getUrlDecoder().decode((String) response.get("cursor")), StandardCharsets.US_ASCII)
+                .split("\\.");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
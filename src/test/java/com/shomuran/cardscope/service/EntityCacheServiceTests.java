@@ -0,0 +1,153 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.CreditCard;
+import com.shomuran.cardscope.model.UserProfile;
+import com.shomuran.cardscope.repository.CreditCardRepository;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.cache.CacheManager;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Second-level cache eviction for invalidations from other instances: one entity per change, natural ids only
+ * on delete.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false"
+})
+class EntityCacheServiceTests {
+
+    @Autowired
+    private CreditCardRepository creditCardRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager entityCacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Cache cache;
+    private CreditCard gold;
+    private CreditCard silver;
+    private UserProfile alice;
+    private UserProfile bob;
+
+    @BeforeEach
+    void setUp() {
+        cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        gold = card("Gold");
+        silver = card("Silver");
+        alice = user("alice@cache.example");
+        bob = user("bob@cache.example");
+
+        cache.evictAllRegions();
+        creditCardRepository.findByNaturalId("Cache Bank", "Gold").orElseThrow();
+        creditCardRepository.findByNaturalId("Cache Bank", "Silver").orElseThrow();
+        userProfileRepository.findProfileByEmail(alice.getEmail()).orElseThrow();
+        userProfileRepository.findProfileByEmail(bob.getEmail()).orElseThrow();
+        assertTrue(cache.containsEntity(CreditCard.class, gold.getId()));
+        assertTrue(cache.containsEntity(UserProfile.class, alice.getId()));
+    }
+
+    @Test
+    void changedCardIsEvictedAlone() {
+        eventPublisher.publishEvent(card(gold, false));
+
+        assertFalse(cache.containsEntity(CreditCard.class, gold.getId()));
+        assertTrue(cache.containsEntity(CreditCard.class, silver.getId()));
+        assertEquals(2, naturalIds("credit-card-natural-id"));
+    }
+
+    @Test
+    void removedCardAlsoDropsNaturalIds() {
+        eventPublisher.publishEvent(card(gold, true));
+
+        assertFalse(cache.containsEntity(CreditCard.class, gold.getId()));
+        assertTrue(cache.containsEntity(CreditCard.class, silver.getId()));
+        assertEquals(0, naturalIds("credit-card-natural-id"));
+    }
+
+    @Test
+    void changedUserIsEvictedAlone() {
+        eventPublisher.publishEvent(new CacheInvalidationBus.Invalidation(CacheInvalidationBus.Kind.USER,
+                null, null, null, alice.getId(), alice.getEmail(), false, 1L));
+
+        assertFalse(cache.containsEntity(UserProfile.class, alice.getId()));
+        assertTrue(cache.containsEntity(UserProfile.class, bob.getId()));
+        assertEquals(2, naturalIds("user-profile-natural-id"));
+        assertTrue(cache.containsEntity(CreditCard.class, gold.getId()));
+    }
+
+    @Test
+    void removedUserAlsoDropsNaturalIds() {
+        eventPublisher.publishEvent(new CacheInvalidationBus.Invalidation(CacheInvalidationBus.Kind.USER,
+                null, null, null, alice.getId(), alice.getEmail(), true, 1L));
+
+        assertFalse(cache.containsEntity(UserProfile.class, alice.getId()));
+        assertTrue(cache.containsEntity(UserProfile.class, bob.getId()));
+        assertEquals(0, naturalIds("user-profile-natural-id"));
+    }
+
+    @Test
+    void catalogChangeDropsCardsWrittenBehindHibernate() {
+        jdbc.update("UPDATE credit_card SET reward_details = '{\"dining\":\"3x\"}' WHERE id = ?", gold.getId());
+        assertEquals("{}", creditCardRepository.findByNaturalId("Cache Bank", "Gold").orElseThrow().getRewardDetails());
+
+        eventPublisher.publishEvent(new CacheInvalidationBus.Invalidation(CacheInvalidationBus.Kind.CATALOG,
+                null, null, null, null, null, false, 1L));
+
+        assertEquals("{\"dining\":\"3x\"}",
+                creditCardRepository.findByNaturalId("Cache Bank", "Gold").orElseThrow().getRewardDetails());
+        assertTrue(cache.containsEntity(UserProfile.class, alice.getId()));
+    }
+
+    private CreditCard card(String product) {
+        creditCardRepository.findByIssuerIgnoreCaseAndCardProductIgnoreCase("Cache Bank", product)
+                .ifPresent(creditCardRepository::delete);
+        CreditCard card = new CreditCard();
+        card.setIssuer("Cache Bank");
+        card.setCardProduct(product);
+        card.setRewardDetails("{}");
+        return creditCardRepository.save(card);
+    }
+
+    private UserProfile user(String email) {
+        userProfileRepository.findProfileByEmail(email).ifPresent(userProfileRepository::delete);
+        UserProfile user = new UserProfile();
+        user.setEmail(email);
+        user.setName(email);
+        return userProfileRepository.save(user);
+    }
+
+    private static CacheInvalidationBus.Invalidation card(CreditCard card, boolean removed) {
+        return new CacheInvalidationBus.Invalidation(CacheInvalidationBus.Kind.CARD, card.getId(),
+                card.getIssuer(), card.getCardProduct(), null, null, removed, 1L);
+    }
+
+    private long naturalIds(String region) {
+        return StreamSupport.stream(entityCacheManager.getCache(region).spliterator(), false).count();
+    }
+}
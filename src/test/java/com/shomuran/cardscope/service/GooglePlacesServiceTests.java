@@ -0,0 +1,163 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.dto.NearbySearchResponse;
+import com.shomuran.cardscope.dto.StoreInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fallbacks when Places calls are throttled locally or rejected by Google, against a local stand-in for
+ * both Places hosts. Each test uses its own coordinates, since the fallback cache outlives a test.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false"
+})
+class GooglePlacesServiceTests {
+
+    private static final String STORE = """
+            {"status":"OK","results":[{"name":"Corner Market","types":["grocery_or_supermarket","store"]}]}
+            """;
+    private static final String OVER_QUERY_LIMIT = """
+            {"status":"OVER_QUERY_LIMIT","results":[]}
+            """;
+    private static final String PLACES = """
+            {"places":[{"displayName":{"text":"Corner Cafe"},"primaryType":"cafe"}]}
+            """;
+
+    private static HttpServer server;
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static volatile int status;
+    private static volatile String legacyBody;
+
+    @Autowired
+    private GooglePlacesService placesService;
+
+    @MockitoSpyBean
+    private PlacesRateLimiter placesRateLimiter;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/maps/api/place/", exchange -> respond(exchange, legacyBody));
+        server.createContext("/v1/places:searchNearby", exchange -> respond(exchange, PLACES));
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void placesBaseUrls(DynamicPropertyRegistry registry) {
+        registry.add("google.places.base-url", () -> "http://localhost:" + server.getAddress().getPort());
+        registry.add("google.places.new-api-base-url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @BeforeEach
+    void setUp() {
+        requests.set(0);
+        status = 200;
+        legacyBody = STORE;
+        doReturn(true).when(placesRateLimiter).tryAcquire(anyString(), any());
+    }
+
+    @Test
+    void throttledLookupServesTheLastResponseForTheSpot() {
+        assertEquals("Corner Market / grocery_or_supermarket", store(placesService.detectNearestStore(40.0, -74.0)));
+
+        throttle();
+        // About 50 m away: the same rounded spot
+        assertEquals("Corner Market / grocery_or_supermarket",
+                store(placesService.detectNearestStore(40.0004, -74.0)));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void throttledLookupWithoutCachedDataIsAnUnknownStore() {
+        throttle();
+
+        assertEquals("Unknown Store / general", store(placesService.detectNearestStore(41.0, -74.0)));
+        assertEquals(List.of(), placesService.detectNearestStorev2(41.0, -74.0).getPlaces());
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void throttledCategoryLookupUsesLocalKeywords() {
+        throttle();
+
+        String expected = RewardRuleCompiler.normalizeCategory("Whole Foods Market");
+        assertEquals("other".equals(expected) ? "general" : expected,
+                placesService.getCategoryForStore("Whole Foods Market"));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void overQueryLimitDrainsTheBucketAndFallsBack() {
+        assertEquals("Corner Market / grocery_or_supermarket", store(placesService.detectNearestStore(42.0, -74.0)));
+
+        legacyBody = OVER_QUERY_LIMIT;
+        assertEquals("Corner Market / grocery_or_supermarket", store(placesService.detectNearestStore(42.0, -74.0)));
+        assertEquals("Unknown Store / general", store(placesService.detectNearestStore(43.0, -74.0)));
+        verify(placesRateLimiter, times(2)).drain("nearbysearch");
+    }
+
+    @Test
+    void tooManyRequestsDrainsTheBucketAndFallsBack() {
+        NearbySearchResponse fresh = placesService.detectNearestStorev2(44.0, -74.0);
+        assertEquals("Corner Cafe", fresh.getPlaces().get(0).getDisplayName().getText());
+
+        status = 429;
+        assertEquals(fresh, placesService.detectNearestStorev2(44.0, -74.0));
+        assertEquals("Unknown Store / general", store(placesService.detectNearestStore(45.0, -74.0)));
+        verify(placesRateLimiter).drain("searchNearby");
+        verify(placesRateLimiter).drain("nearbysearch");
+    }
+
+    private static String store(StoreInfo store) {
+        return store.getName() + " / " + store.getCategory();
+    }
+
+    private void throttle() {
+        doReturn(false).when(placesRateLimiter).tryAcquire(anyString(), any());
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
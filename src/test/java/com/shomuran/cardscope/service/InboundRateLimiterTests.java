@@ -0,0 +1,83 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.InboundProtectionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-caller token buckets, driven by a manual clock.
+ */
+class InboundRateLimiterTests {
+
+    /** One request per second, bursts of two. */
+    private static final InboundProtectionProperties.Rate RATE = new InboundProtectionProperties.Rate(60, 2);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final InboundRateLimiter limiter = new InboundRateLimiter(new InboundProtectionProperties(), clock::get);
+
+    @Test
+    void burstIsServedThenCallerWaitsForRefill() {
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+
+        InboundRateLimiter.Decision denied = limiter.tryAcquire("ip", "10.0.0.1", RATE);
+        assertFalse(denied.allowed());
+        assertEquals(1, denied.retryAfterSeconds());
+
+        advance(Duration.ofMillis(500));
+        assertFalse(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+        advance(Duration.ofMillis(500));
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+    }
+
+    @Test
+    void refillIsCappedAtBurst() {
+        advance(Duration.ofHours(1));
+
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+        assertFalse(limiter.tryAcquire("ip", "10.0.0.1", RATE).allowed());
+    }
+
+    @Test
+    void retryAfterCoversTheWholeWait() {
+        InboundProtectionProperties.Rate slow = new InboundProtectionProperties.Rate(6, 1);
+        assertTrue(limiter.tryAcquire("user", "7", slow).allowed());
+
+        assertEquals(10, limiter.tryAcquire("user", "7", slow).retryAfterSeconds());
+        advance(Duration.ofMillis(9_500));
+        assertEquals(1, limiter.tryAcquire("user", "7", slow).retryAfterSeconds());
+    }
+
+    @Test
+    void callersAndScopesHaveSeparateBuckets() {
+        InboundProtectionProperties.Rate single = new InboundProtectionProperties.Rate(60, 1);
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.1", single).allowed());
+        assertFalse(limiter.tryAcquire("ip", "10.0.0.1", single).allowed());
+
+        assertTrue(limiter.tryAcquire("ip", "10.0.0.2", single).allowed());
+        assertTrue(limiter.tryAcquire("user", "10.0.0.1", single).allowed());
+    }
+
+    @Test
+    void idleBucketsComeBackFull() {
+        InboundProtectionProperties properties = new InboundProtectionProperties();
+        properties.setKeyIdleTimeout(Duration.ofMinutes(1));
+        InboundRateLimiter expiring = new InboundRateLimiter(properties, clock::get);
+        InboundProtectionProperties.Rate never = new InboundProtectionProperties.Rate(0, 1);
+
+        assertTrue(expiring.tryAcquire("ip", "10.0.0.1", never).allowed());
+        assertFalse(expiring.tryAcquire("ip", "10.0.0.1", never).allowed());
+        advance(Duration.ofMinutes(2));
+        assertTrue(expiring.tryAcquire("ip", "10.0.0.1", never).allowed());
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+}
@@ -0,0 +1,74 @@
+package com.shomuran.cardscope.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Closing of JSON cut off mid-stream; each row is truncated input and the expected repair (null: left alone).
+ */
+class JsonRepairTests {
+
+    static Stream<Arguments> truncated() {
+        return Stream.of(
+                arguments("inside a string value", "{\"a\":1,\"b\":\"hel", "{\"a\":1}"),
+                arguments("inside a key", "{\"a\":1,\"bc", "{\"a\":1}"),
+                arguments("after a colon", "{\"a\":1,\"b\":", "{\"a\":1}"),
+                arguments("after a comma", "{\"a\":\"x\",", "{\"a\":\"x\"}"),
+                arguments("inside a number", "{\"a\":true,\"b\":12", "{\"a\":true}"),
+                arguments("escaped quote kept", "{\"a\":\"x\\\"y\",\"b\":\"z\\\"", "{\"a\":\"x\\\"y\"}"),
+                arguments("escaped backslash ends string", "{\"a\":\"c:\\\\\",\"b\":\"d\\\\",
+                        "{\"a\":\"c:\\\\\"}"),
+                arguments("braces inside a string", "{\"a\":\"{[\",\"b\":\"]}", "{\"a\":\"{[\"}"),
+                arguments("nested object in array",
+                        "{\"cards\":[{\"name\":\"A\",\"rate\":2},{\"name\":\"B\",\"ra",
+                        "{\"cards\":[{\"name\":\"A\",\"rate\":2},{\"name\":\"B\"}]}"),
+                arguments("nested arrays", "[[1,2],[3,", "[[1,2],[3]]"),
+                arguments("string in array", "[\"x\",\"y", "[\"x\"]"),
+                arguments("right after an opening bracket", "{\"a\":[", "{\"a\":[]}"),
+                arguments("only an opening brace", "{", "{}"),
+                arguments("leading whitespace", "  {\"a\":null,", "  {\"a\":null}")
+        );
+    }
+
+    static Stream<Arguments> notRepairable() {
+        return Stream.of(
+                arguments("complete object", "{\"a\":1}"),
+                arguments("complete array", "[1,2]"),
+                arguments("empty", ""),
+                arguments("whitespace", "   "),
+                arguments("bare string", "\"abc"),
+                arguments("mismatched closer", "{\"a\":[1}"),
+                arguments("second top-level value", "{\"a\":1}{\"b\":"),
+                arguments("closer without opener", "]")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("truncated")
+    void truncatedJsonIsClosed(String name, String input, String expected) {
+        assertEquals(expected, repair(input));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("notRepairable")
+    void otherInputIsLeftAlone(String name, String input) {
+        assertNull(repair(input));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("truncated")
+    void onlyTheGivenRangeIsRead(String name, String input, String expected) {
+        char[] buffer = ("xx" + input + "yy").toCharArray();
+        assertEquals(expected, JsonRepair.repair(buffer, 2, 2 + input.length()));
+    }
+
+    private static String repair(String input) {
+        return JsonRepair.repair(input.toCharArray(), 0, input.length());
+    }
+}
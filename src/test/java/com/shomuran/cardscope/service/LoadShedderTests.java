@@ -0,0 +1,143 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.InboundProtectionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The CoDel-style gate. Queueing delay is measured on a manual clock; only the slot hand-off between
+ * threads is real.
+ */
+class LoadShedderTests {
+
+    private static final Duration TARGET = Duration.ofMillis(100);
+    private static final Duration INTERVAL = Duration.ofSeconds(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void admitsUpToMaxConcurrentWithoutDelay() {
+        LoadShedder shedder = shedder(2, 10);
+
+        assertTrue(shedder.tryEnter());
+        assertTrue(shedder.tryEnter());
+        shedder.exit();
+        shedder.exit();
+        advance(INTERVAL);
+
+        assertFalse(shedder.isOverloaded());
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() {
+        LoadShedder shedder = shedder(1, 0);
+        assertTrue(shedder.tryEnter());
+
+        long start = System.nanoTime();
+        assertFalse(shedder.tryEnter());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        shedder.exit();
+    }
+
+    @Test
+    void standingQueueSwitchesToOverloadedAndBack() throws Exception {
+        LoadShedder shedder = shedder(1, 10);
+
+        // Every request of the interval waited longer than the target
+        standingQueue(shedder);
+        assertFalse(shedder.isOverloaded());
+        advance(INTERVAL);
+        assertTrue(shedder.isOverloaded());
+
+        // Overloaded: a waiter gives up after the target delay instead of max-wait
+        assertTrue(shedder.tryEnter());
+        long start = System.nanoTime();
+        assertFalse(shedder.tryEnter());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        shedder.exit();
+
+        // One interval with a wait under the target turns shedding off
+        advance(INTERVAL);
+        assertTrue(shedder.tryEnter());
+        shedder.exit();
+        advance(INTERVAL);
+        assertFalse(shedder.isOverloaded());
+    }
+
+    @Test
+    void oneShortWaitInTheIntervalMeansNoStandingQueue() throws Exception {
+        LoadShedder shedder = shedder(1, 10);
+
+        standingQueue(shedder);
+        assertTrue(shedder.tryEnter());
+        shedder.exit();
+        advance(INTERVAL);
+
+        assertFalse(shedder.isOverloaded());
+    }
+
+    @Test
+    void idleIntervalEndsOverload() throws Exception {
+        LoadShedder shedder = shedder(1, 10);
+        standingQueue(shedder);
+        advance(INTERVAL);
+        assertTrue(shedder.isOverloaded());
+
+        advance(INTERVAL);
+
+        assertFalse(shedder.isOverloaded());
+    }
+
+    /**
+     * Takes the slot, then starts a fresh interval whose only request queues behind it for 300 ms.
+     */
+    private void standingQueue(LoadShedder shedder) throws Exception {
+        assertTrue(shedder.tryEnter());
+        advance(INTERVAL);
+        assertTrue(waitWhileHeld(shedder, Duration.ofMillis(300)));
+        shedder.exit();
+    }
+
+    /**
+     * Starts a waiter while the single slot is held, advances the clock by {@code queued} once it is parked,
+     * then hands it the slot. Returns whether it was admitted (the slot then stays taken until the next exit).
+     */
+    private boolean waitWhileHeld(LoadShedder shedder, Duration queued) throws Exception {
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        CompletableFuture<Boolean> admitted = CompletableFuture.supplyAsync(() -> {
+            waiter.set(Thread.currentThread());
+            return shedder.tryEnter();
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiter.get() == null || waiter.get().getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "waiter never parked");
+            Thread.onSpinWait();
+        }
+        advance(queued);
+        shedder.exit();
+        return admitted.get(5, TimeUnit.SECONDS);
+    }
+
+    private LoadShedder shedder(int maxConcurrent, int maxQueued) {
+        InboundProtectionProperties properties = new InboundProtectionProperties();
+        InboundProtectionProperties.Shedding shedding = properties.getShedding();
+        shedding.setMaxConcurrent(maxConcurrent);
+        shedding.setMaxQueued(maxQueued);
+        shedding.setTargetDelay(TARGET);
+        shedding.setInterval(INTERVAL);
+        shedding.setMaxWait(Duration.ofSeconds(10));
+        return new LoadShedder(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+}
@@ -0,0 +1,156 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.ModelRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tier choice, escalation and latency expiry. Latencies are simulated on a manual clock that the fake
+ * OpenAI call advances.
+ */
+class ModelRouterTests {
+
+    private static final String FAST = "fast-model";
+    private static final String STRONG = "strong-model";
+    private static final Duration SLO = Duration.ofSeconds(1);
+    private static final int FAST_MAX_PROMPT = 100;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final Map<String, Duration> latency = new HashMap<>();
+    private final Map<String, String> answers = new HashMap<>();
+    private final List<String> calledModels = new ArrayList<>();
+
+    private LlmBudgetGovernor governor;
+    private ModelRouter router;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ModelRoutingProperties properties = new ModelRoutingProperties();
+        properties.setStatsWindow(10);
+        properties.setMinSamples(2);
+        properties.setStatsMaxAge(Duration.ofMinutes(1));
+        for (OpenAiClient.UseCase useCase : OpenAiClient.UseCase.values()) {
+            ModelRoutingProperties.Route route = new ModelRoutingProperties.Route();
+            route.setLatencySlo(SLO);
+            route.setTiers(List.of(new ModelRoutingProperties.Tier(FAST, false, FAST_MAX_PROMPT),
+                    new ModelRoutingProperties.Tier(STRONG, true, 0)));
+            properties.getRoutes().put(useCase.getTag(), route);
+        }
+
+        governor = mock(LlmBudgetGovernor.class);
+        when(governor.plan(any(), anyString(), anyBoolean())).thenAnswer(invocation -> new LlmBudgetGovernor.Plan(
+                LlmBudgetGovernor.Level.NORMAL, invocation.getArgument(1), invocation.getArgument(2)));
+
+        OpenAiClient openAiClient = mock(OpenAiClient.class);
+        when(openAiClient.createResponse(any(), any(), eq(String.class))).thenAnswer(invocation -> {
+            String model = String.valueOf(invocation.<Map<String, Object>>getArgument(1).get("model"));
+            calledModels.add(model);
+            advance(latency.getOrDefault(model, Duration.ofMillis(100)));
+            return new OpenAiClient.Result<>(200, "OK", model, answers.getOrDefault(model, "answer"), null,
+                    OpenAiClient.Usage.NONE);
+        });
+
+        router = new ModelRouter(properties, governor, openAiClient, new SimpleMeterRegistry(), clock::get);
+    }
+
+    @Test
+    void startsOnTheFirstTier() throws IOException {
+        assertEquals(FAST, call(10).model());
+        assertEquals(List.of(FAST), calledModels);
+    }
+
+    @Test
+    void promptTooLargeForTheFastTierStartsOnTheStrongOne() throws IOException {
+        assertEquals(STRONG, call(FAST_MAX_PROMPT + 1).model());
+        assertEquals(List.of(STRONG), calledModels);
+    }
+
+    @Test
+    void invalidAnswerEscalatesOneTier() throws IOException {
+        answers.put(FAST, "");
+
+        OpenAiClient.Result<String> result = call(10);
+
+        assertEquals(STRONG, result.model());
+        assertEquals(List.of(FAST, STRONG), calledModels);
+    }
+
+    @Test
+    void invalidAnswerIsNotEscalatedOnceTheSloHasPassed() throws IOException {
+        answers.put(FAST, "");
+        latency.put(FAST, SLO.plusMillis(1));
+
+        OpenAiClient.Result<String> result = call(10);
+
+        assertEquals(FAST, result.model());
+        assertEquals(List.of(FAST), calledModels);
+    }
+
+    @Test
+    void tierOverTheSloIsSkippedUntilItsSamplesExpire() throws IOException {
+        latency.put(FAST, SLO.multipliedBy(2));
+        call(10);
+        call(10);
+
+        assertEquals(STRONG, call(10).model());
+
+        advance(Duration.ofMinutes(2));
+        assertEquals(FAST, call(10).model());
+    }
+
+    @Test
+    void fastestTierIsUsedWhenNoneMeetsTheSlo() throws IOException {
+        latency.put(FAST, SLO.multipliedBy(3));
+        latency.put(STRONG, SLO.multipliedBy(2));
+        call(FAST_MAX_PROMPT + 1);
+        call(FAST_MAX_PROMPT + 1);
+        call(10);
+        call(10);
+        calledModels.clear();
+
+        assertEquals(STRONG, call(10).model());
+        assertEquals(List.of(STRONG), calledModels);
+    }
+
+    @Test
+    void statsBelongToTheTierEvenWhenTheBudgetSwapsTheModel() throws IOException {
+        when(governor.plan(any(), eq(FAST), anyBoolean())).thenReturn(
+                new LlmBudgetGovernor.Plan(LlmBudgetGovernor.Level.CHEAPER_MODEL, "budget-model", false));
+        latency.put("budget-model", SLO.multipliedBy(2));
+        call(10);
+        call(10);
+
+        // The fast tier is slow through its budget model, so the router moves on
+        assertEquals(STRONG, call(10).model());
+        assertEquals(2, tierStats(0).get("calls"));
+        assertEquals(1, tierStats(1).get("calls"));
+    }
+
+    private OpenAiClient.Result<String> call(int promptChars) throws IOException {
+        return router.call(OpenAiClient.UseCase.SUGGESTION, promptChars,
+                plan -> Map.of("model", plan.model()), String.class, answer -> !answer.isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> tierStats(int index) {
+        Map<String, Object> route = (Map<String, Object>) router.snapshot().get(OpenAiClient.UseCase.SUGGESTION.getTag());
+        return ((List<Map<String, Object>>) route.get("tiers")).get(index);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,164 @@
+package com.shomuran.cardscope.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The hedge race in {@link OpenAiClient} against a local stand-in for the Responses API. The stand-in holds
+ * back the next {@code slowRequests} requests, so the hedge sent after them answers first.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false",
+        "app.openai.hedging.enabled=true",
+        "app.openai.hedging.use-cases=suggestion",
+        "app.openai.hedging.percentile=0.5",
+        "app.openai.hedging.min-samples=4",
+        "app.openai.hedging.min-delay=200ms",
+        "app.openai.hedging.max-extra-ratio=1",
+        "app.openai.hedging.max-saved-hedges=1"
+})
+class OpenAiClientHedgingTests {
+
+    private static final OpenAiClient.UseCase USE_CASE = OpenAiClient.UseCase.SUGGESTION;
+    private static final long SLOW_MILLIS = 3000;
+    private static final String RESPONSE = """
+            {"output":[{"type":"message","content":[{"type":"output_text","text":"{\\"a\\":1}"}]}],
+             "usage":{"input_tokens":10,"output_tokens":2}}
+            """;
+
+    private static HttpServer server;
+    private static final AtomicInteger slowRequests = new AtomicInteger();
+    private static final AtomicInteger requests = new AtomicInteger();
+
+    @Autowired
+    private OpenAiClient openAiClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoSpyBean
+    private OpenAiHedgePolicy hedgePolicy;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/responses", OpenAiClientHedgingTests::respond);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void openAiBaseUrl(DynamicPropertyRegistry registry) {
+        registry.add("openai.base-url", () -> "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        slowRequests.set(0);
+        // Fast calls until the policy has its samples; with percentile 0.5 a later slow sample does not move it
+        for (int i = 0; i < 4; i++) {
+            call();
+        }
+        requests.set(0);
+        clearInvocations(hedgePolicy);
+    }
+
+    @Test
+    void fastCallIsNotHedged() throws IOException {
+        double sent = hedges("sent");
+
+        assertEquals(Map.of("a", 1), call().answer());
+
+        assertEquals(1, requests.get());
+        assertEquals(sent, hedges("sent"));
+        verify(hedgePolicy).recordLatency(eq(USE_CASE), longThat(millis -> millis < SLOW_MILLIS));
+    }
+
+    @Test
+    void slowPrimaryIsOvertakenByTheHedge() throws IOException {
+        double won = hedges("hedge_won");
+        slowRequests.set(1);
+
+        long start = System.nanoTime();
+        assertEquals(Map.of("a", 1), call().answer());
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < SLOW_MILLIS);
+        assertEquals(2, requests.get());
+        assertEquals(won + 1, hedges("hedge_won"));
+        // The primary never answered, so it counts as its timeout rather than the hedge's quick answer
+        verify(hedgePolicy).recordLatency(USE_CASE, USE_CASE.maxLatencyMillis());
+    }
+
+    @Test
+    void primaryThatWinsAfterAHedgeRecordsItsOwnLatency() throws IOException {
+        double won = hedges("primary_won");
+        slowRequests.set(2);
+
+        assertEquals(Map.of("a", 1), call().answer());
+
+        assertEquals(2, requests.get());
+        assertEquals(won + 1, hedges("primary_won"));
+        verify(hedgePolicy).recordLatency(eq(USE_CASE), longThat(millis -> millis >= SLOW_MILLIS
+                && millis < USE_CASE.maxLatencyMillis()));
+    }
+
+    private OpenAiClient.Result<Map> call() throws IOException {
+        return openAiClient.createResponse(USE_CASE, Map.of("model", "test-model", "input", "hello"), Map.class);
+    }
+
+    private double hedges(String outcome) {
+        Counter counter = meterRegistry.find("openai.hedge").tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            if (slowRequests.getAndDecrement() > 0) {
+                Thread.sleep(SLOW_MILLIS);
+            }
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client cancelled the losing call
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.OpenAiHedgingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hedge delay from recorded latencies, and the hedge budget.
+ */
+class OpenAiHedgePolicyTests {
+
+    private static final OpenAiClient.UseCase HEDGED = OpenAiClient.UseCase.SUGGESTION;
+
+    private OpenAiHedgingProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OpenAiHedgingProperties();
+        properties.setEnabled(true);
+        properties.setUseCases(List.of(HEDGED.getTag()));
+        properties.setPercentile(0.9);
+        properties.setWindow(100);
+        properties.setMinSamples(100);
+        properties.setMinDelay(Duration.ofMillis(10));
+        properties.setMaxExtraRatio(0.5);
+        properties.setMaxSavedHedges(2);
+    }
+
+    @Test
+    void noHedgeUntilMinSamplesAreRecorded() {
+        OpenAiHedgePolicy policy = policy();
+        for (int millis = 1; millis < 100; millis++) {
+            policy.recordLatency(HEDGED, millis);
+        }
+        assertEquals(-1, policy.hedgeDelayMillis(HEDGED));
+
+        policy.recordLatency(HEDGED, 100);
+        assertEquals(90, policy.hedgeDelayMillis(HEDGED));
+    }
+
+    @Test
+    void delayIsNeverBelowMinDelay() {
+        properties.setMinDelay(Duration.ofMillis(500));
+        OpenAiHedgePolicy policy = policy();
+        for (int millis = 1; millis <= 100; millis++) {
+            policy.recordLatency(HEDGED, millis);
+        }
+
+        assertEquals(500, policy.hedgeDelayMillis(HEDGED));
+    }
+
+    @Test
+    void disabledOrUnlistedUseCasesAreNotHedged() {
+        OpenAiHedgePolicy policy = policy();
+        for (int millis = 1; millis <= 100; millis++) {
+            policy.recordLatency(HEDGED, millis);
+            policy.recordLatency(OpenAiClient.UseCase.REWARD, millis);
+        }
+
+        assertEquals(-1, policy.hedgeDelayMillis(OpenAiClient.UseCase.REWARD));
+        assertFalse(policy.tryHedge(OpenAiClient.UseCase.REWARD));
+
+        properties.setEnabled(false);
+        assertEquals(-1, policy.hedgeDelayMillis(HEDGED));
+    }
+
+    @Test
+    void hedgesArePaidFromCreditsEarnedPerCall() {
+        OpenAiHedgePolicy policy = policy();
+
+        policy.hedgeDelayMillis(HEDGED);
+        assertFalse(policy.tryHedge(HEDGED)); // half a hedge earned
+
+        policy.hedgeDelayMillis(HEDGED);
+        assertTrue(policy.tryHedge(HEDGED));
+        assertFalse(policy.tryHedge(HEDGED));
+    }
+
+    @Test
+    void savedCreditsAreCapped() {
+        OpenAiHedgePolicy policy = policy();
+        for (int call = 0; call < 20; call++) {
+            policy.hedgeDelayMillis(HEDGED);
+        }
+
+        assertTrue(policy.tryHedge(HEDGED));
+        assertTrue(policy.tryHedge(HEDGED));
+        assertFalse(policy.tryHedge(HEDGED));
+    }
+
+    private OpenAiHedgePolicy policy() {
+        return new OpenAiHedgePolicy(properties, new SimpleMeterRegistry());
+    }
+}
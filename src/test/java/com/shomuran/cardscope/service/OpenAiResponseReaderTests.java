@@ -0,0 +1,122 @@
+package com.shomuran.cardscope.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Answer binding and {@code usage} extraction from Responses API bodies.
+ */
+class OpenAiResponseReaderTests {
+
+    private final OpenAiResponseReader reader = new OpenAiResponseReader();
+
+    @Test
+    void usageWithCachedTokensIsExtracted() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"id":"resp_1","output":[{"type":"message","content":[{"type":"output_text","text":"{\\"a\\":1}"}]}],
+                 "usage":{"input_tokens":1200,"input_tokens_details":{"cached_tokens":1024},
+                          "output_tokens":300,"output_tokens_details":{"reasoning_tokens":0},"total_tokens":1500}}
+                """);
+
+        assertEquals(new OpenAiClient.Usage(1200, 300, 1024), reply.usage());
+        assertEquals(Map.of("a", 1), reply.answer());
+    }
+
+    @Test
+    void usageBeforeOutputIsExtracted() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"usage":{"output_tokens":7,"input_tokens":20},
+                 "output":[{"content":[{"type":"output_text","text":"{}"}]}]}
+                """);
+
+        assertEquals(new OpenAiClient.Usage(20, 7, 0), reply.usage());
+    }
+
+    @Test
+    void chatCompletionsUsageNamesAreAccepted() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[],"usage":{"prompt_tokens":50,"completion_tokens":5,
+                                       "prompt_tokens_details":{"cached_tokens":32}}}
+                """);
+
+        assertEquals(new OpenAiClient.Usage(50, 5, 32), reply.usage());
+    }
+
+    @Test
+    void missingOrMalformedUsageCountsAsNone() throws IOException {
+        assertEquals(OpenAiClient.Usage.NONE, read("{\"output\":[]}").usage());
+        assertEquals(new OpenAiClient.Usage(0, 0, 0),
+                read("{\"usage\":{\"input_tokens\":\"many\",\"input_tokens_details\":null}}").usage());
+    }
+
+    @Test
+    void missingOutputTextIsReported() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[{"type":"reasoning","summary":[]},
+                           {"type":"message","content":[{"type":"refusal","refusal":"no"}]}],
+                 "usage":{"input_tokens":10,"output_tokens":2}}
+                """);
+
+        assertNull(reply.answer());
+        assertNull(reply.unparsedText());
+        assertFalse(reply.hasOutputText());
+        assertEquals(new OpenAiClient.Usage(10, 2, 0), reply.usage());
+    }
+
+    @Test
+    void firstOutputTextWinsEvenWhenTypeComesLast() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[{"content":[{"text":"{\\"first\\":true}","type":"output_text"},
+                                       {"type":"output_text","text":"{\\"second\\":true}"}]}]}
+                """);
+
+        assertEquals(Map.of("first", true), reply.answer());
+    }
+
+    @Test
+    void fencedAnswerIsUnwrapped() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[{"content":[{"type":"output_text","text":"```json\\n{\\"a\\":[1,2]}\\n```"}]}]}
+                """);
+
+        assertEquals(Map.of("a", List.of(1, 2)), reply.answer());
+        assertFalse(reply.repaired());
+    }
+
+    @Test
+    void truncatedAnswerIsRepaired() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[{"content":[{"type":"output_text","text":"{\\"a\\":1,\\"b\\":\\"cut"}]}]}
+                """);
+
+        assertEquals(Map.of("a", 1), reply.answer());
+        assertTrue(reply.repaired());
+    }
+
+    @Test
+    void unusableAnswerKeepsTheText() throws IOException {
+        OpenAiResponseReader.Reply<Map> reply = read("""
+                {"output":[{"content":[{"type":"output_text","text":"Sorry, I can't help."}]}]}
+                """);
+
+        assertNull(reply.answer());
+        assertTrue(reply.hasOutputText());
+        assertEquals("Sorry, I can't help.", reply.unparsedText());
+    }
+
+    @Test
+    void nonObjectBodyIsAnError() {
+        assertThrows(IOException.class, () -> read("[]"));
+    }
+
+    private OpenAiResponseReader.Reply<Map> read(String body) throws IOException {
+        return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), Map.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.config.PlacesQuotaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Places token buckets on a manual clock. Only the short waits of interactive borrowers take real time.
+ */
+class PlacesRateLimiterTests {
+
+    private static final String API = "textsearch";
+    private static final PlacesRateLimiter.Priority INTERACTIVE = PlacesRateLimiter.Priority.INTERACTIVE;
+    private static final PlacesRateLimiter.Priority BACKGROUND = PlacesRateLimiter.Priority.BACKGROUND;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private PlacesQuotaProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PlacesQuotaProperties();
+        properties.setBackgroundReserve(0.5);
+        properties.setInteractiveMaxWait(Duration.ofMillis(25));
+    }
+
+    @Test
+    void backgroundCallsLeaveTheReserveToInteractiveOnes() {
+        PlacesRateLimiter limiter = limiter(60, 10);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(API, BACKGROUND));
+        }
+        assertFalse(limiter.tryAcquire(API, BACKGROUND));
+        assertEquals(5, limiter.available(API), 1e-9);
+
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+    }
+
+    @Test
+    void interactiveCallsBorrowUpToTheMaxWait() {
+        // 100 tokens a second: each borrowed token is another 10 ms of waiting
+        PlacesRateLimiter limiter = limiter(6000, 2);
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));  // waits 10 ms
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));  // waits 20 ms behind the first borrower
+        assertFalse(limiter.tryAcquire(API, INTERACTIVE)); // would wait 30 ms
+        assertEquals(-2, limiter.available(API), 1e-9);
+        assertFalse(limiter.tryAcquire(API, BACKGROUND));
+    }
+
+    @Test
+    void bucketsRefillOverTimeUpToTheBurst() {
+        PlacesRateLimiter limiter = limiter(60, 2);
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+        assertFalse(limiter.tryAcquire(API, INTERACTIVE));
+
+        advance(Duration.ofSeconds(1));
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+
+        advance(Duration.ofHours(1));
+        assertEquals(2, limiter.available(API), 1e-9);
+    }
+
+    @Test
+    void drainBacksOffUntilTheBucketRefills() {
+        PlacesRateLimiter limiter = limiter(60, 10);
+
+        limiter.drain(API);
+
+        assertEquals(0, limiter.available(API), 1e-9);
+        assertFalse(limiter.tryAcquire(API, INTERACTIVE));
+        assertFalse(limiter.tryAcquire(API, BACKGROUND));
+
+        advance(Duration.ofSeconds(6));
+        assertTrue(limiter.tryAcquire(API, BACKGROUND));
+    }
+
+    @Test
+    void apisHaveSeparateBuckets() {
+        PlacesRateLimiter limiter = limiter(60, 1);
+        assertTrue(limiter.tryAcquire(API, INTERACTIVE));
+
+        assertFalse(limiter.tryAcquire(API, INTERACTIVE));
+        assertTrue(limiter.tryAcquire("nearbysearch", INTERACTIVE));
+    }
+
+    private PlacesRateLimiter limiter(double requestsPerMinute, int burst) {
+        PlacesQuotaProperties.ApiQuota quota = new PlacesQuotaProperties.ApiQuota();
+        quota.setRequestsPerMinute(requestsPerMinute);
+        quota.setBurst(burst);
+        properties.getApis().put(API, quota);
+        return new PlacesRateLimiter(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,76 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.UserCard;
+import com.shomuran.cardscope.model.UserProfile;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Profile saves and deletes reach {@link CacheInvalidationBus}, including a save that only replaces the cards.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false"
+})
+class UserProfileChangeListenerTests {
+
+    private static final String EMAIL = "listener@example.com";
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @MockitoSpyBean
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        userProfileRepository.findProfileByEmail(EMAIL).ifPresent(userProfileRepository::delete);
+        UserProfile profile = new UserProfile();
+        profile.setEmail(EMAIL);
+        profile.setName("Listener");
+        profile.setUserCards(new ArrayList<>(List.of(new UserCard("Chase", "Sapphire Preferred"))));
+        id = userProfileRepository.save(profile).getId();
+        clearInvocations(cacheInvalidationBus);
+    }
+
+    @Test
+    void replacingOnlyTheCardsReportsTheUser() {
+        UserProfile profile = userProfileRepository.findProfileByEmail(EMAIL).orElseThrow();
+        profile.setUserCards(new ArrayList<>(List.of(new UserCard("Amex", "Gold"))));
+        userProfileRepository.save(profile);
+
+        verify(cacheInvalidationBus).userChanged(eq(id), eq(EMAIL), anyLong());
+        assertEquals(List.of("Gold"), userProfileRepository.findProfileByEmail(EMAIL).orElseThrow()
+                .getUserCards().stream().map(UserCard::getCardProduct).toList());
+    }
+
+    @Test
+    void unchangedSaveReportsNothing() {
+        userProfileRepository.save(userProfileRepository.findProfileByEmail(EMAIL).orElseThrow());
+
+        verify(cacheInvalidationBus, never()).userChanged(any(), any(), anyLong());
+    }
+
+    @Test
+    void deleteReportsARemoval() {
+        userProfileRepository.delete(userProfileRepository.findProfileByEmail(EMAIL).orElseThrow());
+
+        verify(cacheInvalidationBus).userRemoved(id, EMAIL);
+    }
+}
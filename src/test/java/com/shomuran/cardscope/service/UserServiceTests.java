@@ -0,0 +1,93 @@
+package com.shomuran.cardscope.service;
+
+import com.shomuran.cardscope.model.PasswordResetToken;
+import com.shomuran.cardscope.model.UserProfile;
+import com.shomuran.cardscope.repository.PasswordResetTokenRepository;
+import com.shomuran.cardscope.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * A password reset that fails after the token was claimed puts the token back.
+ */
+@SpringBootTest(properties = {
+        "openai.api.key=test",
+        "google.api.key=test",
+        "spring.mail.host=localhost",
+        "app.warmup.enabled=false"
+})
+class UserServiceTests {
+
+    private static final String EMAIL = "reset@example.com";
+    private static final String TOKEN = "reset-service-token";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private PasswordResetTokenRepository tokenRepository;
+
+    @MockitoSpyBean(name = "accountWriteExecutor")
+    private ThreadPoolTaskExecutor accountWriteExecutor;
+
+    @MockitoSpyBean
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepository.deleteAll();
+        userProfileRepository.findProfileByEmail(EMAIL).ifPresent(userProfileRepository::delete);
+        UserProfile profile = new UserProfile();
+        profile.setEmail(EMAIL);
+        profile.setName("Reset");
+        PasswordResetToken token = new PasswordResetToken();
+        token.setToken(TOKEN);
+        token.setUser(userProfileRepository.save(profile));
+        token.setExpiryDate(LocalDateTime.now().plusMinutes(30));
+        tokenRepository.save(token);
+    }
+
+    @Test
+    void successfulResetConsumesTheToken() {
+        userService.confirmResetPassword(TOKEN, "new-password").join();
+
+        assertTrue(tokenRepository.findByToken(TOKEN).isEmpty());
+        assertNotNull(userProfileRepository.findProfileByEmail(EMAIL).orElseThrow().getPasswordHash());
+    }
+
+    @Test
+    void rejectedWriteRestoresTheToken() {
+        doThrow(new TaskRejectedException("full")).when(accountWriteExecutor).execute(any(Runnable.class));
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> userService.confirmResetPassword(TOKEN, "new-password").join());
+
+        assertInstanceOf(TaskRejectedException.class, failure.getCause());
+        assertTrue(tokenRepository.findByToken(TOKEN).isPresent());
+    }
+
+    @Test
+    void failedWriteRestoresTheToken() {
+        doThrow(new IllegalStateException("boom")).when(cacheInvalidationBus).userChanged(any(), any(), anyLong());
+
+        assertThrows(CompletionException.class, () -> userService.confirmResetPassword(TOKEN, "new-password").join());
+
+        assertTrue(tokenRepository.findByToken(TOKEN).isPresent());
+    }
+}